@@ -15,16 +15,26 @@ public class CustomerRecord {
     private String publisher;
     private double totalSales;   // in millions
     private String segment;
+    private int releaseDay;      // epoch day, ReleaseIndex.NO_DATE if unknown
+    private int lastUpdateDay;   // epoch day, ReleaseIndex.NO_DATE if unknown
 
     // Constructor
     public CustomerRecord(String title, String console, String genre,
                           String publisher, double totalSales) {
-        this.title      = title.trim();
-        this.console    = console.trim();
-        this.genre      = genre.trim();
-        this.publisher  = publisher.trim();
-        this.totalSales = totalSales;
-        this.segment    = classifySegment(totalSales);
+        this(title, console, genre, publisher, totalSales, ReleaseIndex.NO_DATE, ReleaseIndex.NO_DATE);
+    }
+
+    public CustomerRecord(String title, String console, String genre,
+                          String publisher, double totalSales,
+                          int releaseDay, int lastUpdateDay) {
+        this.title         = title.trim();
+        this.console       = console.trim();
+        this.genre         = genre.trim();
+        this.publisher     = publisher.trim();
+        this.totalSales    = totalSales;
+        this.segment       = classifySegment(totalSales);
+        this.releaseDay    = releaseDay;
+        this.lastUpdateDay = lastUpdateDay;
     }
 
     // Segment classification based on total sales (millions)
@@ -33,12 +43,16 @@ public class CustomerRecord {
     //   Gold      5M – 10M
     //   Silver    1M – 4.99M
     //   Bronze    < 1M
+    static final double PLATINUM_ABOVE = 10.0;
+    static final double GOLD_MIN       = 5.0;
+    static final double SILVER_MIN     = 1.0;
+
     private String classifySegment(double sales) {
-        if (sales > 10.0) {
+        if (sales > PLATINUM_ABOVE) {
             return "Platinum";
-        } else if (sales >= 5.0) {
+        } else if (sales >= GOLD_MIN) {
             return "Gold";
-        } else if (sales >= 1.0) {
+        } else if (sales >= SILVER_MIN) {
             return "Silver";
         } else {
             return "Bronze";
@@ -52,6 +66,8 @@ public class CustomerRecord {
     public String getPublisher()  { return publisher; }
     public double getTotalSales() { return totalSales; }
     public String getSegment()    { return segment; }
+    public int getReleaseDay()    { return releaseDay; }
+    public int getLastUpdateDay() { return lastUpdateDay; }
 
     @Override
     public String toString() {
@@ -59,6 +75,17 @@ public class CustomerRecord {
                 truncate(title, 40), console, truncate(publisher, 20), totalSales);
     }
 
+    private static final String[] REPORT_FIELDS = {"segment", "rank", "title", "console", "genre", "publisher", "total_sales"};
+
+    // Same row as toString() through a ReportWriter; csv/json get the full fields
+    public void writeTo(ReportWriter out, int rank) {
+        out.text("  ").width(-40).text(truncate(title, 40)).text(" | ").width(-6).text(console)
+           .text(" | ").width(-20).text(truncate(publisher, 20)).text(" | ").width(8).decimal(totalSales, 2)
+           .text(" M").newline();
+        out.record("title", REPORT_FIELDS).value(segment).value(rank).value(title).value(console)
+           .value(genre).value(publisher).value(totalSales, 2).end();
+    }
+
     private String truncate(String s, int max) {
         return s.length() > max ? s.substring(0, max - 3) + "..." : s;
     }
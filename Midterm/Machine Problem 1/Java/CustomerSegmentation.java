@@ -26,12 +26,18 @@
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.IntFunction;
 
+@SuppressWarnings("try")
 public class CustomerSegmentation {
 
     // ------------------------------------------------------------------ //
@@ -39,6 +45,25 @@ public class CustomerSegmentation {
     // ------------------------------------------------------------------ //
     public static void main(String[] args) {
 
+        args = Metrics.init("CustomerSegmentation", args);
+
+        // Report destination and format: --format=text|csv|json, --out=file
+        ReportWriter report;
+        try {
+            report = ReportWriter.fromArgs(args);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("[Error] " + e.getMessage());
+            return;
+        }
+
+        // Batch mode: no prompts, many files, one merged report
+        int batch = indexOf(args, "--batch");
+        if (batch >= 0) {
+            runBatch(args, batch, report);
+            Metrics.dump();
+            return;
+        }
+
         Scanner input = new Scanner(System.in);
 
         printBanner();
@@ -46,19 +71,343 @@ public class CustomerSegmentation {
         // Step 1: Auto-detect CSV
         File file = autoDetectCSV(input);
 
+        // Time-range query through the release-date index instead of a full report
+        int released = indexOf(args, "--released");
+        if (released >= 0) {
+            runReleased(args, released, file, report);
+            input.close();
+            Metrics.dump();
+            return;
+        }
+
+        // Files larger than the heap: sort on disk instead of loading
+        if (indexOf(args, "--external") >= 0) {
+            runExternal(args, file, report);
+            input.close();
+            Metrics.dump();
+            return;
+        }
+
         // Step 2: Load dataset
         List<CustomerRecord> records = loadDataset(file);
 
         if (records.isEmpty()) {
             System.out.println("\n[!] No valid records found in the file. Exiting.");
             input.close();
+            Metrics.dump();
             return;
         }
 
-        // Step 3: Segment and display results
-        displayResults(records);
+        // One row per game instead of per console (the saved indexes are per row)
+        boolean games = indexOf(args, "--games") >= 0;
+        if (games) records = groupGames(records);
+
+        // Sorted sales index (saved next to the CSV as <name>.salesidx)
+        SalesIndex index;
+        try (Metrics.Phase phase = Metrics.phase("index")) {
+            index = games ? SalesIndex.build(records) : SalesIndex.openOrBuild(file, records);
+        } catch (IOException e) {
+            System.out.println("[!] Could not save sales index, using it unsaved: " + e.getMessage());
+            index = SalesIndex.build(records);
+        }
+
+        // Step 3: Segment and display results, or answer a sales query
+        try (ReportWriter out = report) {
+            if (!runSalesQuery(args, index, out) && !runTitleSearch(args, games ? null : file, records, out)) {
+                displayResults(records, index, out);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("[Error] Could not write report: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("[Error] " + e.getMessage());
+        }
 
         input.close();
+        Metrics.dump();
+    }
+
+    // ------------------------------------------------------------------ //
+    //  BATCH MODE:  --batch <dir|glob> [--threads N]
+    // ------------------------------------------------------------------ //
+    private static void runBatch(String[] args, int batch, ReportWriter report) {
+        try (ReportWriter out = report) {
+            if (batch + 1 >= args.length) {
+                System.out.println("[Error] --batch needs a directory or glob, e.g. --batch exports/*.csv");
+                return;
+            }
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+            int t = indexOf(args, "--threads");
+            try {
+                if (t >= 0) threads = Math.max(1, Integer.parseInt(args[t + 1]));
+            } catch (RuntimeException e) {
+                System.out.println("[Error] --threads needs a number");
+                return;
+            }
+            SegmentationBatch.run(args[batch + 1], threads, out);
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("[Error] Batch failed: " + e.getMessage());
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  RELEASE-DATE QUERY:  --released a..b [--segment S]
+    // ------------------------------------------------------------------ //
+    private static void runReleased(String[] args, int released, File file, ReportWriter report) {
+        int seg = indexOf(args, "--segment");
+        String segment = seg >= 0 && seg + 1 < args.length ? args[seg + 1] : null;
+
+        try (ReportWriter out = report) {
+            if (released + 1 >= args.length) {
+                System.out.println("[Error] --released needs a range, e.g. --released 2005..2010");
+                return;
+            }
+            String range = args[released + 1];
+            int[] days = ReleaseIndex.parseRange(range);
+            ReleaseIndex index;
+            try (Metrics.Phase phase = Metrics.phase("index")) {
+                index = ReleaseIndex.openOrBuild(file);
+            }
+            long start = System.nanoTime();
+            List<CustomerRecord> titles;
+            try (Metrics.Phase phase = Metrics.phase("query")) {
+                titles = index.query(days[0], days[1], segment);
+            }
+            long took = System.nanoTime() - start;
+            Metrics.count("partitions.read", index.partitionsRead);
+            Metrics.count("records.decoded", index.recordsDecoded);
+            try (Metrics.Phase phase = Metrics.phase("render")) {
+                index.writeReport(out, range, segment, days[0], days[1], titles, took);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("[Error] " + e.getMessage());
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("[Error] Release index: " + e.getMessage());
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  EXTERNAL SORT:  --external [--memory MB] [--spill-dir DIR] [--ranks]
+    //  Same report as the in-memory path, or with --ranks the global and
+    //  per-segment rank of every title.
+    // ------------------------------------------------------------------ //
+    private static final String[] RANK_FIELDS = {"rank", "segment_rank", "segment", "title", "console",
+                                                 "publisher", "total_sales"};
+
+    private static void runExternal(String[] args, File file, ReportWriter report) {
+        try (ReportWriter out = report) {
+            long budget = ExternalSort.DEFAULT_BUDGET;
+            Path spillDir = null;
+            int m = indexOf(args, "--memory"), d = indexOf(args, "--spill-dir");
+            try {
+                if (m >= 0) budget = Long.parseLong(args[m + 1]) << 20;
+            } catch (RuntimeException e) {
+                System.out.println("[Error] --memory needs a size in MB");
+                return;
+            }
+            if (d >= 0) {
+                if (d + 1 >= args.length || !new File(args[d + 1]).isDirectory()) {
+                    System.out.println("[Error] --spill-dir needs an existing directory");
+                    return;
+                }
+                spillDir = Paths.get(args[d + 1]);
+            }
+
+            System.out.println("Sorting dataset on disk: " + file.getName() + " ...");
+            try (ExternalSort sort = ExternalSort.open(file, budget, spillDir)) {
+                Metrics.count("lines.read", sort.lines);
+                Metrics.count("records.loaded", sort.titles);
+                Metrics.count("rows.skipped", sort.skipped);
+                System.out.printf("Records sorted: %,d  |  Rows skipped: %,d  |  Runs: %,d  |  Spilled: %,.1f MB%n%n",
+                        sort.titles, sort.skipped, sort.runs, sort.spilledBytes / 1048576.0);
+
+                if (indexOf(args, "--ranks") >= 0) {
+                    writeRanks(out, sort);
+                } else {
+                    writeReport(out, sort.count, sort.sales, sort.totalSales, sort::segment);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("[Error] External sort failed: " + e.getMessage());
+        }
+    }
+
+    // Every title, highest first; text shows the top 50, csv/json all of them
+    private static void writeRanks(ReportWriter out, ExternalSort sort) {
+        try (Metrics.Phase phase = Metrics.phase("render")) {
+            out.repeat('=', 82).newline();
+            out.text("  GLOBAL SALES RANKING  |  Titles: ").grouped(sort.titles).newline();
+            out.repeat('=', 82).newline();
+            out.text("  ").width(8).text("Rank").text(" | ").width(-30).text("Title").text(" | ").width(-6).text("Cons.")
+               .text(" | ").width(10).text("Sales (M)").text(" | ").width(-8).text("Segment").text(" | ").text("Seg. Rank")
+               .newline();
+            out.text("  ").repeat('-', 80).newline();
+
+            long limit = out.isText() ? Math.min(sort.titles, 50) : sort.titles;
+            long[] segmentRank = new long[4];
+            for (long rank = 1; rank <= limit && sort.hasNext(); rank++) {
+                CustomerRecord r = sort.next();
+                long inSegment = ++segmentRank[SegmentationBatch.segmentIndex(r.getSegment())];
+                String title = r.getTitle().length() > 30 ? r.getTitle().substring(0, 27) + "..." : r.getTitle();
+                out.text("  ").width(8).grouped(rank).text(" | ").width(-30).text(title).text(" | ").width(-6)
+                   .text(r.getConsole()).text(" | ").width(8).decimal(r.getTotalSales(), 2).text(" M | ").width(-8)
+                   .text(r.getSegment()).text(" | ").grouped(inSegment).newline();
+                out.record("title", RANK_FIELDS).value(rank).value(inSegment).value(r.getSegment())
+                   .value(r.getTitle()).value(r.getConsole()).value(r.getPublisher())
+                   .value(r.getTotalSales(), 2).end();
+            }
+            if (sort.titles > limit) {
+                out.newline().text("  ... and ").grouped(sort.titles - limit).text(" more titles.").newline();
+            }
+            out.repeat('=', 82).newline();
+            out.flush();
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  SALES QUERIES:  --sales lo..hi  |  --top N  |  --rank "title"
+    //  Returns false if none was asked for.
+    // ------------------------------------------------------------------ //
+    private static final String[] QUERY_FIELDS = {"rank", "title", "console", "publisher", "total_sales",
+                                                  "segment", "percentile"};
+
+    private static boolean runSalesQuery(String[] args, SalesIndex index, ReportWriter out) {
+        List<CustomerRecord> result;
+        String heading;
+        int i;
+        if ((i = indexOf(args, "--sales")) >= 0) {
+            String range = i + 1 < args.length ? args[i + 1] : "";
+            int dots = range.indexOf("..");
+            if (dots < 0) throw new IllegalArgumentException("--sales needs a range in millions, e.g. --sales 2..3");
+            try {
+                double lo = dots == 0 ? 0 : Double.parseDouble(range.substring(0, dots));
+                double hi = dots + 2 == range.length() ? Double.MAX_VALUE : Double.parseDouble(range.substring(dots + 2));
+                result = index.range(lo, hi);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--sales needs a range in millions, e.g. --sales 2..3");
+            }
+            heading = "TITLES WITH TOTAL SALES " + range + " M";
+        } else if ((i = indexOf(args, "--top")) >= 0) {
+            int n;
+            try {
+                n = Integer.parseInt(args[i + 1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("--top needs a number");
+            }
+            if (n <= 0) throw new IllegalArgumentException("--top needs a positive number");
+            result = index.top(n);
+            heading = "TOP " + n + " TITLES BY TOTAL SALES";
+        } else if ((i = indexOf(args, "--rank")) >= 0) {
+            String title = i + 1 < args.length ? args[i + 1].trim() : "";
+            // One pass over all rows, highest sales first, so matches come out
+            // in rank order. O(n) like loading them was; a title -> rows map
+            // would only pay off for many lookups per run.
+            result = new ArrayList<>();
+            for (CustomerRecord r : index.top(index.size())) {
+                if (r.getTitle().equalsIgnoreCase(title)) result.add(r);
+            }
+            heading = "SALES RANK OF \"" + title + "\"";
+        } else {
+            return false;
+        }
+
+        try (Metrics.Phase phase = Metrics.phase("render")) {
+            out.repeat('=', 82).newline();
+            out.text("  ").text(heading).text("  |  Count: ").grouped(result.size()).newline();
+            out.repeat('=', 82).newline();
+            out.text("  ").width(-36).text("Title").text(" | ").width(-6).text("Cons.")
+               .text(" | ").width(10).text("Sales (M)").text(" | ").width(-8).text("Segment")
+               .text(" | ").width(10).text("Percentile").newline();
+            out.text("  ").repeat('-', 80).newline();
+            for (int k = 0; k < result.size(); k++) {
+                CustomerRecord r = result.get(k);
+                double pct = index.percentileRank(r);
+                String title = r.getTitle().length() > 36 ? r.getTitle().substring(0, 33) + "..." : r.getTitle();
+                out.text("  ").width(-36).text(title).text(" | ").width(-6).text(r.getConsole())
+                   .text(" | ").width(8).decimal(r.getTotalSales(), 2).text(" M | ").width(-8).text(r.getSegment())
+                   .text(" | ").width(9).decimal(pct, 2).text("%").newline();
+                out.record("title", QUERY_FIELDS).value(k + 1).value(r.getTitle()).value(r.getConsole())
+                   .value(r.getPublisher()).value(r.getTotalSales(), 2).value(r.getSegment()).value(pct, 2).end();
+            }
+            if (result.isEmpty()) out.text("  (No matching titles)").newline();
+            out.repeat('=', 82).newline();
+            out.flush();
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  TITLE SEARCH:  --search "text"  |  --fuzzy "text"
+    //  Returns false if neither was asked for. file is null when records are
+    //  not the CSV's own rows (--games); the index is then built unsaved.
+    // ------------------------------------------------------------------ //
+    private static final String[] SEARCH_FIELDS = {"rank", "title", "console", "publisher", "total_sales",
+                                                   "segment", "score"};
+
+    private static boolean runTitleSearch(String[] args, File file, List<CustomerRecord> records,
+                                          ReportWriter out) throws IOException {
+        int s = indexOf(args, "--search"), f = indexOf(args, "--fuzzy");
+        if (s < 0 && f < 0) return false;
+        boolean fuzzy = s < 0;
+        int at = fuzzy ? f : s;
+        if (at + 1 >= args.length) throw new IllegalArgumentException("--search/--fuzzy need a title");
+        String query = args[at + 1];
+
+        TitleIndex index;
+        try (Metrics.Phase phase = Metrics.phase("title-index")) {
+            index = file == null ? TitleIndex.build(records) : TitleIndex.openOrBuild(file, records);
+        }
+        long start = System.nanoTime();
+        List<TitleIndex.Match> matches;
+        try (Metrics.Phase phase = Metrics.phase("search")) {
+            if (fuzzy) {
+                matches = index.fuzzy(query, 50);
+            } else {
+                matches = index.substring(query);
+                matches.sort((a, b) -> Double.compare(b.record.getTotalSales(), a.record.getTotalSales()));
+            }
+        }
+        long took = System.nanoTime() - start;
+
+        try (Metrics.Phase phase = Metrics.phase("render")) {
+            int limit = out.isText() ? Math.min(matches.size(), 50) : matches.size();
+            out.repeat('=', 82).newline();
+            out.text(fuzzy ? "  TITLES LIKE \"" : "  TITLES CONTAINING \"").text(query).text("\"  |  Matches: ")
+               .grouped(matches.size()).text("  |  ").decimal(took / 1e6, 2).text(" ms").newline();
+            out.repeat('=', 82).newline();
+            out.text("  ").width(-36).text("Title").text(" | ").width(-6).text("Cons.")
+               .text(" | ").width(-16).text("Publisher").text(" | ").width(10).text("Sales (M)")
+               .text(" | ").text(fuzzy ? "Score" : "Segment").newline();
+            out.text("  ").repeat('-', 80).newline();
+            for (int k = 0; k < limit; k++) {
+                TitleIndex.Match m = matches.get(k);
+                CustomerRecord r = m.record;
+                String title = r.getTitle().length() > 36 ? r.getTitle().substring(0, 33) + "..." : r.getTitle();
+                String publisher = r.getPublisher().length() > 16
+                        ? r.getPublisher().substring(0, 13) + "..." : r.getPublisher();
+                out.text("  ").width(-36).text(title).text(" | ").width(-6).text(r.getConsole())
+                   .text(" | ").width(-16).text(publisher).text(" | ").width(8).decimal(r.getTotalSales(), 2)
+                   .text(" M | ");
+                if (fuzzy) out.decimal(m.score, 2);
+                else out.text(r.getSegment());
+                out.newline();
+                out.record("title", SEARCH_FIELDS).value(k + 1).value(r.getTitle()).value(r.getConsole())
+                   .value(r.getPublisher()).value(r.getTotalSales(), 2).value(r.getSegment()).value(m.score, 2).end();
+            }
+            if (matches.isEmpty()) out.text("  (No matching titles)").newline();
+            if (matches.size() > limit) {
+                out.newline().text("  ... and ").grouped(matches.size() - limit).text(" more titles.").newline();
+            }
+            out.repeat('=', 82).newline();
+            out.flush();
+        }
+        return true;
+    }
+
+    private static int indexOf(String[] args, String flag) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(flag)) return i;
+        }
+        return -1;
     }
 
     // ------------------------------------------------------------------ //
@@ -68,7 +417,7 @@ public class CustomerSegmentation {
 
         File currentDir = new File(System.getProperty("user.dir"));
         File[] csvFiles = currentDir.listFiles(
-            (dir, name) -> name.toLowerCase().endsWith(".csv")
+            (dir, name) -> CsvInput.isCsv(name)
         );
 
         // No CSV found → fallback to manual input
@@ -127,8 +476,8 @@ public class CustomerSegmentation {
                 System.out.println("[Error] Path is not a file. Please try again.");
             } else if (!file.canRead()) {
                 System.out.println("[Error] File is not readable. Please try again.");
-            } else if (!path.toLowerCase().endsWith(".csv")) {
-                System.out.println("[Error] File must be a CSV (.csv) file. Please try again.");
+            } else if (!CsvInput.isCsv(path)) {
+                System.out.println("[Error] File must be a CSV (.csv or .csv.gz) file. Please try again.");
             } else {
                 System.out.println("[OK] File found: " + file.getAbsolutePath());
                 System.out.println();
@@ -143,12 +492,35 @@ public class CustomerSegmentation {
     // ------------------------------------------------------------------ //
     private static List<CustomerRecord> loadDataset(File file) {
         List<CustomerRecord> records = new ArrayList<>();
-        int lineNumber = 0;
-        int skipped    = 0;
+        int[] counts = new int[2];   // lines read, rows skipped
 
         System.out.println("Loading dataset: " + file.getName() + " ...");
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        // Reading and parsing share one pass, so they are timed together
+        try (Metrics.Phase phase = Metrics.phase("load")) {
+            records = readDataset(file, counts);
+        } catch (IOException e) {
+            System.out.println("[Error] Could not read file: " + e.getMessage());
+        }
+
+        Metrics.count("lines.read", counts[0]);
+        Metrics.count("records.loaded", records.size());
+        Metrics.count("rows.skipped", counts[1]);
+        System.out.printf("Records loaded: %,d  |  Rows skipped: %,d%n%n",
+                records.size(), counts[1]);
+        return records;
+    }
+
+    /**
+     * Parses one VGChartz CSV without printing anything (also used by batch
+     * mode). counts receives {lines read, rows skipped}.
+     */
+    static List<CustomerRecord> readDataset(File file, int[] counts) throws IOException {
+        List<CustomerRecord> records = new ArrayList<>();
+        int lineNumber = 0;
+        int skipped    = 0;
+
+        try (BufferedReader reader = CsvInput.open(file, Charset.defaultCharset())) {
             String line;
 
             while ((line = reader.readLine()) != null) {
@@ -160,134 +532,183 @@ public class CustomerSegmentation {
                 // Skip blank lines
                 if (line.trim().isEmpty()) continue;
 
-                // Split by comma — handles up to 14 columns
-                String[] col = line.split(",", -1);
-
-                // Need at least 8 columns (index 0–7)
-                if (col.length < 8) {
+                CustomerRecord record = parseRow(line);
+                if (record == null) {
                     skipped++;
-                    continue;
+                } else {
+                    records.add(record);
                 }
+            }
+        } finally {
+            counts[0] = lineNumber;
+            counts[1] = skipped;
+        }
+        return records;
+    }
 
-                // Skip rows with missing total_sales
-                String salesStr = col[7].trim();
-                if (salesStr.isEmpty()) {
-                    skipped++;
-                    continue;
-                }
+    /** One non-blank data line as a record, or null if the row must be skipped. */
+    static CustomerRecord parseRow(String line) {
+        // Split by comma — handles up to 14 columns
+        String[] col = line.split(",", -1);
 
-                try {
-                    String title     = col[1].trim();
-                    String console   = col[2].trim();
-                    String genre     = col[3].trim();
-                    String publisher = col[4].trim();
-                    double sales     = Double.parseDouble(salesStr);
+        // Need at least 8 columns (index 0–7)
+        if (col.length < 8) return null;
 
-                    records.add(new CustomerRecord(title, console, genre, publisher, sales));
+        // Skip rows with missing total_sales
+        String salesStr = col[7].trim();
+        if (salesStr.isEmpty()) return null;
 
-                } catch (NumberFormatException e) {
-                    skipped++;
-                }
-            }
+        try {
+            String title     = col[1].trim();
+            String console   = col[2].trim();
+            String genre     = col[3].trim();
+            String publisher = col[4].trim();
+            double sales     = Double.parseDouble(salesStr);
+            int released     = col.length > 12 ? ReleaseIndex.parseDay(col[12]) : ReleaseIndex.NO_DATE;
+            int lastUpdate   = col.length > 13 ? ReleaseIndex.parseDay(col[13]) : ReleaseIndex.NO_DATE;
 
-        } catch (IOException e) {
-            System.out.println("[Error] Could not read file: " + e.getMessage());
+            return new CustomerRecord(title, console, genre, publisher, sales, released, lastUpdate);
+
+        } catch (NumberFormatException e) {
+            return null;
         }
+    }
 
-        System.out.printf("Records loaded: %,d  |  Rows skipped: %,d%n%n",
-                records.size(), skipped);
-        return records;
+    // ------------------------------------------------------------------ //
+    //  GAME ROLL-UP:  --games  (rows of one game on several consoles merged)
+    // ------------------------------------------------------------------ //
+    private static List<CustomerRecord> groupGames(List<CustomerRecord> records) {
+        long start = System.nanoTime();
+        List<CustomerRecord> games;
+        TitleGroups groups;
+        try (Metrics.Phase phase = Metrics.phase("group")) {
+            groups = TitleGroups.group(records);
+            games = groups.games(records);
+        }
+        Metrics.count("games", groups.games);
+        Metrics.count("group.candidates", groups.candidates);
+        Metrics.count("group.comparisons", groups.comparisons);
+        System.out.printf("Games: %,d from %,d rows  |  Largest: %,d rows  |  Pairs checked: %,d  |  %.0f ms%n%n",
+                groups.games, groups.rows, groups.largest, groups.comparisons, (System.nanoTime() - start) / 1e6);
+        return games;
     }
 
     // ------------------------------------------------------------------ //
     //  DISPLAY SEGMENTATION RESULTS
     // ------------------------------------------------------------------ //
-    private static void displayResults(List<CustomerRecord> records) {
+    private static final String[] SEGMENT_FIELDS = {"segment", "tier", "titles", "criteria", "total_sales"};
 
-        List<CustomerRecord> platinum = new ArrayList<>();
-        List<CustomerRecord> gold     = new ArrayList<>();
-        List<CustomerRecord> silver   = new ArrayList<>();
-        List<CustomerRecord> bronze   = new ArrayList<>();
+    private static void displayResults(List<CustomerRecord> records, SalesIndex index, ReportWriter out) {
 
+        List<List<CustomerRecord>> segments = new ArrayList<>();
+        long[] count = new long[4];
+        double[] sales = new double[4];
         double totalSalesAll = 0;
 
-        for (CustomerRecord r : records) {
-            totalSalesAll += r.getTotalSales();
-            switch (r.getSegment()) {
-                case "Platinum": platinum.add(r); break;
-                case "Gold":     gold.add(r);     break;
-                case "Silver":   silver.add(r);   break;
-                default:         bronze.add(r);   break;
+        // Each segment is a slice of the sales index, already highest first
+        try (Metrics.Phase phase = Metrics.phase("aggregate")) {
+            int[] b = index.segmentBounds();
+            for (int s = 0; s < 4; s++) {
+                segments.add(index.descending(b[3 - s], b[4 - s]));
+                count[s] = segments.get(s).size();
+            }
+            for (CustomerRecord r : records) {
+                sales[SegmentationBatch.segmentIndex(r.getSegment())] += r.getTotalSales();
+                totalSalesAll += r.getTotalSales();
             }
         }
 
-        System.out.println("=".repeat(82));
-        System.out.println("              VIDEO GAME SALES SEGMENTATION REPORT");
-        System.out.println("              Revenue-Based Classification (VGChartz 2024)");
-        System.out.println("=".repeat(82));
+        writeReport(out, count, sales, totalSalesAll, s -> segments.get(s).iterator());
+    }
+
+    /**
+     * The segmentation report from segment totals (0 = Platinum .. 3 = Bronze)
+     * and each segment's rows, highest first. rows is asked for the segments
+     * in order, so a single sorted stream can serve all four.
+     */
+    private static void writeReport(ReportWriter out, long[] count, double[] sales, double totalSalesAll,
+                                    IntFunction<Iterator<CustomerRecord>> rows) {
+        long titles = count[0] + count[1] + count[2] + count[3];
+
+        try (Metrics.Phase phase = Metrics.phase("render")) {
+            out.repeat('=', 82).newline();
+            out.text("              VIDEO GAME SALES SEGMENTATION REPORT").newline();
+            out.text("              Revenue-Based Classification (VGChartz 2024)").newline();
+            out.repeat('=', 82).newline();
+
+            // Summary table
+            out.newline().text("[ SEGMENT SUMMARY ]").newline();
+            out.repeat('-', 55).newline();
+            out.text("  ").width(-10).text("Segment").text(" | ").width(-6).text("Tier")
+               .text(" | ").width(-12).text("# of Titles").text(" | ").text("Criteria (Total Sales)").newline();
+            out.text("  ").repeat('-', 52).newline();
+            for (int s = 0; s < 4; s++) {
+                writeSummaryRow(out, SegmentationBatch.SEGMENTS[s], SegmentationBatch.TIERS[s], count[s], sales[s],
+                        SegmentationBatch.CRITERIA[s]);
+            }
+            out.repeat('-', 55).newline();
+            out.text("  ").width(-10).text("TOTAL").text(" | ").width(-6).text("")
+               .text(" | ").width(-12).grouped(titles)
+               .text(" | Total Sales: ").groupedDecimal(totalSalesAll, 2).text(" M").newline();
+            out.record("segment", SEGMENT_FIELDS).value("TOTAL").value("").value(titles)
+               .value("").value(totalSalesAll, 2).end();
+
+            // Detailed lists
+            for (int s = 0; s < 4; s++) {
+                printSegmentList(out, SegmentationBatch.LABELS[s], SegmentationBatch.CRITERIA[s], rows.apply(s), count[s]);
+            }
 
-        // Summary table
-        System.out.println("\n[ SEGMENT SUMMARY ]");
-        System.out.println("-".repeat(55));
-        System.out.printf("  %-10s | %-6s | %-12s | %s%n",
-                "Segment", "Tier", "# of Titles", "Criteria (Total Sales)");
-        System.out.println("  " + "-".repeat(52));
-        System.out.printf("  %-10s | %-6s | %,-12d | > 10 million%n",
-                "Platinum", "High", platinum.size());
-        System.out.printf("  %-10s | %-6s | %,-12d | 5M – 10M%n",
-                "Gold",     "Good", gold.size());
-        System.out.printf("  %-10s | %-6s | %,-12d | 1M – 4.99M%n",
-                "Silver",   "Mid",  silver.size());
-        System.out.printf("  %-10s | %-6s | %,-12d | < 1 million%n",
-                "Bronze",   "Low",  bronze.size());
-        System.out.println("-".repeat(55));
-        System.out.printf("  %-10s | %-6s | %,-12d | Total Sales: %,.2f M%n",
-                "TOTAL", "", records.size(), totalSalesAll);
-
-        // Detailed lists
-        printSegmentList("PLATINUM", "> 10 million",  platinum);
-        printSegmentList("GOLD",     "5M – 10M",      gold);
-        printSegmentList("SILVER",   "1M – 4.99M",    silver);
-        printSegmentList("BRONZE",   "< 1 million",   bronze);
+            out.repeat('=', 82).newline();
+            out.text("                        END OF REPORT").newline();
+            out.repeat('=', 82).newline();
+            out.flush();
+        }
+    }
 
-        System.out.println("=".repeat(82));
-        System.out.println("                        END OF REPORT");
-        System.out.println("=".repeat(82));
+    private static void writeSummaryRow(ReportWriter out, String segment, String tier,
+                                        long count, double sales, String criteria) {
+        out.text("  ").width(-10).text(segment).text(" | ").width(-6).text(tier)
+           .text(" | ").width(-12).grouped(count).text(" | ").text(criteria).newline();
+        out.record("segment", SEGMENT_FIELDS).value(segment).value(tier).value(count)
+           .value(criteria).value(sales, 2).end();
     }
 
     // ------------------------------------------------------------------ //
-    //  HELPER: Print one segment block (shows top 20 to keep output clean)
+    //  HELPER: Print one segment block (shows top 20 to keep output clean;
+    //  csv/json get every title in the segment). Reads at most that many
+    //  rows from the iterator.
     // ------------------------------------------------------------------ //
-    private static void printSegmentList(String label,
+    private static void printSegmentList(ReportWriter out,
+                                         String label,
                                          String range,
-                                         List<CustomerRecord> list) {
-        System.out.println();
-        System.out.printf("[ %s ]  Total Sales: %s  |  Count: %,d%n", label, range, list.size());
-        System.out.println("-".repeat(82));
-
-        if (list.isEmpty()) {
-            System.out.println("  (No games in this segment)");
+                                         Iterator<CustomerRecord> rows,
+                                         long count) {
+        out.newline();
+        out.text("[ ").text(label).text(" ]  Total Sales: ").text(range)
+           .text("  |  Count: ").grouped(count).newline();
+        out.repeat('-', 82).newline();
+
+        if (count == 0) {
+            out.text("  (No games in this segment)").newline();
             return;
         }
 
-        System.out.printf("  %-40s | %-6s | %-20s | %10s%n",
-                "Title", "Cons.", "Publisher", "Sales (M)");
-        System.out.println("  " + "-".repeat(78));
+        out.text("  ").width(-40).text("Title").text(" | ").width(-6).text("Cons.")
+           .text(" | ").width(-20).text("Publisher").text(" | ").width(10).text("Sales (M)").newline();
+        out.text("  ").repeat('-', 78).newline();
 
-        // Show top 20 by sales to keep console output readable
-        int limit = Math.min(list.size(), 20);
-        // Sort descending by sales inline
-        list.sort((a, b) -> Double.compare(b.getTotalSales(), a.getTotalSales()));
+        // Show top 20 by sales to keep console output readable (list is highest first)
+        long limit = out.isText() ? Math.min(count, 20) : count;
 
-        for (int i = 0; i < limit; i++) {
-            System.out.println(list.get(i));
+        for (int i = 0; i < limit && rows.hasNext(); i++) {
+            rows.next().writeTo(out, i + 1);
         }
 
-        if (list.size() > 20) {
-            System.out.printf("%n  ... and %,d more titles.%n", list.size() - 20);
+        if (count > 20) {
+            out.newline().text("  ... and ").grouped(count - 20).text(" more titles.").newline();
         }
 
-        System.out.printf("%n  Total in segment: %,d title(s)%n", list.size());
+        out.newline().text("  Total in segment: ").grouped(count).text(" title(s)").newline();
     }
 
     // ------------------------------------------------------------------ //
@@ -0,0 +1,329 @@
+/**
+ * PROGRAMMING 2 – MACHINE PROBLEM
+ * University of Perpetual Help System DALTA – Molino Campus
+ * BS Computer Science – Data Science
+ *
+ * ExternalSort.java
+ * Sorts a VGChartz CSV by total sales without holding it in memory, for
+ * dumps larger than the heap:
+ *
+ *   java CustomerSegmentation --external [--memory MB] [--spill-dir DIR] [--ranks]
+ *
+ * Pass 1 streams the CSV, collecting rows until the memory budget is used,
+ * then sorts them (highest sales first) and spills them to a run file as
+ * plain DataOutputStream fields: sales, title, console, genre, publisher.
+ * The segment totals for the summary are counted along the way.
+ *
+ * Pass 2 merges the runs with a loser tree: each next() replays one
+ * leaf-to-root path, log2(runs) comparisons, instead of scanning every run.
+ * Runs are written in file order, so on equal sales the lower run wins and
+ * ties come out in file order, the same as the in-memory report. If there
+ * are more runs than the budget has read buffers for, groups of them are
+ * first merged into longer runs. Runs are read and written through large
+ * sequential buffers, so the merge is limited by the disk, not by seeks.
+ *
+ * Sorted by sales, the four segments come out one after another (Platinum
+ * first), so a segment is just the next count[s] rows of the merge.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@SuppressWarnings("try")
+public class ExternalSort implements Iterator<CustomerRecord>, Closeable {
+
+    static final long DEFAULT_BUDGET = 64L << 20;
+    static final long MIN_BUDGET     = 4L << 20;
+
+    private static final int MIN_BUFFER = 64 << 10;   // per run while merging
+    private static final int MAX_BUFFER = 4 << 20;
+    private static final int RECORD_OVERHEAD = 224;   // object, four Strings, list slot
+
+    private static final Comparator<CustomerRecord> BY_SALES_DESC =
+            (a, b) -> Double.compare(b.getTotalSales(), a.getTotalSales());
+
+    // Pass 1 totals
+    final long[] count = new long[4];
+    final double[] sales = new double[4];
+    double totalSales;
+    long titles, lines, skipped;
+    int runs;
+    long spilledBytes;
+
+    private final long budget;
+    private final Path spillDir;
+    private final List<Path> files = new ArrayList<>();
+
+    // Merge state: one head per input, tree[0] the winner, tree[1..k-1] losers
+    private List<CustomerRecord> memory;   // single run that never left memory
+    private int memoryNext;
+    private DataInputStream[] inputs;
+    private CustomerRecord[] heads;
+    private int[] tree;
+    private long position;
+
+    private ExternalSort(long budget, Path spillDir) {
+        // the estimate per row is rough, so leave the heap plenty of slack
+        this.budget = Math.max(MIN_BUDGET, Math.min(budget, Runtime.getRuntime().maxMemory() / 4));
+        this.spillDir = spillDir;
+    }
+
+    /**
+     * Reads csv into sorted runs and readies the merge. Iterate the result
+     * for every title, highest sales first, and close it to delete the runs.
+     */
+    static ExternalSort open(File csv, long budget, Path spillDir) throws IOException {
+        ExternalSort sort = new ExternalSort(budget, spillDir);
+        try {
+            try (Metrics.Phase phase = Metrics.phase("sort")) {
+                sort.generateRuns(csv);
+            }
+            try (Metrics.Phase phase = Metrics.phase("merge")) {
+                sort.startMerge();
+            }
+        } catch (IOException | RuntimeException e) {
+            sort.close();
+            throw e;
+        }
+        Metrics.count("sort.runs", sort.runs);
+        Metrics.count("sort.spilled.bytes", sort.spilledBytes);
+        return sort;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  PASS 1: SORTED RUNS
+    // ------------------------------------------------------------------ //
+
+    private void generateRuns(File csv) throws IOException {
+        List<CustomerRecord> buffer = new ArrayList<>();
+        long used = 0;
+        try (BufferedReader reader = CsvInput.open(csv, Charset.defaultCharset())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                if (lines == 1 || line.trim().isEmpty()) continue;
+                CustomerRecord r = CustomerSegmentation.parseRow(line);
+                if (r == null) {
+                    skipped++;
+                    continue;
+                }
+                int s = SegmentationBatch.segmentIndex(r.getSegment());
+                count[s]++;
+                sales[s] += r.getTotalSales();
+                totalSales += r.getTotalSales();
+                titles++;
+
+                buffer.add(r);
+                used += RECORD_OVERHEAD + r.getTitle().length() + r.getConsole().length()
+                        + r.getGenre().length() + r.getPublisher().length();
+                if (used >= budget) {
+                    spill(buffer);
+                    buffer.clear();
+                    used = 0;
+                }
+            }
+        }
+        buffer.sort(BY_SALES_DESC);   // stable: ties stay in file order
+        if (files.isEmpty()) {
+            memory = buffer;           // everything fit, nothing to merge
+            runs = buffer.isEmpty() ? 0 : 1;
+        } else if (!buffer.isEmpty()) {
+            spill(buffer);
+        }
+    }
+
+    private void spill(List<CustomerRecord> buffer) throws IOException {
+        buffer.sort(BY_SALES_DESC);
+        Path run = newRunFile();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run), MAX_BUFFER))) {
+            for (CustomerRecord r : buffer) write(out, r);
+            spilledBytes += out.size();
+        }
+        runs++;
+    }
+
+    private Path newRunFile() throws IOException {
+        Path run = spillDir == null ? Files.createTempFile("vgsort", ".run")
+                                    : Files.createTempFile(spillDir, "vgsort", ".run");
+        run.toFile().deleteOnExit();
+        files.add(run);
+        return run;
+    }
+
+    private static void write(DataOutputStream out, CustomerRecord r) throws IOException {
+        out.writeDouble(r.getTotalSales());
+        out.writeUTF(r.getTitle());
+        out.writeUTF(r.getConsole());
+        out.writeUTF(r.getGenre());
+        out.writeUTF(r.getPublisher());
+    }
+
+    // null at the end of the run
+    private static CustomerRecord read(DataInputStream in) throws IOException {
+        double sales;
+        try {
+            sales = in.readDouble();
+        } catch (EOFException e) {
+            return null;
+        }
+        return new CustomerRecord(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), sales);
+    }
+
+    // ------------------------------------------------------------------ //
+    //  PASS 2: K-WAY MERGE (LOSER TREE)
+    // ------------------------------------------------------------------ //
+
+    private void startMerge() throws IOException {
+        if (memory != null) return;
+        List<Path> pending = new ArrayList<>(files);
+        int fanIn = (int) Math.max(2, Math.min(Integer.MAX_VALUE, budget / MIN_BUFFER));
+
+        // Too many runs for one merge: merge groups of them into longer runs first
+        while (pending.size() > fanIn) {
+            List<Path> next = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i += fanIn) {
+                List<Path> group = pending.subList(i, Math.min(i + fanIn, pending.size()));
+                if (group.size() == 1) {
+                    next.add(group.get(0));
+                    continue;
+                }
+                openInputs(group);
+                Path merged = newRunFile();
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(merged), MAX_BUFFER))) {
+                    while (hasNext()) write(out, next());
+                    spilledBytes += out.size();
+                }
+                closeInputs();
+                for (Path p : group) Files.deleteIfExists(p);
+                next.add(merged);
+            }
+            pending = next;
+        }
+        openInputs(pending);
+    }
+
+    private void openInputs(List<Path> runFiles) throws IOException {
+        int k = runFiles.size();
+        int size = (int) Math.max(MIN_BUFFER, Math.min(MAX_BUFFER, budget / k));
+        inputs = new DataInputStream[k];
+        heads = new CustomerRecord[k];
+        for (int i = 0; i < k; i++) {
+            inputs[i] = new DataInputStream(new BufferedInputStream(Files.newInputStream(runFiles.get(i)), size));
+            heads[i] = read(inputs[i]);
+        }
+        tree = new int[k];
+        tree[0] = play(1);
+        position = 0;
+    }
+
+    private void closeInputs() throws IOException {
+        if (inputs == null) return;
+        for (DataInputStream in : inputs) in.close();
+        inputs = null;
+    }
+
+    // Plays the subtree at node (leaves are k..2k-1), stores losers, returns the winner
+    private int play(int node) {
+        int k = tree.length;
+        if (node >= k) return node - k;
+        int a = play(2 * node), b = play(2 * node + 1);
+        if (beats(a, b)) {
+            tree[node] = b;
+            return a;
+        }
+        tree[node] = a;
+        return b;
+    }
+
+    // Whether run a's head comes before run b's: higher sales, then lower run
+    private boolean beats(int a, int b) {
+        CustomerRecord x = heads[a], y = heads[b];
+        if (x == null) return false;
+        if (y == null) return true;
+        if (x.getTotalSales() != y.getTotalSales()) return x.getTotalSales() > y.getTotalSales();
+        return a < b;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (memory != null) return memoryNext < memory.size();
+        return inputs != null && heads[tree[0]] != null;
+    }
+
+    @Override
+    public CustomerRecord next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        position++;
+        if (memory != null) return memory.get(memoryNext++);
+
+        int winner = tree[0];
+        CustomerRecord r = heads[winner];
+        try {
+            heads[winner] = read(inputs[winner]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Replay the winner's path: it meets the stored loser at each node
+        int k = tree.length;
+        for (int node = (winner + k) >> 1; node >= 1; node >>= 1) {
+            if (beats(tree[node], winner)) {
+                int t = tree[node];
+                tree[node] = winner;
+                winner = t;
+            }
+        }
+        tree[0] = winner;
+        return r;
+    }
+
+    /**
+     * The rows of segment s (0 = Platinum .. 3 = Bronze), highest first.
+     * Segments must be taken in order; rows of earlier segments that were
+     * not read are skipped.
+     */
+    Iterator<CustomerRecord> segment(int s) {
+        long start = 0;
+        for (int i = 0; i < s; i++) start += count[i];
+        if (position > start) throw new IllegalStateException("Segment " + s + " already passed");
+        while (position < start) next();
+        long end = start + count[s];
+        return new Iterator<CustomerRecord>() {
+            @Override
+            public boolean hasNext() {
+                return position < end && ExternalSort.this.hasNext();
+            }
+
+            @Override
+            public CustomerRecord next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return ExternalSort.this.next();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeInputs();
+        for (Path p : files) Files.deleteIfExists(p);
+        files.clear();
+        memory = null;
+    }
+}
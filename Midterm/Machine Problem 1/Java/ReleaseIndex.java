@@ -0,0 +1,439 @@
+/**
+ * PROGRAMMING 2 – MACHINE PROBLEM
+ * University of Perpetual Help System DALTA – Molino Campus
+ * BS Computer Science – Data Science
+ *
+ * ReleaseIndex.java
+ * Release-date index over a VGChartz CSV, stored next to it as <csv>.relidx:
+ *
+ *   java CustomerSegmentation --released 2005..2010 [--segment Platinum]
+ *
+ * Range ends are a year (2005), a month (2005-03) or a day (2005-03-14);
+ * either end may be left out ("2015.." or "..1999").
+ *
+ * The records are grouped into one partition per release month, sorted by
+ * month, with a small directory (month, offset, length, count) at the start
+ * of the file. A query binary-searches the directory and reads only the
+ * partitions its range overlaps, in one contiguous read, so its cost grows
+ * with the number of titles released in that range rather than with the
+ * size of the dataset. Titles without a release date go into their own
+ * partition, which range queries never read.
+ *
+ * The index remembers the CSV's size and modification time and is rebuilt
+ * automatically when the CSV changes.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReleaseIndex {
+
+    /** Epoch day used for a missing or unreadable date. */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int MAGIC = 0x56475249;   // "VGRI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 28;
+    private static final int ENTRY_BYTES = 24;
+
+    private static final String[] PERIOD_FIELDS = {"period", "platinum", "gold", "silver", "bronze",
+                                                   "titles", "total_sales"};
+    private static final String[] TITLE_FIELDS = {"rank", "title", "console", "genre", "publisher",
+                                                  "total_sales", "segment", "release_date", "last_update"};
+
+    private final Path path;
+    private final int[] months;      // year * 12 + (month - 1), NO_DATE for undated; ascending
+    private final long[] offsets;
+    private final long[] lengths;
+    private final int[] counts;
+
+    // What the last query touched
+    int partitionsRead;
+    int recordsDecoded;
+
+    private ReleaseIndex(Path path, int[] months, long[] offsets, long[] lengths, int[] counts) {
+        this.path = path;
+        this.months = months;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.counts = counts;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  DATES
+    // ------------------------------------------------------------------ //
+
+    /**
+     * "yyyy-mm-dd" (anything after the day is ignored) to an epoch day, or
+     * NO_DATE if the field is empty or not a date.
+     */
+    public static int parseDay(String s) {
+        s = s.trim();
+        if (s.length() < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return NO_DATE;
+        int year = digits(s, 0, 4), month = digits(s, 5, 7), day = digits(s, 8, 10);
+        if (year < 0 || month < 0 || day < 0) return NO_DATE;
+        try {
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return NO_DATE;
+        }
+    }
+
+    private static int digits(String s, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    static int monthOf(int epochDay) {
+        if (epochDay == NO_DATE) return NO_DATE;
+        LocalDate d = LocalDate.ofEpochDay(epochDay);
+        return d.getYear() * 12 + d.getMonthValue() - 1;
+    }
+
+    static String formatDay(int epochDay) {
+        return epochDay == NO_DATE ? "" : LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    /**
+     * "a..b" to {fromDay, toDay}, inclusive. An end may be a year, a month or
+     * a day, or empty for no limit.
+     */
+    static int[] parseRange(String range) {
+        int dots = range.indexOf("..");
+        if (dots < 0) {
+            throw new IllegalArgumentException("Range must look like 2005..2010 or 2005-03..2005-06");
+        }
+        String a = range.substring(0, dots).trim(), b = range.substring(dots + 2).trim();
+        int from = a.isEmpty() ? Integer.MIN_VALUE + 1 : (int) rangeEnd(a, false).toEpochDay();
+        int to = b.isEmpty() ? Integer.MAX_VALUE : (int) rangeEnd(b, true).toEpochDay();
+        if (from > to) throw new IllegalArgumentException("Range start is after its end: " + range);
+        return new int[]{from, to};
+    }
+
+    private static LocalDate rangeEnd(String s, boolean end) {
+        try {
+            String[] p = s.split("-");
+            int year = Integer.parseInt(p[0]);
+            if (p.length == 1) return end ? LocalDate.of(year, 12, 31) : LocalDate.of(year, 1, 1);
+            int month = Integer.parseInt(p[1]);
+            if (p.length == 2) {
+                LocalDate first = LocalDate.of(year, month, 1);
+                return end ? first.withDayOfMonth(first.lengthOfMonth()) : first;
+            }
+            return LocalDate.of(year, month, Integer.parseInt(p[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Not a year, month or date: " + s);
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  OPEN / BUILD
+    // ------------------------------------------------------------------ //
+
+    /**
+     * Opens csv's index, building it first if it is missing or older than the CSV
+     */
+    static ReleaseIndex openOrBuild(File csv) throws IOException {
+        Path path = indexPath(csv);
+        long size = csv.length(), modified = csv.lastModified();
+        if (Files.exists(path)) {
+            ReleaseIndex index = open(path, size, modified);
+            if (index != null) return index;
+        }
+        System.out.println("Building release index: " + path.getFileName() + " ...");
+        List<CustomerRecord> records = CustomerSegmentation.readDataset(csv, new int[2]);
+        write(path, records, size, modified);
+        ReleaseIndex index = open(path, size, modified);
+        if (index == null) throw new IOException("Index just written is unreadable: " + path);
+        return index;
+    }
+
+    static Path indexPath(File csv) {
+        return csv.toPath().resolveSibling(csv.getName() + ".relidx");
+    }
+
+    // null if the file is not an index of this version, or is for another CSV state
+    private static ReleaseIndex open(Path path, long size, long modified) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (readFully(ch, header, 0) < HEADER_BYTES) return null;
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) return null;
+            if (header.getLong() != size || header.getLong() != modified) return null;
+            int n = header.getInt();
+            if (n < 0 || (long) n * ENTRY_BYTES > ch.size()) return null;
+
+            ByteBuffer dir = ByteBuffer.allocate(n * ENTRY_BYTES);
+            if (readFully(ch, dir, HEADER_BYTES) < dir.capacity()) return null;
+            dir.flip();
+            int[] months = new int[n], counts = new int[n];
+            long[] offsets = new long[n], lengths = new long[n];
+            for (int i = 0; i < n; i++) {
+                months[i] = dir.getInt();
+                counts[i] = dir.getInt();
+                offsets[i] = dir.getLong();
+                lengths[i] = dir.getLong();
+            }
+            return new ReleaseIndex(path, months, offsets, lengths, counts);
+        }
+    }
+
+    private static void write(Path path, List<CustomerRecord> records, long size, long modified) throws IOException {
+        // Order by release month; undated (NO_DATE) sorts first
+        List<CustomerRecord> sorted = new ArrayList<>(records);
+        int[] monthOf = new int[sorted.size()];
+        sorted.sort((x, y) -> Integer.compare(x.getReleaseDay(), y.getReleaseDay()));
+        List<Integer> partitionMonths = new ArrayList<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            monthOf[i] = monthOf(sorted.get(i).getReleaseDay());
+            if (i == 0 || monthOf[i] != monthOf[i - 1]) partitionMonths.add(monthOf[i]);
+        }
+
+        int n = partitionMonths.size();
+        long dataStart = HEADER_BYTES + (long) n * ENTRY_BYTES;
+        int[] months = new int[n], counts = new int[n];
+        long[] offsets = new long[n], lengths = new long[n];
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.write(new byte[(int) dataStart]);   // header and directory, filled in below
+            long written = dataStart;
+            int p = -1;
+            for (int i = 0; i < sorted.size(); i++) {
+                if (i == 0 || monthOf[i] != monthOf[i - 1]) {
+                    if (p >= 0) lengths[p] = written - offsets[p];
+                    p++;
+                    months[p] = monthOf[i];
+                    offsets[p] = written;
+                }
+                counts[p]++;
+                written += writeRecord(out, sorted.get(i));
+            }
+            if (p >= 0) lengths[p] = written - offsets[p];
+        }
+
+        ByteBuffer header = ByteBuffer.allocate((int) dataStart);
+        header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(modified).putInt(n);
+        for (int i = 0; i < n; i++) {
+            header.putInt(months[i]).putInt(counts[i]).putLong(offsets[i]).putLong(lengths[i]);
+        }
+        header.flip();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) ch.write(header, header.position());
+            ch.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // releaseDay, lastUpdateDay, sales, then title, console, genre, publisher
+    private static int writeRecord(DataOutputStream out, CustomerRecord r) throws IOException {
+        out.writeInt(r.getReleaseDay());
+        out.writeInt(r.getLastUpdateDay());
+        out.writeDouble(r.getTotalSales());
+        return 16 + writeText(out, r.getTitle()) + writeText(out, r.getConsole())
+                + writeText(out, r.getGenre()) + writeText(out, r.getPublisher());
+    }
+
+    private static int writeText(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, 0xFFFF);
+        out.writeShort(len);
+        out.write(bytes, 0, len);
+        return 2 + len;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  QUERY
+    // ------------------------------------------------------------------ //
+
+    /**
+     * Titles released between fromDay and toDay (inclusive), optionally only
+     * one segment ("Platinum", "Gold", ...; null for all), by release date
+     */
+    List<CustomerRecord> query(int fromDay, int toDay, String segment) throws IOException {
+        partitionsRead = 0;
+        recordsDecoded = 0;
+        List<CustomerRecord> result = new ArrayList<>();
+
+        int first = lowerBound(monthOf(fromDay));
+        while (first < months.length && months[first] == NO_DATE) first++;
+        int last = lowerBound(toDay == Integer.MAX_VALUE ? Integer.MAX_VALUE : monthOf(toDay) + 1) - 1;
+        if (first > last) return result;
+
+        long start = offsets[first], length = offsets[last] + lengths[last] - start;
+        ByteBuffer data = ByteBuffer.allocate(Math.toIntExact(length));
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (readFully(ch, data, start) < length) throw new IOException("Release index is truncated: " + path);
+        }
+        data.flip();
+        partitionsRead = last - first + 1;
+
+        for (int p = first; p <= last; p++) {
+            for (int i = 0; i < counts[p]; i++) {
+                int released = data.getInt();
+                int lastUpdate = data.getInt();
+                double sales = data.getDouble();
+                recordsDecoded++;
+                if (released < fromDay || released > toDay) {
+                    skipText(data, 4);
+                    continue;
+                }
+                String title = readText(data), console = readText(data);
+                String genre = readText(data), publisher = readText(data);
+                CustomerRecord r = new CustomerRecord(title, console, genre, publisher, sales, released, lastUpdate);
+                if (segment == null || r.getSegment().equalsIgnoreCase(segment)) result.add(r);
+            }
+        }
+        return result;
+    }
+
+    int partitionCount() {
+        return months.length;
+    }
+
+    // First partition whose month is >= month
+    private int lowerBound(int month) {
+        int lo = 0, hi = months.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (months[mid] < month) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static String readText(ByteBuffer data) {
+        int len = data.getShort() & 0xFFFF;
+        String s = new String(data.array(), data.position(), len, StandardCharsets.UTF_8);
+        data.position(data.position() + len);
+        return s;
+    }
+
+    private static void skipText(ByteBuffer data, int fields) {
+        for (int i = 0; i < fields; i++) {
+            int len = data.getShort() & 0xFFFF;
+            data.position(data.position() + len);
+        }
+    }
+
+    private static int readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        int total = 0;
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position + total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  REPORT
+    // ------------------------------------------------------------------ //
+
+    /**
+     * Per-period segment table (by month for ranges up to two years, else by
+     * year) and the matching titles: top 20 by sales on the console, all of
+     * them, by release date, in csv/json
+     */
+    void writeReport(ReportWriter out, String range, String segment, int fromDay, int toDay,
+                     List<CustomerRecord> titles, long queryNanos) {
+        boolean byMonth = fromDay != Integer.MIN_VALUE + 1 && toDay != Integer.MAX_VALUE
+                && monthOf(toDay) - monthOf(fromDay) < 24;
+
+        out.repeat('=', 82).newline();
+        out.text("              RELEASES ").text(range);
+        if (segment != null) out.text("  |  Segment: ").text(segment);
+        out.newline();
+        out.repeat('=', 82).newline();
+
+        // Per-period segment counts; titles are in release order, so periods come in order
+        out.newline().text("[ BY ").text(byMonth ? "MONTH" : "YEAR").text(" ]").newline();
+        out.text("  ").width(-8).text("Period").text(" | ").width(8).text("Platinum").text(" | ")
+           .width(8).text("Gold").text(" | ").width(8).text("Silver").text(" | ").width(8).text("Bronze")
+           .text(" | ").width(8).text("Titles").text(" | ").width(12).text("Sales (M)").newline();
+        out.text("  ").repeat('-', 78).newline();
+        long[] seg = new long[4];
+        double sales = 0;
+        String period = null;
+        for (int i = 0; i <= titles.size(); i++) {
+            String p = i < titles.size() ? periodOf(titles.get(i).getReleaseDay(), byMonth) : null;
+            if (period != null && !period.equals(p)) {
+                writePeriod(out, period, seg, sales);
+                seg = new long[4];
+                sales = 0;
+            }
+            if (p == null) break;
+            period = p;
+            CustomerRecord r = titles.get(i);
+            seg[SegmentationBatch.segmentIndex(r.getSegment())]++;
+            sales += r.getTotalSales();
+        }
+        if (titles.isEmpty()) out.text("  (No titles released in this range)").newline();
+
+        // Titles
+        List<CustomerRecord> shown = titles;
+        if (out.isText()) {
+            shown = new ArrayList<>(titles);
+            shown.sort((a, b) -> Double.compare(b.getTotalSales(), a.getTotalSales()));
+            if (shown.size() > 20) shown = shown.subList(0, 20);
+        }
+        if (!shown.isEmpty()) {
+            out.newline().text("[ TOP TITLES ]  Count: ").grouped(titles.size()).newline();
+            out.text("  ").width(-40).text("Title").text(" | ").width(-6).text("Cons.")
+               .text(" | ").width(-10).text("Released").text(" | ").width(10).text("Sales (M)").newline();
+            out.text("  ").repeat('-', 78).newline();
+        }
+        for (int i = 0; i < shown.size(); i++) {
+            CustomerRecord r = shown.get(i);
+            String title = r.getTitle().length() > 40 ? r.getTitle().substring(0, 37) + "..." : r.getTitle();
+            out.text("  ").width(-40).text(title).text(" | ").width(-6).text(r.getConsole())
+               .text(" | ").width(-10).text(formatDay(r.getReleaseDay())).text(" | ")
+               .width(8).decimal(r.getTotalSales(), 2).text(" M").newline();
+            out.record("title", TITLE_FIELDS).value(i + 1).value(r.getTitle()).value(r.getConsole())
+               .value(r.getGenre()).value(r.getPublisher()).value(r.getTotalSales(), 2).value(r.getSegment())
+               .value(formatDay(r.getReleaseDay())).value(formatDay(r.getLastUpdateDay())).end();
+        }
+        if (titles.size() > shown.size()) {
+            out.newline().text("  ... and ").grouped(titles.size() - shown.size()).text(" more titles.").newline();
+        }
+
+        out.newline().text("  Partitions read: ").grouped(partitionsRead).text(" of ").grouped(partitionCount())
+           .text("  |  Records decoded: ").grouped(recordsDecoded)
+           .text("  |  Query: ").decimal(queryNanos / 1e6, 2).text(" ms").newline();
+        out.repeat('=', 82).newline();
+    }
+
+    private static void writePeriod(ReportWriter out, String period, long[] seg, double sales) {
+        long titles = seg[0] + seg[1] + seg[2] + seg[3];
+        out.text("  ").width(-8).text(period).text(" | ").width(8).grouped(seg[0]).text(" | ")
+           .width(8).grouped(seg[1]).text(" | ").width(8).grouped(seg[2]).text(" | ").width(8).grouped(seg[3])
+           .text(" | ").width(8).grouped(titles).text(" | ").width(12).groupedDecimal(sales, 2).newline();
+        out.record("period", PERIOD_FIELDS).value(period).value(seg[0]).value(seg[1]).value(seg[2])
+           .value(seg[3]).value(titles).value(sales, 2).end();
+    }
+
+    private static String periodOf(int epochDay, boolean byMonth) {
+        String day = formatDay(epochDay);
+        return byMonth ? day.substring(0, day.length() - 3) : day.substring(0, day.length() - 6);
+    }
+}
@@ -0,0 +1,515 @@
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ReportWriter - buffered report output for the console tools
+ *
+ * Text goes into one reusable 64 KiB byte buffer and is written to stdout
+ * or a FileChannel a block at a time, instead of one synchronized,
+ * autoflushing System.out call per line. Numbers are formatted by hand
+ * into a scratch array, so a row costs no String.format and no garbage.
+ *
+ * The same report code can also produce machine-readable output:
+ *
+ *   --format=text   the console report (default)
+ *   --format=csv    one row per record, header row at the start of each section
+ *   --format=json   JSON Lines, one object per record
+ *   --out=file      write to a file instead of stdout
+ *
+ * Text calls (text, grouped, decimal, ...) are ignored in csv/json mode and
+ * record calls (record, value, end) are ignored in text mode, so a report
+ * writes both and the chosen format decides what comes out.
+ *
+ *   out.width(-40).text(title).text(" | ").width(8).decimal(sales, 2).newline();
+ *   out.record("title", TITLE_FIELDS).value(title).value(sales, 2).end();
+ *
+ * width(n) applies to the next value only: n > 0 pads on the left (right
+ * aligned), n < 0 pads on the right (left aligned), like printf's %-n.
+ *
+ * Bytes are UTF-8, except for the text report on stdout: that is encoded in
+ * the charset System.out uses (the console's code page on Windows), so
+ * "5M – 10M" and non-ASCII titles show up as they did with println.
+ *
+ * Each tool folder carries its own copy of this file.
+ */
+public final class ReportWriter implements Closeable {
+
+    public enum Format { TEXT, CSV, JSON }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private final FileChannel channel;
+    private final boolean stdout;
+    private final Format format;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private final char[] scratch = new char[448];   // Double.MAX_VALUE grouped, 9 decimals
+    private int pos;
+    private int width;
+
+    // Set when the output charset is not UTF-8; ascii says ASCII maps to itself
+    private final CharsetEncoder encoder;
+    private final boolean ascii;
+    private final char[] pair = new char[2];
+    private final ByteBuffer encoded;
+
+    // Record state for csv/json
+    private String lastType;
+    private String[] names;
+    private int field;
+
+    public ReportWriter(FileChannel channel, boolean stdout, Format format) {
+        this(channel, stdout, format, StandardCharsets.UTF_8);
+    }
+
+    public ReportWriter(FileChannel channel, boolean stdout, Format format, Charset charset) {
+        this.channel = channel;
+        this.stdout = stdout;
+        this.format = format;
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            encoder = null;
+            ascii = true;
+            encoded = null;
+        } else {
+            encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            String sample = "\n ,.-09AZaz";
+            ascii = Arrays.equals(sample.getBytes(charset), sample.getBytes(StandardCharsets.US_ASCII));
+            encoded = ByteBuffer.allocate((int) Math.ceil(encoder.maxBytesPerChar() * 2) + 8);
+        }
+    }
+
+    /** Report to stdout: text in the console's charset, csv/json in UTF-8. */
+    public static ReportWriter stdout(Format format) {
+        return new ReportWriter(new FileOutputStream(FileDescriptor.out).getChannel(), true, format,
+                format == Format.TEXT ? consoleCharset() : StandardCharsets.UTF_8);
+    }
+
+    // What System.out encodes with: stdout.encoding (Java 19+), else
+    // sun.stdout.encoding (set when attached to a console), else the default
+    static Charset consoleCharset() {
+        String name = System.getProperty("stdout.encoding", System.getProperty("sun.stdout.encoding"));
+        if (name == null) return Charset.defaultCharset();
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+    /** Report to a file, replacing it. */
+    public static ReportWriter toFile(Path path, Format format) throws IOException {
+        return new ReportWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), false, format);
+    }
+
+    /**
+     * Writer for --format=... and --out=... in args (text on stdout if absent).
+     * When a csv/json report goes to stdout, System.out is pointed at stderr so
+     * progress messages do not end up inside the data.
+     */
+    public static ReportWriter fromArgs(String[] args) throws IOException {
+        Format format = Format.TEXT;
+        String out = null;
+        for (String a : args) {
+            if (a.startsWith("--format=")) {
+                String f = a.substring("--format=".length());
+                try {
+                    format = Format.valueOf(f.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown --format " + f + " (use text, csv or json)");
+                }
+            } else if (a.startsWith("--out=")) {
+                out = a.substring("--out=".length());
+            }
+        }
+        if (out != null) return toFile(Paths.get(out), format);
+        if (format != Format.TEXT) System.setOut(System.err);
+        return stdout(format);
+    }
+
+    /** args without the --format=/--out= options. */
+    public static String[] stripOptions(String[] args) {
+        List<String> rest = new ArrayList<>(args.length);
+        for (String a : args) {
+            if (!a.startsWith("--format=") && !a.startsWith("--out=")) rest.add(a);
+        }
+        return rest.toArray(new String[0]);
+    }
+
+    public boolean isText() {
+        return format == Format.TEXT;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  TEXT
+    // ------------------------------------------------------------------ //
+
+    public ReportWriter width(int width) {
+        this.width = width;
+        return this;
+    }
+
+    public ReportWriter text(CharSequence s) {
+        if (format != Format.TEXT) return this;
+        int w = takeWidth();
+        int len = s.length();
+        if (w > 0) spaces(w - len);
+        for (int i = 0; i < len; i++) put(s.charAt(i), s, i);
+        if (w < 0) spaces(-w - len);
+        return this;
+    }
+
+    public ReportWriter ch(char c) {
+        if (format != Format.TEXT) return this;
+        put(c, null, 0);
+        return this;
+    }
+
+    public ReportWriter repeat(char c, int count) {
+        if (format != Format.TEXT) return this;
+        for (int i = 0; i < count; i++) put(c, null, 0);
+        return this;
+    }
+
+    public ReportWriter newline() {
+        return ch('\n');
+    }
+
+    /** Like %d. */
+    public ReportWriter integer(long v) {
+        if (format != Format.TEXT) return this;
+        int start = formatLong(v, false);
+        return putScratch(start);
+    }
+
+    /** Like %,d. */
+    public ReportWriter grouped(long v) {
+        if (format != Format.TEXT) return this;
+        int start = formatLong(v, true);
+        return putScratch(start);
+    }
+
+    /** Like %.nf. */
+    public ReportWriter decimal(double v, int digits) {
+        if (format != Format.TEXT) return this;
+        int start = formatDouble(v, digits, false);
+        return putScratch(start);
+    }
+
+    /** Like %,.nf. */
+    public ReportWriter groupedDecimal(double v, int digits) {
+        if (format != Format.TEXT) return this;
+        int start = formatDouble(v, digits, true);
+        return putScratch(start);
+    }
+
+    // ------------------------------------------------------------------ //
+    //  RECORDS (csv / json)
+    // ------------------------------------------------------------------ //
+
+    /**
+     * Starts a record of the given type. names are its fields in the order
+     * the value() calls will come; pass a constant array, not a new one.
+     */
+    public ReportWriter record(String type, String[] names) {
+        if (format == Format.TEXT) return this;
+        this.names = names;
+        this.field = 0;
+        if (format == Format.CSV) {
+            if (!type.equals(lastType)) {
+                if (lastType != null) put('\n', null, 0);
+                rawText("record");
+                for (String n : names) {
+                    put(',', null, 0);
+                    csvText(n);
+                }
+                put('\n', null, 0);
+            }
+            rawText(type);
+        } else {
+            rawText("{\"record\":");
+            jsonText(type);
+        }
+        lastType = type;
+        return this;
+    }
+
+    public ReportWriter value(CharSequence s) {
+        if (format == Format.TEXT) return this;
+        nextField();
+        if (format == Format.CSV) csvText(s);
+        else jsonText(s);
+        return this;
+    }
+
+    public ReportWriter value(long v) {
+        if (format == Format.TEXT) return this;
+        nextField();
+        width = 0;
+        return putScratch(formatLong(v, false));
+    }
+
+    public ReportWriter value(double v, int digits) {
+        if (format == Format.TEXT) return this;
+        nextField();
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            rawText(format == Format.JSON ? "null" : "");
+            return this;
+        }
+        width = 0;
+        return putScratch(formatDouble(v, digits, false));
+    }
+
+    public ReportWriter end() {
+        if (format == Format.TEXT) return this;
+        if (format == Format.JSON) put('}', null, 0);
+        put('\n', null, 0);
+        return this;
+    }
+
+    private void nextField() {
+        if (format == Format.CSV) {
+            put(',', null, 0);
+        } else {
+            put(',', null, 0);
+            jsonText(names[field]);
+            put(':', null, 0);
+        }
+        field++;
+    }
+
+    private void csvText(CharSequence s) {
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            rawText(s);
+            return;
+        }
+        put('"', null, 0);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') put('"', null, 0);
+            put(c, s, i);
+        }
+        put('"', null, 0);
+    }
+
+    private void jsonText(CharSequence s) {
+        put('"', null, 0);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                put('\\', null, 0);
+                put(c, null, 0);
+            } else if (c < 0x20) {
+                rawText("\\u00");
+                put(Character.forDigit(c >> 4, 16), null, 0);
+                put(Character.forDigit(c & 15, 16), null, 0);
+            } else {
+                put(c, s, i);
+            }
+        }
+        put('"', null, 0);
+    }
+
+    private void rawText(CharSequence s) {
+        for (int i = 0; i < s.length(); i++) put(s.charAt(i), s, i);
+    }
+
+    // ------------------------------------------------------------------ //
+    //  NUMBER FORMATTING  (right to left into scratch, returns start index)
+    // ------------------------------------------------------------------ //
+    private int formatLong(long v, boolean grouped) {
+        int p = scratch.length, digits = 0;
+        boolean negative = v < 0;
+        do {
+            if (grouped && digits > 0 && digits % 3 == 0) scratch[--p] = ',';
+            scratch[--p] = (char) ('0' + Math.abs(v % 10));
+            v /= 10;
+            digits++;
+        } while (v != 0);
+        if (negative) scratch[--p] = '-';
+        return p;
+    }
+
+    private int formatDouble(double v, int digits, boolean grouped) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            String s = Double.isNaN(v) ? "NaN" : (v > 0 ? "Infinity" : "-Infinity");
+            s.getChars(0, s.length(), scratch, scratch.length - s.length());
+            return scratch.length - s.length();
+        }
+        boolean negative = v < 0 || (v == 0 && 1 / v < 0);
+        double abs = Math.abs(v);
+        long scale = POW10[digits];
+        double scaled = abs * scale;
+        if (scaled >= 0x1p63) return formatBig(abs, digits, grouped, negative);   // units would overflow
+        long units = (long) scaled;
+        double frac = scaled - units;
+        if (scaled >= 1e9 || Math.abs(frac - 0.5) < 1e-6) {
+            // Large or close to a tie: round the way Formatter does (HALF_UP
+            // on the shortest decimal form of the double)
+            units = BigDecimal.valueOf(abs).setScale(digits, RoundingMode.HALF_UP).unscaledValue().longValue();
+        } else if (frac > 0.5) {
+            units++;
+        }
+
+        int p = scratch.length;
+        long intPart = units / scale, fracPart = units % scale;
+        for (int i = 0; i < digits; i++) {
+            scratch[--p] = (char) ('0' + fracPart % 10);
+            fracPart /= 10;
+        }
+        if (digits > 0) scratch[--p] = '.';
+        int d = 0;
+        do {
+            if (grouped && d > 0 && d % 3 == 0) scratch[--p] = ',';
+            scratch[--p] = (char) ('0' + intPart % 10);
+            intPart /= 10;
+            d++;
+        } while (intPart != 0);
+        if (negative) scratch[--p] = '-';
+        return p;
+    }
+
+    // Beyond the long range: the exact decimal from BigDecimal, grouped here
+    private int formatBig(double abs, int digits, boolean grouped, boolean negative) {
+        String s = BigDecimal.valueOf(abs).setScale(digits, RoundingMode.HALF_UP).toPlainString();
+        int intEnd = digits > 0 ? s.length() - digits - 1 : s.length();
+        int p = scratch.length - (s.length() - intEnd);
+        s.getChars(intEnd, s.length(), scratch, p);
+        for (int i = intEnd - 1, d = 0; i >= 0; i--, d++) {
+            if (grouped && d > 0 && d % 3 == 0) scratch[--p] = ',';
+            scratch[--p] = s.charAt(i);
+        }
+        if (negative) scratch[--p] = '-';
+        return p;
+    }
+
+    private ReportWriter putScratch(int start) {
+        int w = takeWidth(), len = scratch.length - start;
+        if (w > 0) spaces(w - len);
+        if (ascii) {
+            ensure(len);
+            for (int i = start; i < scratch.length; i++) bytes[pos++] = (byte) scratch[i];
+        } else {
+            for (int i = start; i < scratch.length; i++) put(scratch[i], null, 0);
+        }
+        if (w < 0) spaces(-w - len);
+        return this;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  BUFFER
+    // ------------------------------------------------------------------ //
+    private int takeWidth() {
+        int w = width;
+        width = 0;
+        return w;
+    }
+
+    private void spaces(int n) {
+        for (int i = 0; i < n; i++) put(' ', null, 0);
+    }
+
+    // Encodes one char as UTF-8 (or through encoder); s/i give access to the
+    // low surrogate of a pair
+    private void put(char c, CharSequence s, int i) {
+        if (pos > BUFFER_SIZE - 4) flushBuffer();
+        if (encoder != null && (c >= 0x80 || !ascii)) {
+            encode(c, s, i);
+        } else if (c < 0x80) {
+            bytes[pos++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[pos++] = (byte) (0xC0 | c >> 6);
+            bytes[pos++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c) && s != null && i + 1 < s.length()
+                && Character.isLowSurrogate(s.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(i + 1));
+            bytes[pos++] = (byte) (0xF0 | cp >> 18);
+            bytes[pos++] = (byte) (0x80 | cp >> 12 & 0x3F);
+            bytes[pos++] = (byte) (0x80 | cp >> 6 & 0x3F);
+            bytes[pos++] = (byte) (0x80 | cp & 0x3F);
+        } else if (Character.isSurrogate(c)) {
+            // Low half of a pair already written, or a lone surrogate
+            if (Character.isHighSurrogate(c) || i == 0 || s == null || !Character.isHighSurrogate(s.charAt(i - 1))) {
+                bytes[pos++] = '?';
+            }
+        } else {
+            bytes[pos++] = (byte) (0xE0 | c >> 12);
+            bytes[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+            bytes[pos++] = (byte) (0x80 | c & 0x3F);
+        }
+    }
+
+    private void encode(char c, CharSequence s, int i) {
+        int n = 1;
+        pair[0] = c;
+        if (Character.isHighSurrogate(c) && s != null && i + 1 < s.length()
+                && Character.isLowSurrogate(s.charAt(i + 1))) {
+            pair[1] = s.charAt(i + 1);
+            n = 2;
+        } else if (Character.isLowSurrogate(c) && s != null && i > 0 && Character.isHighSurrogate(s.charAt(i - 1))) {
+            return;   // encoded with its high half
+        }
+        encoded.clear();
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(pair, 0, n), encoded, true);
+        encoder.flush(encoded);
+        ensure(encoded.position());
+        System.arraycopy(encoded.array(), 0, bytes, pos, encoded.position());
+        pos += encoded.position();
+    }
+
+    private void ensure(int n) {
+        if (pos > BUFFER_SIZE - n) flushBuffer();
+    }
+
+    private void flushBuffer() {
+        if (pos == 0) return;
+        if (stdout) System.out.flush();   // keep earlier console messages in order
+        buffer.clear().limit(pos);
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write report", e);
+        }
+        pos = 0;
+    }
+
+    public void flush() {
+        flushBuffer();
+    }
+
+    /** Flushes; closes the file but leaves stdout open. */
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        if (!stdout) channel.close();
+    }
+}
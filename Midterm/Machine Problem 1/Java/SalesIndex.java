@@ -0,0 +1,214 @@
+/**
+ * PROGRAMMING 2 – MACHINE PROBLEM
+ * University of Perpetual Help System DALTA – Molino Campus
+ * BS Computer Science – Data Science
+ *
+ * SalesIndex.java
+ * Sorted permutation of the loaded records by total sales, saved next to the
+ * CSV as <csv>.salesidx so the sort is done once per version of the file.
+ *
+ *   order[i]  row id (position in the loaded list) of the i-th lowest seller
+ *   sales[i]  its total sales, for binary search without touching the records
+ *
+ * With that, a sales range, a top-N list or the percentile rank of a title
+ * is one or two binary searches, and each segment is simply the slice
+ * between two tier boundaries - no per-row classification and no re-sort
+ * per report section.
+ *
+ * Equal sales are ordered by descending row id, so listings (highest first)
+ * show ties in file order, as the old stable sort did.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+
+public class SalesIndex {
+
+    private static final int MAGIC = 0x56475349;   // "VGSI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 28;
+
+    private final List<CustomerRecord> records;
+    private final int[] order;
+    private final double[] sales;
+
+    private SalesIndex(List<CustomerRecord> records, int[] order) {
+        this.records = records;
+        this.order = order;
+        this.sales = new double[order.length];
+        for (int i = 0; i < order.length; i++) sales[i] = records.get(order[i]).getTotalSales();
+    }
+
+    // ------------------------------------------------------------------ //
+    //  BUILD / PERSIST
+    // ------------------------------------------------------------------ //
+
+    /** Sorts row ids by sales, then descending row id (merge sort on primitives). */
+    static SalesIndex build(List<CustomerRecord> records) {
+        int n = records.size();
+        double[] key = new double[n];
+        int[] order = new int[n], tmp = new int[n];
+        for (int i = 0; i < n; i++) {
+            key[i] = records.get(i).getTotalSales();
+            order[i] = i;
+        }
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n), hi = Math.min(lo + 2 * width, n);
+                int a = lo, b = mid, k = lo;
+                while (a < mid && b < hi) {
+                    int x = order[a], y = order[b];
+                    tmp[k++] = key[y] < key[x] || (key[y] == key[x] && y > x) ? order[b++] : order[a++];
+                }
+                while (a < mid) tmp[k++] = order[a++];
+                while (b < hi) tmp[k++] = order[b++];
+            }
+            int[] swap = order;
+            order = tmp;
+            tmp = swap;
+        }
+        return new SalesIndex(records, order);
+    }
+
+    /**
+     * The saved index for csv if it matches the CSV and these records,
+     * otherwise a fresh one (saved for next time)
+     */
+    static SalesIndex openOrBuild(File csv, List<CustomerRecord> records) throws IOException {
+        Path path = csv.toPath().resolveSibling(csv.getName() + ".salesidx");
+        long size = csv.length(), modified = csv.lastModified();
+        if (Files.exists(path)) {
+            SalesIndex index = open(path, records, size, modified);
+            if (index != null) return index;
+        }
+        SalesIndex index = build(records);
+        index.save(path, size, modified);
+        return index;
+    }
+
+    // null unless the file was written for this CSV state and is still sorted
+    private static SalesIndex open(Path path, List<CustomerRecord> records, long size, long modified)
+            throws IOException {
+        int n = records.size();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() != HEADER_BYTES + 4L * n) return null;
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + 4 * n);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf) < 0) return null;
+            }
+            buf.flip();
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+            if (buf.getLong() != size || buf.getLong() != modified || buf.getInt() != n) return null;
+            int[] order = new int[n];
+            buf.asIntBuffer().get(order);
+            for (int id : order) {
+                if (id < 0 || id >= n) return null;
+            }
+            SalesIndex index = new SalesIndex(records, order);
+            for (int i = 1; i < n; i++) {
+                if (index.sales[i] < index.sales[i - 1]) return null;
+            }
+            return index;
+        }
+    }
+
+    private void save(Path path, long size, long modified) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + 4 * order.length);
+        buf.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(modified).putInt(order.length);
+        buf.asIntBuffer().put(order);
+        buf.position(buf.capacity()).flip();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ------------------------------------------------------------------ //
+    //  LOOKUPS
+    // ------------------------------------------------------------------ //
+
+    int size() {
+        return order.length;
+    }
+
+    /** First position whose sales are >= v. */
+    int lowerBound(double v) {
+        int lo = 0, hi = sales.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sales[mid] < v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** First position whose sales are > v. */
+    int upperBound(double v) {
+        int lo = 0, hi = sales.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sales[mid] <= v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Positions from..to-1 as a list, highest seller first (a view, no copy). */
+    List<CustomerRecord> descending(int from, int to) {
+        return new AbstractList<CustomerRecord>() {
+            @Override
+            public CustomerRecord get(int i) {
+                if (i < 0 || i >= to - from) throw new IndexOutOfBoundsException(i);
+                return records.get(order[to - 1 - i]);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    /** Titles with lo <= sales <= hi, highest first. */
+    List<CustomerRecord> range(double lo, double hi) {
+        int from = lowerBound(lo), to = upperBound(hi);
+        return descending(from, Math.max(from, to));
+    }
+
+    /** The n best sellers, highest first. */
+    List<CustomerRecord> top(int n) {
+        int size = order.length;
+        return descending(Math.max(0, size - n), size);
+    }
+
+    /** Percent of titles that sold less than this one. */
+    double percentileRank(CustomerRecord r) {
+        return order.length == 0 ? 0 : 100.0 * lowerBound(r.getTotalSales()) / order.length;
+    }
+
+    /**
+     * Segment slices by the thresholds in CustomerRecord:
+     * {0, silverStart, goldStart, platinumStart, size}, so Bronze is
+     * [b[0], b[1]), Silver [b[1], b[2]), Gold [b[2], b[3]) and Platinum [b[3], b[4])
+     */
+    int[] segmentBounds() {
+        return new int[]{
+            0,
+            lowerBound(CustomerRecord.SILVER_MIN),
+            lowerBound(CustomerRecord.GOLD_MIN),
+            upperBound(CustomerRecord.PLATINUM_ABOVE),
+            order.length
+        };
+    }
+}
@@ -0,0 +1,332 @@
+/**
+ * PROGRAMMING 2 – MACHINE PROBLEM
+ * University of Perpetual Help System DALTA – Molino Campus
+ * BS Computer Science – Data Science
+ *
+ * SegmentationBatch.java
+ * Non-interactive batch mode for CustomerSegmentation:
+ *
+ *   java CustomerSegmentation --batch <dir|glob> [--threads N] [--format=..] [--out=..]
+ *
+ * A directory means every *.csv (or *.csv.gz) directly inside it; anything else is a glob
+ * such as "exports/vgchartz-*.csv" ("**" also descends into subfolders).
+ *
+ * Files are segmented concurrently on a fixed pool whose queue holds at most
+ * two files per worker; when it is full the submitting thread runs the next
+ * file itself, so listing hundreds of files never queues hundreds of loaded
+ * datasets. Each file keeps only its segment counts, sales and top 20 titles
+ * per segment, and those are merged into one global report after a per-file
+ * table with load and report timings.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@SuppressWarnings("try")
+public class SegmentationBatch {
+
+    static final String[] SEGMENTS = {"Platinum", "Gold", "Silver", "Bronze"};
+    static final String[] LABELS   = {"PLATINUM", "GOLD", "SILVER", "BRONZE"};
+    static final String[] TIERS    = {"High", "Good", "Mid", "Low"};
+    static final String[] CRITERIA = {"> 10 million", "5M – 10M", "1M – 4.99M", "< 1 million"};
+    static final int TOP = 20;
+
+    private static final String[] FILE_FIELDS = {"file", "titles", "skipped", "platinum", "gold", "silver",
+                                                 "bronze", "total_sales", "load_ms", "aggregate_ms", "error"};
+    private static final String[] SEGMENT_FIELDS = {"segment", "tier", "titles", "criteria", "total_sales"};
+
+    // ------------------------------------------------------------------ //
+    //  PER-FILE / MERGED SUMMARY
+    // ------------------------------------------------------------------ //
+    static class Summary {
+        final long[] count = new long[4];
+        final double[] sales = new double[4];
+        final List<List<CustomerRecord>> top = new ArrayList<>();
+
+        Summary() {
+            for (int s = 0; s < 4; s++) top.add(new ArrayList<>());
+        }
+
+        static Summary of(List<CustomerRecord> records) {
+            Summary summary = new Summary();
+            for (CustomerRecord r : records) {
+                int s = segmentIndex(r.getSegment());
+                summary.count[s]++;
+                summary.sales[s] += r.getTotalSales();
+                summary.top.get(s).add(r);
+            }
+            for (List<CustomerRecord> list : summary.top) keepTop(list);
+            return summary;
+        }
+
+        void merge(Summary other) {
+            for (int s = 0; s < 4; s++) {
+                count[s] += other.count[s];
+                sales[s] += other.sales[s];
+                top.get(s).addAll(other.top.get(s));
+                keepTop(top.get(s));
+            }
+        }
+
+        long titles() {
+            return count[0] + count[1] + count[2] + count[3];
+        }
+
+        double totalSales() {
+            return sales[0] + sales[1] + sales[2] + sales[3];
+        }
+
+        private static void keepTop(List<CustomerRecord> list) {
+            list.sort((a, b) -> Double.compare(b.getTotalSales(), a.getTotalSales()));
+            if (list.size() > TOP) list.subList(TOP, list.size()).clear();
+        }
+    }
+
+    static int segmentIndex(String segment) {
+        switch (segment) {
+            case "Platinum": return 0;
+            case "Gold":     return 1;
+            case "Silver":   return 2;
+            default:         return 3;
+        }
+    }
+
+    /** Outcome of one file. */
+    static class FileResult {
+        final Path path;
+        Summary summary;
+        int skipped;
+        long loadNanos, aggregateNanos;
+        String error;
+
+        FileResult(Path path) {
+            this.path = path;
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  RUN
+    // ------------------------------------------------------------------ //
+    static void run(String spec, int threads, ReportWriter out) throws IOException {
+        List<Path> files = resolve(spec);
+        if (files.isEmpty()) {
+            System.out.println("[!] No CSV files match " + spec);
+            return;
+        }
+        System.out.printf("Batch: %,d file(s), %d worker(s)%n", files.size(), threads);
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), r -> {
+                    Thread t = new Thread(r, "segment-worker");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        List<Future<FileResult>> futures = new ArrayList<>(files.size());
+        for (Path file : files) futures.add(pool.submit(() -> process(file)));
+        pool.shutdown();
+
+        List<FileResult> results = new ArrayList<>(files.size());
+        Summary global = new Summary();
+        for (Future<FileResult> f : futures) {
+            FileResult result;
+            try {
+                result = f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pool.shutdownNow();
+                return;
+            } catch (ExecutionException e) {
+                throw new IOException("Batch worker failed", e.getCause());
+            }
+            results.add(result);
+            if (result.summary != null) global.merge(result.summary);
+        }
+
+        try (Metrics.Phase phase = Metrics.phase("render")) {
+            writeReport(out, results, global);
+            out.flush();
+        }
+    }
+
+    private static FileResult process(Path file) {
+        FileResult result = new FileResult(file);
+        int[] counts = new int[2];
+        List<CustomerRecord> records;
+        long start = System.nanoTime();
+        try (Metrics.Phase phase = Metrics.phase("load")) {
+            records = CustomerSegmentation.readDataset(file.toFile(), counts);
+        } catch (IOException e) {
+            result.error = e.getMessage() == null ? e.toString() : e.getMessage();
+            result.loadNanos = System.nanoTime() - start;
+            Metrics.count("files.failed");
+            return result;
+        }
+        long loaded = System.nanoTime();
+        try (Metrics.Phase phase = Metrics.phase("aggregate")) {
+            result.summary = Summary.of(records);
+        }
+        result.skipped = counts[1];
+        result.loadNanos = loaded - start;
+        result.aggregateNanos = System.nanoTime() - loaded;
+
+        Metrics.count("files.processed");
+        Metrics.count("lines.read", counts[0]);
+        Metrics.count("records.loaded", records.size());
+        Metrics.count("rows.skipped", counts[1]);
+        return result;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  FILE SELECTION  (directory or glob, sorted by path)
+    // ------------------------------------------------------------------ //
+    static List<Path> resolve(String spec) throws IOException {
+        Path dir = Paths.get(spec);
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> s = Files.list(dir)) {
+                return s.filter(p -> Files.isRegularFile(p) && isCsv(p))
+                        .sorted().collect(Collectors.toList());
+            }
+        }
+
+        // Longest leading part without glob characters is where the walk starts
+        String normalized = spec.replace(File.separatorChar, '/');
+        String[] parts = normalized.split("/");
+        StringBuilder base = new StringBuilder();
+        int depth = 0;
+        boolean globbing = false, recursive = false;
+        for (int i = 0; i < parts.length; i++) {
+            boolean glob = parts[i].matches(".*[*?\\[{].*");
+            if (!globbing && !glob && i < parts.length - 1) {
+                base.append(parts[i]).append('/');
+            } else {
+                globbing = true;
+                depth++;
+                recursive |= parts[i].contains("**");
+            }
+        }
+        Path root = base.length() == 0 ? Paths.get(".") : Paths.get(base.toString());
+        if (!Files.isDirectory(root)) return new ArrayList<>();
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized);
+        boolean relativeToDot = base.length() == 0;
+        try (Stream<Path> s = Files.walk(root, recursive ? Integer.MAX_VALUE : depth)) {
+            return s.filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(relativeToDot ? root.relativize(p) : p))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isCsv(Path p) {
+        return CsvInput.isCsv(p.getFileName().toString());
+    }
+
+    // ------------------------------------------------------------------ //
+    //  REPORT
+    // ------------------------------------------------------------------ //
+    private static void writeReport(ReportWriter out, List<FileResult> results, Summary global) {
+        out.repeat('=', 82).newline();
+        out.text("              VIDEO GAME SALES SEGMENTATION - BATCH REPORT").newline();
+        out.text("              ").grouped(results.size()).text(" file(s)").newline();
+        out.repeat('=', 82).newline();
+
+        // Per-file table
+        out.newline().text("[ FILES ]").newline();
+        out.text("  ").width(-28).text("File").text(" | ").width(9).text("Titles").text(" | ")
+           .width(7).text("Skipped").text(" | ").width(9).text("Load ms").text(" | ")
+           .width(12).text("Aggregate ms").text(" | ").text("Plat/Gold/Silv/Bronze").newline();
+        out.text("  ").repeat('-', 103).newline();
+
+        long loadTotal = 0, aggregateTotal = 0;
+        int failed = 0;
+        for (FileResult r : results) {
+            String name = r.path.getFileName().toString();
+            loadTotal += r.loadNanos;
+            aggregateTotal += r.aggregateNanos;
+            out.text("  ").width(-28).text(truncate(name, 28)).text(" | ");
+            if (r.error != null) {
+                failed++;
+                out.text("[Error] ").text(r.error).newline();
+                out.record("file", FILE_FIELDS).value(r.path.toString()).value("").value("").value("")
+                   .value("").value("").value("").value("").value(r.loadNanos / 1e6, 3).value("")
+                   .value(r.error).end();
+                continue;
+            }
+            Summary s = r.summary;
+            out.width(9).grouped(s.titles()).text(" | ").width(7).grouped(r.skipped).text(" | ")
+               .width(9).decimal(r.loadNanos / 1e6, 1).text(" | ").width(12).decimal(r.aggregateNanos / 1e6, 1)
+               .text(" | ").grouped(s.count[0]).ch('/').grouped(s.count[1]).ch('/')
+               .grouped(s.count[2]).ch('/').grouped(s.count[3]).newline();
+            out.record("file", FILE_FIELDS).value(r.path.toString()).value(s.titles()).value(r.skipped)
+               .value(s.count[0]).value(s.count[1]).value(s.count[2]).value(s.count[3])
+               .value(s.totalSales(), 2).value(r.loadNanos / 1e6, 3).value(r.aggregateNanos / 1e6, 3)
+               .value("").end();
+        }
+        out.text("  ").repeat('-', 103).newline();
+        out.text("  Load: ").decimal(loadTotal / 1e6, 1).text(" ms  |  Aggregate: ").decimal(aggregateTotal / 1e6, 1)
+           .text(" ms  (summed over files)");
+        if (failed > 0) out.text("  |  Failed: ").grouped(failed);
+        out.newline();
+
+        // Merged summary
+        out.newline().text("[ GLOBAL SEGMENT SUMMARY ]").newline();
+        out.repeat('-', 55).newline();
+        out.text("  ").width(-10).text("Segment").text(" | ").width(-6).text("Tier")
+           .text(" | ").width(-12).text("# of Titles").text(" | ").text("Criteria (Total Sales)").newline();
+        out.text("  ").repeat('-', 52).newline();
+        for (int s = 0; s < 4; s++) {
+            out.text("  ").width(-10).text(SEGMENTS[s]).text(" | ").width(-6).text(TIERS[s])
+               .text(" | ").width(-12).grouped(global.count[s]).text(" | ").text(CRITERIA[s]).newline();
+            out.record("segment", SEGMENT_FIELDS).value(SEGMENTS[s]).value(TIERS[s]).value(global.count[s])
+               .value(CRITERIA[s]).value(global.sales[s], 2).end();
+        }
+        out.repeat('-', 55).newline();
+        out.text("  ").width(-10).text("TOTAL").text(" | ").width(-6).text("")
+           .text(" | ").width(-12).grouped(global.titles())
+           .text(" | Total Sales: ").groupedDecimal(global.totalSales(), 2).text(" M").newline();
+        out.record("segment", SEGMENT_FIELDS).value("TOTAL").value("").value(global.titles())
+           .value("").value(global.totalSales(), 2).end();
+
+        // Top titles across all files
+        for (int s = 0; s < 4; s++) {
+            List<CustomerRecord> top = global.top.get(s);
+            out.newline();
+            out.text("[ ").text(LABELS[s]).text(" ]  Total Sales: ").text(CRITERIA[s])
+               .text("  |  Count: ").grouped(global.count[s]).newline();
+            out.repeat('-', 82).newline();
+            if (top.isEmpty()) {
+                out.text("  (No games in this segment)").newline();
+                continue;
+            }
+            out.text("  ").width(-40).text("Title").text(" | ").width(-6).text("Cons.")
+               .text(" | ").width(-20).text("Publisher").text(" | ").width(10).text("Sales (M)").newline();
+            out.text("  ").repeat('-', 78).newline();
+            for (int i = 0; i < top.size(); i++) top.get(i).writeTo(out, i + 1);
+            if (global.count[s] > top.size()) {
+                out.newline().text("  ... and ").grouped(global.count[s] - top.size()).text(" more titles.").newline();
+            }
+        }
+
+        out.repeat('=', 82).newline();
+        out.text("                        END OF REPORT").newline();
+        out.repeat('=', 82).newline();
+    }
+
+    private static String truncate(String s, int max) {
+        return s.length() > max ? s.substring(0, max - 3) + "..." : s;
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * PROGRAMMING 2 – MACHINE PROBLEM
+ * University of Perpetual Help System DALTA – Molino Campus
+ * BS Computer Science – Data Science
+ *
+ * TitleGroups.java
+ * Rolls the per-console rows of the same game up into one row per game:
+ *
+ *   java CustomerSegmentation --games
+ *
+ * "FIFA Soccer 13", "FIFA Soccer 13 " and "Fifa Soccer: 13" are one game on
+ * three platforms. Titles are normalized (lower case; punctuation, accents
+ * and a leading "the" dropped) and cut into character 3-shingles. Each
+ * title gets a MinHash signature of SIGNATURE values; two titles agree on
+ * any one value with probability equal to the Jaccard similarity of their
+ * shingle sets.
+ *
+ * The signature is split into BANDS bands of ROWS values. Titles whose
+ * band hashes collide in at least one band are candidates, so similar
+ * titles (Jaccard around 0.6 and up) meet without comparing all pairs.
+ * Each candidate is checked against the other games already in its bucket
+ * with the exact Jaccard similarity, and also must carry the same numbers
+ * ("FIFA 13" is not "FIFA 14", "Black Ops II" not "Black Ops"). Matches
+ * are joined with union-find. Rows whose normalized titles are identical,
+ * the common case, are joined before any hashing, so the signatures are
+ * computed once per distinct title.
+ *
+ * A game is listed under its best-selling row's title, genre and publisher,
+ * with console "PS3+2" for the best seller's platform plus two other
+ * platforms (duplicate rows on one console count once), and the summed
+ * total sales, which is what the segments are then built from. --games
+ * applies to the segment report, the sales queries (--sales, --top, --rank)
+ * and title search (--search, --fuzzy).
+ */
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class TitleGroups {
+
+    static final int BANDS = 8;
+    static final int ROWS = 4;
+    static final int SIGNATURE = BANDS * ROWS;
+
+    /** Minimum exact Jaccard similarity of two titles' shingles to join them. */
+    static final double SIMILAR = 0.8;
+
+    /** Titles of different games kept per LSH bucket to compare against. */
+    static final int BUCKET = 4;
+
+    private static final long[] MULTIPLIERS = new long[SIGNATURE];
+    private static final long[] OFFSETS = new long[SIGNATURE];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x56474d48L);
+        for (int i = 0; i < SIGNATURE; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            OFFSETS[i] = random.nextLong();
+        }
+    }
+
+    // Last grouping, for the summary line
+    int rows, games, largest;
+    long candidates, comparisons;
+
+    private final int[] parent;
+    private final int[] size;
+
+    private TitleGroups(int n) {
+        parent = new int[n];
+        size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  TEXT
+    // ------------------------------------------------------------------ //
+
+    // Lower case letters and digits without accents, one space between words,
+    // no leading "the"
+    static String normalize(String title) {
+        String decomposed = title;
+        for (int i = 0; i < title.length(); i++) {
+            if (title.charAt(i) > 0x7f) {   // only non-ASCII titles can carry accents
+                decomposed = Normalizer.normalize(title, Normalizer.Form.NFD);
+                break;
+            }
+        }
+        StringBuilder sb = new StringBuilder(title.length());
+        boolean space = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = Character.toLowerCase(decomposed.charAt(i));
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                if (space && sb.length() > 0) sb.append(' ');
+                sb.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        if (sb.length() > 4 && sb.indexOf("the ") == 0) sb.delete(0, 4);
+        return sb.toString();
+    }
+
+    // The number tokens of a normalized title, "13" for "fifa soccer 13" and
+    // "ii" for "black ops ii" (sequels often differ only by these)
+    private static String numbers(String normalized) {
+        StringBuilder sb = new StringBuilder();
+        for (int start = 0; start < normalized.length(); ) {
+            int end = normalized.indexOf(' ', start);
+            if (end < 0) end = normalized.length();
+            boolean digit = Character.isDigit(normalized.charAt(start)), roman = true;
+            for (int i = start; i < end && roman; i++) {
+                char c = normalized.charAt(i);
+                roman = c == 'i' || c == 'v' || c == 'x';
+            }
+            if (digit || roman) sb.append(normalized, start, end).append(' ');
+            start = end + 1;
+        }
+        return sb.toString();
+    }
+
+    // Distinct 3-shingles of the title with a space on each side, sorted
+    private static long[] shingles(String normalized) {
+        String s = " " + normalized + " ";
+        if (s.length() < 3) return new long[0];
+        long[] t = new long[s.length() - 2];
+        for (int i = 0; i < t.length; i++) {
+            t[i] = (long) s.charAt(i) << 32 | (long) s.charAt(i + 1) << 16 | s.charAt(i + 2);
+        }
+        Arrays.sort(t);
+        int n = 0;
+        for (int i = 0; i < t.length; i++) {
+            if (i == 0 || t[i] != t[i - 1]) t[n++] = t[i];
+        }
+        return Arrays.copyOf(t, n);
+    }
+
+    private static double jaccard(long[] a, long[] b) {
+        int i = 0, j = 0, shared = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return union == 0 ? 1 : (double) shared / union;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  MINHASH / LSH
+    // ------------------------------------------------------------------ //
+
+    // Stafford variant 13 of the splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // One hash per band: the band's ROWS minimums mixed together
+    private static void bandKeys(long[] shingles, long[] signature, long[] keys) {
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long s : shingles) {
+            long base = mix(s);
+            for (int i = 0; i < SIGNATURE; i++) {
+                long h = base * MULTIPLIERS[i] + OFFSETS[i];
+                if (h < signature[i]) signature[i] = h;
+            }
+        }
+        for (int b = 0; b < BANDS; b++) {
+            long key = b;
+            for (int r = 0; r < ROWS; r++) key = mix(key * 31 + signature[b * ROWS + r]);
+            keys[b] = key;
+        }
+    }
+
+    /** Groups the rows into games; find(i) is then the game of row i. */
+    static TitleGroups group(List<CustomerRecord> records) {
+        int n = records.size();
+        TitleGroups groups = new TitleGroups(n);
+        groups.rows = n;
+
+        // Identical normalized titles are joined outright; only the first row
+        // of each distinct title goes through MinHash
+        Map<String, Integer> exact = new HashMap<>(n * 2);
+        int[] distinct = new int[n];
+        List<String> titles = new ArrayList<>();
+        int d = 0;
+        for (int i = 0; i < n; i++) {
+            String normalized = normalize(records.get(i).getTitle());
+            Integer j = exact.putIfAbsent(normalized, i);
+            if (j == null) {
+                distinct[d++] = i;
+                titles.add(normalized);
+            } else {
+                groups.union(i, j);
+            }
+        }
+
+        String[] numbers = new String[d];
+        long[][] shingles = new long[d][];
+        long[][] bandKeys = new long[BANDS][d];
+        long[] signature = new long[SIGNATURE], keys = new long[BANDS];
+        for (int k = 0; k < d; k++) {
+            numbers[k] = numbers(titles.get(k));
+            shingles[k] = shingles(titles.get(k));
+            bandKeys(shingles[k], signature, keys);
+            for (int b = 0; b < BANDS; b++) bandKeys[b][k] = keys[b];
+        }
+
+        // Per band, a title meets the titles of other games already in its
+        // bucket (at most BUCKET of them are kept). Buckets live in an
+        // open-addressing table: slot -> band key, and BUCKET + 1 ints per
+        // slot in members (count first), reused for every band.
+        int capacity = Integer.highestOneBit(Math.max(1, d) * 2) * 2;
+        long[] slotKeys = new long[capacity];
+        int[] members = new int[capacity * (BUCKET + 1)];
+        for (int b = 0; b < BANDS; b++) {
+            Arrays.fill(members, 0, members.length, 0);
+            for (int k = 0; k < d; k++) {
+                long key = bandKeys[b][k];
+                int slot = (int) mix(key) & (capacity - 1);
+                while (members[slot * (BUCKET + 1)] != 0 && slotKeys[slot] != key) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                slotKeys[slot] = key;
+                int base = slot * (BUCKET + 1);
+                boolean joined = false;
+                for (int e = 1; e <= members[base]; e++) {
+                    int other = members[base + e];
+                    groups.candidates++;
+                    int a = distinct[k], c = distinct[other];
+                    if (groups.find(a) == groups.find(c)) {
+                        joined = true;
+                        continue;
+                    }
+                    groups.comparisons++;
+                    if (numbers[k].equals(numbers[other]) && jaccard(shingles[k], shingles[other]) >= SIMILAR) {
+                        groups.union(a, c);
+                        joined = true;
+                    }
+                }
+                if (!joined && members[base] < BUCKET) members[base + ++members[base]] = k;
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (groups.find(i) == i) {
+                groups.games++;
+                groups.largest = Math.max(groups.largest, groups.size[i]);
+            }
+        }
+        return groups;
+    }
+
+    /** The group id of row i. */
+    int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];   // path halving
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private void union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b) return;
+        if (size[a] < size[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+    }
+
+    // ------------------------------------------------------------------ //
+    //  ROLL-UP
+    // ------------------------------------------------------------------ //
+
+    /** One record per game, in order of each game's first row. */
+    List<CustomerRecord> games(List<CustomerRecord> records) {
+        int n = records.size();
+        int[] best = new int[n];        // group id -> best-selling row
+        double[] sales = new double[n]; // group id -> summed sales
+        int[] platforms = new int[n];   // group id -> distinct consoles
+        HashSet<String> seen = new HashSet<>();
+        Arrays.fill(best, -1);
+        for (int i = 0; i < n; i++) {
+            int g = find(i);
+            if (size[g] == 1 || seen.add(g + "\u0000" + records.get(i).getConsole())) platforms[g]++;
+            sales[g] += records.get(i).getTotalSales();
+            if (best[g] < 0 || records.get(i).getTotalSales() > records.get(best[g]).getTotalSales()) best[g] = i;
+        }
+
+        List<CustomerRecord> games = new ArrayList<>(this.games);
+        boolean[] done = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int g = find(i);
+            if (done[g]) continue;
+            done[g] = true;
+            CustomerRecord r = records.get(best[g]);
+            String console = platforms[g] == 1 ? r.getConsole() : r.getConsole() + "+" + (platforms[g] - 1);
+            games.add(new CustomerRecord(r.getTitle(), console, r.getGenre(), r.getPublisher(), sales[g],
+                    r.getReleaseDay(), r.getLastUpdateDay()));
+        }
+        return games;
+    }
+}
@@ -0,0 +1,385 @@
+/**
+ * PROGRAMMING 2 – MACHINE PROBLEM
+ * University of Perpetual Help System DALTA – Molino Campus
+ * BS Computer Science – Data Science
+ *
+ * TitleIndex.java
+ * Trigram index over the title column, saved next to the CSV as <csv>.trgidx:
+ *
+ *   java CustomerSegmentation --search "mario kart"     titles containing the text
+ *   java CustomerSegmentation --fuzzy "zelda ocarnia"   closest titles, typos allowed
+ *
+ * Titles are lower-cased with whitespace runs collapsed, padded with two
+ * marker characters in front and one behind, and every 3-character window
+ * is a trigram. Each trigram has a posting list of the rows containing it,
+ * stored as gaps between ascending row ids in varint bytes (most gaps fit
+ * one byte). The file holds a sorted trigram dictionary followed by the
+ * postings, and is memory-mapped when opened.
+ *
+ * A substring search intersects the posting lists of the query's trigrams,
+ * rarest first, and then checks the few remaining titles for the actual
+ * substring. A fuzzy search counts, per row, how many of the query's padded
+ * trigrams it shares and ranks rows by the Dice coefficient of the two
+ * trigram sets. Queries shorter than three characters fall back to a scan.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TitleIndex {
+
+    private static final int MAGIC = 0x56475449;   // "VGTI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int ENTRY_BYTES = 20;     // trigram, postings offset, count
+    private static final char PAD = '\u0001';
+
+    /** Minimum Dice similarity for a fuzzy match. */
+    static final double FUZZY_MIN = 0.35;
+
+    private final List<CustomerRecord> records;
+    private final String[] normalized;   // row -> normalized title
+    private final long[] trigrams;       // sorted
+    private final long[] offsets;        // into postings
+    private final int[] counts;          // rows per trigram
+    private final ByteBuffer postings;
+
+    private TitleIndex(List<CustomerRecord> records, long[] trigrams, long[] offsets, int[] counts,
+                       ByteBuffer postings) {
+        this.records = records;
+        this.trigrams = trigrams;
+        this.offsets = offsets;
+        this.counts = counts;
+        this.postings = postings;
+        this.normalized = new String[records.size()];
+        for (int i = 0; i < normalized.length; i++) normalized[i] = normalize(records.get(i).getTitle());
+    }
+
+    /** One search hit: the row and, for fuzzy searches, its similarity. */
+    static class Match {
+        final CustomerRecord record;
+        final double score;
+
+        Match(CustomerRecord record, double score) {
+            this.record = record;
+            this.score = score;
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  TEXT
+    // ------------------------------------------------------------------ //
+
+    // Lower case, whitespace runs collapsed to one space, trimmed
+    static String normalize(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String padded(String normalized) {
+        return "" + PAD + PAD + normalized + PAD;
+    }
+
+    private static long trigram(String s, int i) {
+        return (long) s.charAt(i) << 32 | (long) s.charAt(i + 1) << 16 | s.charAt(i + 2);
+    }
+
+    // Distinct trigrams of s, sorted
+    private static long[] trigramsOf(String s) {
+        if (s.length() < 3) return new long[0];
+        long[] t = new long[s.length() - 2];
+        for (int i = 0; i < t.length; i++) t[i] = trigram(s, i);
+        Arrays.sort(t);
+        int n = 0;
+        for (int i = 0; i < t.length; i++) {
+            if (i == 0 || t[i] != t[i - 1]) t[n++] = t[i];
+        }
+        return Arrays.copyOf(t, n);
+    }
+
+    // ------------------------------------------------------------------ //
+    //  BUILD / PERSIST
+    // ------------------------------------------------------------------ //
+
+    /**
+     * The saved index for csv if it was built from the same file, otherwise a
+     * new one written next to it
+     */
+    static TitleIndex openOrBuild(File csv, List<CustomerRecord> records) throws IOException {
+        Path path = csv.toPath().resolveSibling(csv.getName() + ".trgidx");
+        long size = csv.length(), modified = csv.lastModified();
+        if (Files.exists(path)) {
+            TitleIndex index = open(path, records, size, modified);
+            if (index != null) return index;
+        }
+        write(path, records, size, modified);
+        TitleIndex index = open(path, records, size, modified);
+        if (index == null) throw new IOException("Index just written is unreadable: " + path);
+        return index;
+    }
+
+    /** An unsaved index over rows that are not the CSV's own (e.g. one row per game). */
+    static TitleIndex build(List<CustomerRecord> records) {
+        Postings p = new Postings(records);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            p.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // in memory, cannot happen
+        }
+        return new TitleIndex(records, p.keys, p.offsets, p.counts, ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    private static void write(Path path, List<CustomerRecord> records, long size, long modified)
+            throws IOException {
+        Postings p = new Postings(records);
+        int n = p.keys.length;
+        long dataStart = HEADER_BYTES + (long) n * ENTRY_BYTES;
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.write(new byte[(int) dataStart]);   // header and dictionary, filled in below
+            p.writeTo(out);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate((int) dataStart);
+        header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(modified)
+              .putInt(records.size()).putInt(n);
+        for (int i = 0; i < n; i++) header.putLong(p.keys[i]).putLong(p.offsets[i]).putInt(p.counts[i]);
+        header.flip();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) ch.write(header, header.position());
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Sorted trigram dictionary and per-trigram row lists; offsets are filled by writeTo
+    private static class Postings {
+        final Map<Long, int[]> lists = new HashMap<>();
+        final long[] keys;
+        final long[] offsets;
+        final int[] counts;
+
+        Postings(List<CustomerRecord> records) {
+            // trigram -> ascending row ids (rows are visited in order)
+            Map<Long, Integer> lengths = new HashMap<>();
+            for (int row = 0; row < records.size(); row++) {
+                for (long t : trigramsOf(padded(normalize(records.get(row).getTitle())))) {
+                    int[] list = lists.get(t);
+                    int len = lengths.getOrDefault(t, 0);
+                    if (list == null) {
+                        list = new int[4];
+                        lists.put(t, list);
+                    } else if (len == list.length) {
+                        list = Arrays.copyOf(list, len * 2);
+                        lists.put(t, list);
+                    }
+                    list[len] = row;
+                    lengths.put(t, len + 1);
+                }
+            }
+
+            keys = new long[lists.size()];
+            int k = 0;
+            for (Long t : lists.keySet()) keys[k++] = t;
+            Arrays.sort(keys);
+            offsets = new long[keys.length];
+            counts = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) counts[i] = lengths.get(keys[i]);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            long written = 0;
+            for (int i = 0; i < keys.length; i++) {
+                int[] rows = lists.get(keys[i]);
+                offsets[i] = written;
+                int previous = -1;
+                for (int j = 0; j < counts[i]; j++) {
+                    written += writeVarint(out, rows[j] - previous);
+                    previous = rows[j];
+                }
+            }
+        }
+    }
+
+    private static int writeVarint(DataOutputStream out, int v) throws IOException {
+        int bytes = 1;
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+            bytes++;
+        }
+        out.write(v);
+        return bytes;
+    }
+
+    // null if the file is not for this CSV state and row count
+    private static TitleIndex open(Path path, List<CustomerRecord> records, long size, long modified)
+            throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) return null;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (map.getInt() != MAGIC || map.getInt() != VERSION) return null;
+            if (map.getLong() != size || map.getLong() != modified || map.getInt() != records.size()) return null;
+            int n = map.getInt();
+            long dataStart = HEADER_BYTES + (long) n * ENTRY_BYTES;
+            if (n < 0 || dataStart > ch.size()) return null;
+
+            long[] keys = new long[n], offsets = new long[n];
+            int[] counts = new int[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = map.getLong();
+                offsets[i] = map.getLong();
+                counts[i] = map.getInt();
+            }
+            ByteBuffer postings = map.position((int) dataStart).slice();
+            return new TitleIndex(records, keys, offsets, counts, postings);
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  POSTINGS
+    // ------------------------------------------------------------------ //
+
+    // Dictionary slot of a trigram, or -1
+    private int find(long t) {
+        int i = Arrays.binarySearch(trigrams, t);
+        return i < 0 ? -1 : i;
+    }
+
+    private int[] decode(int slot) {
+        int[] rows = new int[counts[slot]];
+        int p = (int) offsets[slot], row = -1;
+        for (int j = 0; j < rows.length; j++) {
+            int v = 0, shift = 0, b;
+            do {
+                b = postings.get(p++);
+                v |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            row += v;
+            rows[j] = row;
+        }
+        return rows;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // ------------------------------------------------------------------ //
+    //  QUERIES
+    // ------------------------------------------------------------------ //
+
+    /** Titles containing the text (case-insensitive), in file order. */
+    List<Match> substring(String query) {
+        String q = normalize(query);
+        List<Match> result = new ArrayList<>();
+        if (q.isEmpty()) return result;
+
+        if (q.length() < 3) {
+            for (int row = 0; row < normalized.length; row++) {
+                if (normalized[row].contains(q)) result.add(new Match(records.get(row), 1));
+            }
+            return result;
+        }
+
+        // Rarest trigram first keeps every intermediate list small
+        long[] grams = trigramsOf(q);
+        int[] slots = new int[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            slots[i] = find(grams[i]);
+            if (slots[i] < 0) return result;   // some trigram occurs in no title
+        }
+        Integer[] byCount = new Integer[slots.length];
+        for (int i = 0; i < slots.length; i++) byCount[i] = slots[i];
+        Arrays.sort(byCount, (x, y) -> Integer.compare(counts[x], counts[y]));
+
+        int[] candidates = decode(byCount[0]);
+        for (int i = 1; i < byCount.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, decode(byCount[i]));
+        }
+        for (int row : candidates) {
+            if (normalized[row].contains(q)) result.add(new Match(records.get(row), 1));
+        }
+        return result;
+    }
+
+    /** Up to limit titles most similar to the text, best first. */
+    List<Match> fuzzy(String query, int limit) {
+        String q = normalize(query);
+        List<Match> result = new ArrayList<>();
+        if (q.isEmpty()) return result;
+
+        long[] grams = trigramsOf(padded(q));
+        int[] shared = new int[normalized.length];
+        int[] touched = new int[Math.min(normalized.length, 1 << 16)];
+        int touchedCount = 0;
+        for (long g : grams) {
+            int slot = find(g);
+            if (slot < 0) continue;
+            for (int row : decode(slot)) {
+                if (shared[row]++ == 0) {
+                    if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                    touched[touchedCount++] = row;
+                }
+            }
+        }
+
+        // Dice: 2 * shared / (query trigrams + title trigrams); a padded title
+        // of length n has n + 1 windows, repeats are rare enough to ignore
+        for (int i = 0; i < touchedCount; i++) {
+            int row = touched[i];
+            int titleGrams = normalized[row].length() + 1;
+            double score = 2.0 * shared[row] / (grams.length + titleGrams);
+            if (score >= FUZZY_MIN) result.add(new Match(records.get(row), score));
+        }
+        result.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score)
+                : Double.compare(b.record.getTotalSales(), a.record.getTotalSales()));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    int trigramCount() {
+        return trigrams.length;
+    }
+}
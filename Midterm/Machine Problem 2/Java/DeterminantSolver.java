@@ -50,7 +50,40 @@ public class DeterminantSolver extends JFrame {
              + "===================================================\n"
              + "  DETERMINANT = " + det + "\n"
              + "===================================================" + "\n"
-             + (det == 0 ? "  The matrix is SINGULAR - it has no inverse.\n" : "");
+             + getInverseAndSolve(M, new LUFactorization(M));
+    }
+
+    // Inverse and a sample A x = b, both from the one factorization
+    static String getInverseAndSolve(int[][] M, LUFactorization lu) {
+        // M is an integer matrix, so the cofactor expansion gives det(M) exactly;
+        // the LU pivots only decide singularity up to rounding
+        int det = solveDeterminant(M);
+        if (det == 0) return "  The matrix is SINGULAR - it has no inverse.\n";
+        if (lu.isSingular()) return "  LU factorization hit a zero pivot - inverse not shown.\n";
+
+        double[][] inv = lu.inverse();
+        StringBuilder sb = new StringBuilder("\nInverse (1/" + det + ") x adj(M):\n\n");
+        for (double[] row : inv) {
+            sb.append("  |");
+            for (double v : row) sb.append(String.format(" %9.4f", v));
+            sb.append("  |   adj:");
+            for (double v : row) sb.append(String.format(" %4d", Math.round(v * det)));
+            sb.append("\n");
+        }
+
+        // Row sums give x = (1, 1, 1); column 1 gives x = (1, 0, 0)
+        double[][] b = new double[2][3];
+        for (int i = 0; i < 3; i++) {
+            b[0][i] = M[i][0] + M[i][1] + M[i][2];
+            b[1][i] = M[i][0];
+        }
+        double[][] x = lu.solve(b);
+        sb.append("\nSolving Mx = b (same factorization):\n\n");
+        for (int r = 0; r < b.length; r++) {
+            sb.append(String.format("  b = (%.0f, %.0f, %.0f)  ->  x = (%.4f, %.4f, %.4f)%n",
+                    b[r][0], b[r][1], b[r][2], x[r][0] + 0.0, x[r][1] + 0.0, x[r][2] + 0.0));
+        }
+        return sb.append("===================================================\n").toString();
     }
 
     public DeterminantSolver() {
@@ -62,7 +95,7 @@ public class DeterminantSolver extends JFrame {
 
         // Window setup
         setTitle("Determinant Solver - Tinsay, John Cleo T.");
-        setSize(480, 500);
+        setSize(520, 720);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
         setLayout(new BorderLayout());
@@ -0,0 +1,146 @@
+// Student  : TINSAY, JOHN CLEO T.
+// Course   : Math 101 – Linear Algebra, UPHSD Molino Campus
+// Assignment: Assignment 01 – 3x3 Matrix Determinant Solver
+// Date     : 2025
+// Description: LU factorization with partial pivoting, P A = L U, kept so
+//              one O(n^3) factorization serves the determinant, any number
+//              of solves of A x = b (O(n^2) each) and the inverse.
+//
+// L (unit diagonal, not stored) and U share one n x n row-major array;
+// perm[i] is the original row now in row i. Row swaps flip the sign of
+// the determinant, so det(A) = (+1 or -1) * product of the diagonal of U.
+//
+// isSingular() only reports an exactly zero pivot. Any fixed threshold would
+// misjudge badly scaled matrices (diag(1e10, 1e-10, 1) has det 1), and
+// rounding can leave an exactly singular matrix with a pivot near eps, so a
+// caller that knows better (DeterminantSolver has the exact integer
+// determinant) decides for itself.
+
+public class LUFactorization {
+
+    private final int n;
+    private final double[] lu;     // row-major, L below the diagonal, U on and above
+    private final int[] perm;
+    private final int swapSign;
+    private final boolean singular;
+
+    public LUFactorization(double[][] a) {
+        n = a.length;
+        lu = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            if (a[i].length != n) throw new IllegalArgumentException("Matrix is not square");
+            System.arraycopy(a[i], 0, lu, i * n, n);
+        }
+        perm = new int[n];
+        for (int i = 0; i < n; i++) perm[i] = i;
+
+        int sign = 1;
+        boolean zeroPivot = false;
+        for (int k = 0; k < n; k++) {
+            // Partial pivoting: largest |a_ik| in column k moves to row k
+            int p = k;
+            for (int i = k + 1; i < n; i++) {
+                if (Math.abs(lu[i * n + k]) > Math.abs(lu[p * n + k])) p = i;
+            }
+            if (p != k) {
+                for (int j = 0; j < n; j++) {
+                    double t = lu[p * n + j];
+                    lu[p * n + j] = lu[k * n + j];
+                    lu[k * n + j] = t;
+                }
+                int t = perm[p];
+                perm[p] = perm[k];
+                perm[k] = t;
+                sign = -sign;
+            }
+            double pivot = lu[k * n + k];
+            if (pivot == 0) {
+                zeroPivot = true;
+                continue;
+            }
+            for (int i = k + 1; i < n; i++) {
+                double f = lu[i * n + k] /= pivot;
+                if (f == 0) continue;
+                for (int j = k + 1; j < n; j++) lu[i * n + j] -= f * lu[k * n + j];
+            }
+        }
+        swapSign = sign;
+        singular = zeroPivot;
+    }
+
+    public LUFactorization(int[][] a) {
+        this(toDouble(a));
+    }
+
+    private static double[][] toDouble(int[][] a) {
+        double[][] d = new double[a.length][];
+        for (int i = 0; i < a.length; i++) {
+            d[i] = new double[a[i].length];
+            for (int j = 0; j < a[i].length; j++) d[i][j] = a[i][j];
+        }
+        return d;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isSingular() {
+        return singular;
+    }
+
+    public double determinant() {
+        double det = swapSign;
+        for (int k = 0; k < n; k++) det *= lu[k * n + k];
+        return det;
+    }
+
+    /** Solves A x = b; throws ArithmeticException if A is singular. */
+    public double[] solve(double[] b) {
+        double[][] x = solve(new double[][] {b});
+        return x[0];
+    }
+
+    /**
+     * Solves A x = b for every b in rhs (each rhs[r] is one right-hand side
+     * of length n) against the same factorization. Throws ArithmeticException
+     * if A is singular.
+     */
+    public double[][] solve(double[][] rhs) {
+        if (singular) throw new ArithmeticException("Matrix is singular");
+        int m = rhs.length;
+        double[][] x = new double[m][];
+        for (int r = 0; r < m; r++) {
+            double[] b = rhs[r];
+            if (b.length != n) throw new IllegalArgumentException("Right-hand side " + r + " has length " + b.length + ", expected " + n);
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) y[i] = b[perm[i]];
+
+            // Forward substitution L y = P b, then back substitution U x = y
+            for (int i = 0; i < n; i++) {
+                double s = y[i];
+                for (int j = 0; j < i; j++) s -= lu[i * n + j] * y[j];
+                y[i] = s;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                double s = y[i];
+                for (int j = i + 1; j < n; j++) s -= lu[i * n + j] * y[j];
+                y[i] = s / lu[i * n + i];
+            }
+            x[r] = y;
+        }
+        return x;
+    }
+
+    /** A^-1, one solve per column of the identity; throws ArithmeticException if A is singular. */
+    public double[][] inverse() {
+        double[][] identity = new double[n][n];
+        for (int i = 0; i < n; i++) identity[i][i] = 1;
+        double[][] cols = solve(identity);     // cols[j] is column j of the inverse
+        double[][] inv = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) inv[i][j] = cols[j][i];
+        }
+        return inv;
+    }
+}
@@ -1,6 +1,8 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
+@SuppressWarnings("try")
 public class MP17_LongestEntry {
 
     static final String[] COLUMNS = {
@@ -11,6 +13,7 @@ public class MP17_LongestEntry {
     static final int[] REQUIRED = {0, 1, 3, 4, 5, 6, 7, 8};
 
     public static void main(String[] args) throws Exception {
+        args = Metrics.init("MP17_LongestEntry", args);
         String filePath;
 
         if (args.length > 0) {
@@ -24,6 +27,7 @@ public class MP17_LongestEntry {
         List<String[]> rows = loadCSV(filePath);
         System.out.println("Loaded " + rows.size() + " data rows.\n");
         mp17_longestTextEntry(rows);
+        Metrics.dump();
     }
 
     static List<String[]> loadCSV(String filePath) throws Exception {
@@ -36,23 +40,27 @@ public class MP17_LongestEntry {
         System.out.println("Reading: " + file.getAbsolutePath());
 
         List<String> lines = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+        try (Metrics.Phase phase = Metrics.phase("read");
+             BufferedReader br = CsvInput.open(file, StandardCharsets.UTF_8)) {
             String line;
             while ((line = br.readLine()) != null) lines.add(line);
         }
+        Metrics.count("lines.read", lines.size());
 
         List<String[]> rows = new ArrayList<>();
-        for (int i = 7; i < lines.size(); i++) {
-            String[] fields = parseCsvLine(lines.get(i));
-            fields = Arrays.copyOf(fields, 9);
-            for (int j = 0; j < fields.length; j++)
-                if (fields[j] == null) fields[j] = "";
-            boolean hasData = false;
-            for (int idx : REQUIRED)
-                if (!fields[idx].isBlank()) { hasData = true; break; }
-            if (hasData) rows.add(fields);
+        try (Metrics.Phase phase = Metrics.phase("parse")) {
+            for (int i = 7; i < lines.size(); i++) {
+                String[] fields = parseCsvLine(lines.get(i));
+                fields = Arrays.copyOf(fields, 9);
+                for (int j = 0; j < fields.length; j++)
+                    if (fields[j] == null) fields[j] = "";
+                boolean hasData = false;
+                for (int idx : REQUIRED)
+                    if (!fields[idx].isBlank()) { hasData = true; break; }
+                if (hasData) rows.add(fields);
+            }
         }
+        Metrics.count("rows.loaded", rows.size());
         return rows;
     }
 
@@ -80,23 +88,32 @@ public class MP17_LongestEntry {
         String overallLongest = "";
         String overallCol = "";
 
-        for (int col = 0; col < COLUMNS.length; col++) {
-            final int c = col;
-            String longest = rows.stream()
-                .map(r -> r[c])
-                .max(Comparator.comparingInt(String::length))
-                .orElse("");
+        String[] longestPerColumn = new String[COLUMNS.length];
+        try (Metrics.Phase phase = Metrics.phase("aggregate")) {
+            for (int col = 0; col < COLUMNS.length; col++) {
+                final int c = col;
+                longestPerColumn[col] = rows.stream()
+                    .map(r -> r[c])
+                    .max(Comparator.comparingInt(String::length))
+                    .orElse("");
+            }
+        }
+
+        try (Metrics.Phase phase = Metrics.phase("render")) {
+            for (int col = 0; col < COLUMNS.length; col++) {
+                String longest = longestPerColumn[col];
 
-            System.out.printf("  %-12s : '%s' (%d chars)%n",
-                COLUMNS[col], longest, longest.length());
+                System.out.printf("  %-12s : '%s' (%d chars)%n",
+                    COLUMNS[col], longest, longest.length());
 
-            if (longest.length() > overallLongest.length()) {
-                overallLongest = longest;
-                overallCol = COLUMNS[col];
+                if (longest.length() > overallLongest.length()) {
+                    overallLongest = longest;
+                    overallCol = COLUMNS[col];
+                }
             }
-        }
 
-        System.out.printf("%n  Overall longest: '%s' in [%s] at %d chars%n",
-            overallLongest, overallCol, overallLongest.length());
+            System.out.printf("%n  Overall longest: '%s' in [%s] at %d chars%n",
+                overallLongest, overallCol, overallLongest.length());
+        }
     }
 }
\ No newline at end of file
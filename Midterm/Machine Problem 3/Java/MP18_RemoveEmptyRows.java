@@ -1,16 +1,24 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.*;
 
+@SuppressWarnings("try")
 public class MP18_RemoveEmptyRows {
 
     static final int[] REQUIRED = {0, 1, 3, 4, 5, 6, 7, 8};
 
     public static void main(String[] args) throws Exception {
+        args = Metrics.init("MP18_RemoveEmptyRows", args);
+        ReportWriter out = ReportWriter.fromArgs(args);   // --format=text|csv|json, --out=file
+        args = ReportWriter.stripOptions(args);
         String filePath = args.length > 0 ? args[0] : "C:\\Users\\Cleo\\Documents\\Midterm\\Prog2-9307-AY225-TINSAY\\Midterm\\Machine Problem 3\\Java\\MachineProblem3.csv";
         List<String[]> rows = loadCSV(filePath);
         System.out.println("Loaded " + rows.size() + " data rows.\n");
-        mp18_removeEmptyRows(rows);
+        try (out) {
+            mp18_removeEmptyRows(rows, out);
+        }
+        Metrics.dump();
     }
 
     static List<String[]> loadCSV(String filePath) throws Exception {
@@ -23,23 +31,27 @@ public class MP18_RemoveEmptyRows {
         System.out.println("Reading: " + file.getAbsolutePath());
 
         List<String> lines = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+        try (Metrics.Phase phase = Metrics.phase("read");
+             BufferedReader br = CsvInput.open(file, StandardCharsets.UTF_8)) {
             String line;
             while ((line = br.readLine()) != null) lines.add(line);
         }
+        Metrics.count("lines.read", lines.size());
 
         List<String[]> rows = new ArrayList<>();
-        for (int i = 7; i < lines.size(); i++) {
-            String[] fields = parseCsvLine(lines.get(i));
-            fields = Arrays.copyOf(fields, 9);
-            for (int j = 0; j < fields.length; j++)
-                if (fields[j] == null) fields[j] = "";
-            boolean hasData = false;
-            for (int idx : REQUIRED)
-                if (!fields[idx].isBlank()) { hasData = true; break; }
-            if (hasData) rows.add(fields);
+        try (Metrics.Phase phase = Metrics.phase("parse")) {
+            for (int i = 7; i < lines.size(); i++) {
+                String[] fields = parseCsvLine(lines.get(i));
+                fields = Arrays.copyOf(fields, 9);
+                for (int j = 0; j < fields.length; j++)
+                    if (fields[j] == null) fields[j] = "";
+                boolean hasData = false;
+                for (int idx : REQUIRED)
+                    if (!fields[idx].isBlank()) { hasData = true; break; }
+                if (hasData) rows.add(fields);
+            }
         }
+        Metrics.count("rows.loaded", rows.size());
         return rows;
     }
 
@@ -59,36 +71,50 @@ public class MP18_RemoveEmptyRows {
         return fields.toArray(new String[0]);
     }
 
-    static List<String[]> mp18_removeEmptyRows(List<String[]> rows) {
-        System.out.println("============================================================");
-        System.out.println("MP18 - REMOVE ROWS WITH EMPTY FIELDS");
-        System.out.println("============================================================");
+    static final String[] SUMMARY_FIELDS = {"rows_before", "rows_removed", "rows_after"};
+    static final String[] REMOVED_FIELDS = {"candidate"};
 
-        List<String[]> clean = rows.stream()
-            .filter(r -> {
-                for (int idx : REQUIRED)
-                    if (r[idx].isBlank()) return false;
-                return true;
-            })
-            .collect(Collectors.toList());
-
-        int removed = rows.size() - clean.size();
-        System.out.println("  Rows before : " + rows.size());
-        System.out.println("  Rows removed: " + removed);
-        System.out.println("  Rows after  : " + clean.size());
+    static List<String[]> mp18_removeEmptyRows(List<String[]> rows, ReportWriter out) {
+        out.text("============================================================").newline();
+        out.text("MP18 - REMOVE ROWS WITH EMPTY FIELDS").newline();
+        out.text("============================================================").newline();
 
-        if (removed > 0) {
-            System.out.println("\n  Removed rows:");
-            rows.stream()
+        List<String[]> clean;
+        try (Metrics.Phase phase = Metrics.phase("aggregate")) {
+            clean = rows.stream()
                 .filter(r -> {
                     for (int idx : REQUIRED)
-                        if (r[idx].isBlank()) return true;
-                    return false;
+                        if (r[idx].isBlank()) return false;
+                    return true;
                 })
-                .forEach(r -> System.out.println("    -> " + r[0]));
-        } else {
-            System.out.println("  (All rows are complete - nothing removed.)");
+                .collect(Collectors.toList());
+        }
+
+        int removed = rows.size() - clean.size();
+        try (Metrics.Phase phase = Metrics.phase("render")) {
+            out.text("  Rows before : ").integer(rows.size()).newline();
+            out.text("  Rows removed: ").integer(removed).newline();
+            out.text("  Rows after  : ").integer(clean.size()).newline();
+            out.record("summary", SUMMARY_FIELDS).value(rows.size()).value(removed).value(clean.size()).end();
+
+            if (removed > 0) {
+                out.newline().text("  Removed rows:").newline();
+                rows.stream()
+                    .filter(r -> {
+                        for (int idx : REQUIRED)
+                            if (r[idx].isBlank()) return true;
+                        return false;
+                    })
+                    .forEach(r -> {
+                        out.text("    -> ").text(r[0]).newline();
+                        out.record("removed", REMOVED_FIELDS).value(r[0]).end();
+                    });
+            } else {
+                out.text("  (All rows are complete - nothing removed.)").newline();
+            }
+            out.flush();
         }
+        Metrics.count("rows.removed", removed);
         return clean;
     }
 }
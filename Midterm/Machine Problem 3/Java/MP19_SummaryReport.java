@@ -1,12 +1,17 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.*;
 
+@SuppressWarnings("try")
 public class MP19_SummaryReport {
 
     static final int[] REQUIRED = {0, 1, 3, 4, 5, 6, 7, 8};
 
     public static void main(String[] args) throws Exception {
+        args = Metrics.init("MP19_SummaryReport", args);
+        ReportWriter out = ReportWriter.fromArgs(args);   // --format=text|csv|json, --out=file
+        args = ReportWriter.stripOptions(args);
         String filePath;
 
         if (args.length > 0) {
@@ -19,7 +24,10 @@ public class MP19_SummaryReport {
 
         List<String[]> rows = loadCSV(filePath);
         System.out.println("Loaded " + rows.size() + " data rows.\n");
-        mp19_summaryReport(rows);
+        try (out) {
+            mp19_summaryReport(rows, out);
+        }
+        Metrics.dump();
     }
 
     static List<String[]> loadCSV(String filePath) throws Exception {
@@ -32,23 +40,27 @@ public class MP19_SummaryReport {
         System.out.println("Reading: " + file.getAbsolutePath());
 
         List<String> lines = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+        try (Metrics.Phase phase = Metrics.phase("read");
+             BufferedReader br = CsvInput.open(file, StandardCharsets.UTF_8)) {
             String line;
             while ((line = br.readLine()) != null) lines.add(line);
         }
+        Metrics.count("lines.read", lines.size());
 
         List<String[]> rows = new ArrayList<>();
-        for (int i = 7; i < lines.size(); i++) {
-            String[] fields = parseCsvLine(lines.get(i));
-            fields = Arrays.copyOf(fields, 9);
-            for (int j = 0; j < fields.length; j++)
-                if (fields[j] == null) fields[j] = "";
-            boolean hasData = false;
-            for (int idx : REQUIRED)
-                if (!fields[idx].isBlank()) { hasData = true; break; }
-            if (hasData) rows.add(fields);
+        try (Metrics.Phase phase = Metrics.phase("parse")) {
+            for (int i = 7; i < lines.size(); i++) {
+                String[] fields = parseCsvLine(lines.get(i));
+                fields = Arrays.copyOf(fields, 9);
+                for (int j = 0; j < fields.length; j++)
+                    if (fields[j] == null) fields[j] = "";
+                boolean hasData = false;
+                for (int idx : REQUIRED)
+                    if (!fields[idx].isBlank()) { hasData = true; break; }
+                if (hasData) rows.add(fields);
+            }
         }
+        Metrics.count("rows.loaded", rows.size());
         return rows;
     }
 
@@ -68,66 +80,95 @@ public class MP19_SummaryReport {
         return fields.toArray(new String[0]);
     }
 
-    static void mp19_summaryReport(List<String[]> rows) {
-        System.out.println("============================================================");
-        System.out.println("MP19 - DATASET SUMMARY REPORT");
-        System.out.println("============================================================");
-
-        Map<String, Long> typeCounts = rows.stream()
-            .collect(Collectors.groupingBy(r -> r[1], Collectors.counting()));
-
-        Map<String, Long> examCounts = rows.stream()
-            .collect(Collectors.groupingBy(r -> r[3], Collectors.counting()));
-
-        long passCount = rows.stream().filter(r -> r[7].equals("PASS")).count();
-        long failCount = rows.stream().filter(r -> r[7].equals("FAIL")).count();
-        double passRate = (double) passCount / rows.size() * 100;
-
-        IntSummaryStatistics stats = rows.stream()
-            .mapToInt(r -> {
-                try { return Integer.parseInt(r[6]); }
-                catch (NumberFormatException e) { return 0; }
-            })
-            .summaryStatistics();
-
-        System.out.println("\n  Total Records : " + rows.size());
-        System.out.println("  Unique Exams  : " + examCounts.size());
-
-        System.out.println("\n  By Candidate Type:");
-        typeCounts.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey())
-            .forEach(e -> System.out.printf("    %-10s : %d%n", e.getKey(), e.getValue()));
-
-        System.out.println("\n  Results:");
-        System.out.println("    PASS : " + passCount);
-        System.out.println("    FAIL : " + failCount);
-        System.out.printf("    Pass Rate : %.1f%%%n", passRate);
-
-        System.out.println("\n  Score Statistics:");
-        System.out.println("    Min : " + stats.getMin());
-        System.out.println("    Max : " + stats.getMax());
-        System.out.printf("    Avg : %.1f%n", stats.getAverage());
-
-        System.out.println("\n  Top 5 Exams by Enrollment:");
-        examCounts.entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .limit(5)
-            .forEach(e -> System.out.printf("    %-50s : %d%n", e.getKey(), e.getValue()));
-
-        System.out.println("\n  Exam Pass Rates (sorted by rate desc):");
-        rows.stream()
-            .collect(Collectors.groupingBy(r -> r[3]))
-            .entrySet().stream()
-            .map(e -> {
-                long p = e.getValue().stream().filter(r -> r[7].equals("PASS")).count();
-                double rate = (double) p / e.getValue().size() * 100;
-                return new AbstractMap.SimpleEntry<>(e.getKey(), rate);
-            })
-            .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
-            .forEach(e -> System.out.printf("    %-50s : %5.1f%%%n", e.getKey(), e.getValue()));
-
-        System.out.println("\n============================================================");
-        System.out.println("END OF REPORT");
-        System.out.println("============================================================");
+    static final String[] SUMMARY_FIELDS = {"total_records", "unique_exams", "pass", "fail", "pass_rate",
+                                             "score_min", "score_max", "score_avg"};
+    static final String[] TYPE_FIELDS = {"type", "count"};
+    static final String[] EXAM_FIELDS = {"exam", "enrolled"};
+    static final String[] RATE_FIELDS = {"exam", "pass_rate"};
+
+    static void mp19_summaryReport(List<String[]> rows, ReportWriter out) {
+        out.text("============================================================").newline();
+        out.text("MP19 - DATASET SUMMARY REPORT").newline();
+        out.text("============================================================").newline();
+
+        Map<String, Long> typeCounts, examCounts;
+        long passCount, failCount;
+        double passRate;
+        IntSummaryStatistics stats;
+        try (Metrics.Phase phase = Metrics.phase("aggregate")) {
+            typeCounts = rows.stream()
+                .collect(Collectors.groupingBy(r -> r[1], Collectors.counting()));
+
+            examCounts = rows.stream()
+                .collect(Collectors.groupingBy(r -> r[3], Collectors.counting()));
+
+            passCount = rows.stream().filter(r -> r[7].equals("PASS")).count();
+            failCount = rows.stream().filter(r -> r[7].equals("FAIL")).count();
+            passRate = (double) passCount / rows.size() * 100;
+
+            stats = rows.stream()
+                .mapToInt(r -> {
+                    try { return Integer.parseInt(r[6]); }
+                    catch (NumberFormatException e) { return 0; }
+                })
+                .summaryStatistics();
+        }
+
+        try (Metrics.Phase phase = Metrics.phase("render")) {
+            out.record("summary", SUMMARY_FIELDS).value(rows.size()).value(examCounts.size())
+               .value(passCount).value(failCount).value(passRate, 1)
+               .value(stats.getMin()).value(stats.getMax()).value(stats.getAverage(), 1).end();
+
+            out.newline().text("  Total Records : ").integer(rows.size()).newline();
+            out.text("  Unique Exams  : ").integer(examCounts.size()).newline();
+
+            out.newline().text("  By Candidate Type:").newline();
+            typeCounts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> {
+                    out.text("    ").width(-10).text(e.getKey()).text(" : ").integer(e.getValue()).newline();
+                    out.record("type", TYPE_FIELDS).value(e.getKey()).value(e.getValue()).end();
+                });
+
+            out.newline().text("  Results:").newline();
+            out.text("    PASS : ").integer(passCount).newline();
+            out.text("    FAIL : ").integer(failCount).newline();
+            out.text("    Pass Rate : ").decimal(passRate, 1).text("%").newline();
+
+            out.newline().text("  Score Statistics:").newline();
+            out.text("    Min : ").integer(stats.getMin()).newline();
+            out.text("    Max : ").integer(stats.getMax()).newline();
+            out.text("    Avg : ").decimal(stats.getAverage(), 1).newline();
+
+            out.newline().text("  Top 5 Exams by Enrollment:").newline();
+            examCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(5)
+                .forEach(e -> {
+                    out.text("    ").width(-50).text(e.getKey()).text(" : ").integer(e.getValue()).newline();
+                    out.record("top_exam", EXAM_FIELDS).value(e.getKey()).value(e.getValue()).end();
+                });
+
+            out.newline().text("  Exam Pass Rates (sorted by rate desc):").newline();
+            rows.stream()
+                .collect(Collectors.groupingBy(r -> r[3]))
+                .entrySet().stream()
+                .map(e -> {
+                    long p = e.getValue().stream().filter(r -> r[7].equals("PASS")).count();
+                    double rate = (double) p / e.getValue().size() * 100;
+                    return new AbstractMap.SimpleEntry<>(e.getKey(), rate);
+                })
+                .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
+                .forEach(e -> {
+                    out.text("    ").width(-50).text(e.getKey()).text(" : ").width(5).decimal(e.getValue(), 1)
+                       .text("%").newline();
+                    out.record("exam_pass_rate", RATE_FIELDS).value(e.getKey()).value(e.getValue(), 1).end();
+                });
+
+            out.newline().text("============================================================").newline();
+            out.text("END OF REPORT").newline();
+            out.text("============================================================").newline();
+            out.flush();
+        }
     }
-}
\ No newline at end of file
+}
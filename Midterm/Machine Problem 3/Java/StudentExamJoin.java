@@ -0,0 +1,556 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * StudentExamJoin - links Pearson VUE results to the Prelim class roster.
+ *
+ * Each exam row's candidate ("First,Last") is matched to the class_records.csv
+ * student with the same first and last name, and the report lists student ID,
+ * exam, score and result next to the student's prelim grade (same formula as
+ * Prelim/GradeEngine.java). A student with a blank, non-numeric or
+ * out-of-range score gets no grade and the status INVALID. The roster is
+ * read through ClassRecords when StudentRecordSystem has changes still in
+ * its .wal, so the join sees the same students the app shows. Names are
+ * compared as keys: lower case, accents and punctuation dropped, whitespace
+ * collapsed, so "Mary-Jo  O'Neil" and "mary jo oneil" meet. A candidate
+ * whose name only matches the other way round (last, first) is matched too.
+ *
+ * Hash join: the smaller file (by data size; a .gz counts its decompressed
+ * size) is the build side and is loaded into a HashMap from key to rows; the
+ * other file is streamed and each row probes the map, so both files are read
+ * once.
+ *
+ * If the build side would not fit the memory budget, or turns out not to
+ * while it is being loaded (the gzip size field only covers the last
+ * member), both files are first split by key hash into partition files
+ * under the temp directory (grace hash join). Rows with the same key land in
+ * the same partition, so each pair of partitions is joined on its own with a
+ * table a fraction of the size. A partition still too large is split again
+ * with another hash.
+ *
+ * Usage:
+ *   java StudentExamJoin [results.csv] [class_records.csv] [--memory MB]
+ *                        [--format=text|csv|json] [--out=file]
+ */
+@SuppressWarnings("try")
+public class StudentExamJoin {
+
+    static final double PRELIM_EXAM_WEIGHT    = 0.70;
+    static final double CLASS_STANDING_WEIGHT = 0.30;
+    static final double ATTENDANCE_WEIGHT     = 0.40;
+    static final double LABWORK_WEIGHT        = 0.60;
+    static final double PASSING_GRADE         = 75.0;
+
+    static final long DEFAULT_MEMORY = 64L << 20;
+    static final int ROW_OVERHEAD = 3;       // heap bytes per file byte, roughly, once parsed
+    static final int MAX_DEPTH = 3;          // re-partitioning rounds before joining anyway
+    static final int EXAM_HEADER_LINES = 7;  // Pearson VUE banner and column header
+
+    static final String[] JOIN_FIELDS = {"student_id", "first_name", "last_name", "exam", "exam_date",
+                                         "score", "result", "prelim_grade", "prelim_status"};
+    static final String[] SUMMARY_FIELDS = {"exam_rows", "matched", "unmatched_exams", "students",
+                                            "students_without_exam", "invalid_grades", "strategy",
+                                            "partitions"};
+
+    /** One row of either file, with its name key. */
+    static final class Row {
+        final String key;
+        final String line;
+        boolean matched;
+
+        Row(String key, String line) {
+            this.key = key;
+            this.line = line;
+        }
+    }
+
+    /** Reads one side: exam results or class records. */
+    enum Side {
+        EXAMS(EXAM_HEADER_LINES) {
+            String key(String line) {
+                String[] f = MP19_SummaryReport.parseCsvLine(line);
+                String name = f[0];
+                int comma = name.indexOf(',');
+                if (comma < 0) return null;
+                return nameKey(name.substring(0, comma), name.substring(comma + 1));
+            }
+        },
+        STUDENTS(1) {
+            String key(String line) {
+                String[] f = line.split(",", -1);
+                return f.length < 8 ? null : nameKey(f[1], f[2]);
+            }
+        };
+
+        final int headerLines;
+
+        Side(int headerLines) {
+            this.headerLines = headerLines;
+        }
+
+        /** The name key of a data line, or null if it has no usable name. */
+        abstract String key(String line);
+    }
+
+    /** Receives rows as a file is scanned. */
+    interface RowSink {
+        void accept(Row row) throws IOException;
+    }
+
+    /** Where scan() takes lines from: a CSV reader or the live roster. */
+    private interface LineSource {
+        String readLine() throws IOException;
+    }
+
+    /** Thrown while loading a build side that outgrows the memory budget. */
+    static final class BuildTooLarge extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BuildTooLarge() {
+            super("build side exceeds the memory budget");
+        }
+    }
+
+    // Totals
+    long examRows, matched, unmatchedExams, students, studentsWithoutExam, invalidGrades;
+    int partitions;
+    String strategy = "in-memory";
+
+    final List<Row[]> deferred = new ArrayList<>();   // {exam, student} matched last name first
+
+    final long memory;
+    final ReportWriter out;
+
+    StudentExamJoin(long memory, ReportWriter out) {
+        this.memory = Math.max(1L << 20, memory);
+        this.out = out;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  ENTRY POINT
+    // ------------------------------------------------------------------ //
+    public static void main(String[] args) throws Exception {
+        args = Metrics.init("StudentExamJoin", args);
+        ReportWriter out = ReportWriter.fromArgs(args);   // --format=text|csv|json, --out=file
+        args = ReportWriter.stripOptions(args);
+
+        long memory = DEFAULT_MEMORY;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].equals("--memory")) {
+                files.add(args[i]);
+                continue;
+            }
+            try {
+                memory = Long.parseLong(args[++i]) << 20;
+            } catch (RuntimeException e) {
+                System.out.println("[Error] --memory needs a size in MB");
+                out.close();
+                return;
+            }
+        }
+        File exams = resolve(files.size() > 0 ? files.get(0) : "MachineProblem3.csv");
+        File roster = resolve(files.size() > 1 ? files.get(1) : "../../../Prelim/class_records.csv");
+        System.out.println("Exams  : " + exams.getAbsolutePath());
+        System.out.println("Roster : " + roster.getAbsolutePath());
+
+        StudentExamJoin join = new StudentExamJoin(memory, out);
+        try (out) {
+            join.writeHeader();
+            join.run(exams, roster);
+            join.writeSummary();
+        }
+        Metrics.dump();
+    }
+
+    // Relative paths that do not exist here are tried against the directory
+    // holding the class files
+    static File resolve(String path) throws Exception {
+        File file = new File(path);
+        if (!file.exists()) {
+            String classDir = StudentExamJoin.class
+                .getProtectionDomain().getCodeSource().getLocation().toURI().getPath();
+            file = new File(classDir, path);
+        }
+        return file;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  NAME KEYS
+    // ------------------------------------------------------------------ //
+
+    static String nameKey(String first, String last) {
+        String f = normalize(first), l = normalize(last);
+        return f.isEmpty() || l.isEmpty() ? null : f + "|" + l;
+    }
+
+    // "last|first" for "first|last", for candidates entered last name first
+    static String swapped(String key) {
+        int bar = key.indexOf('|');
+        return key.substring(bar + 1) + "|" + key.substring(0, bar);
+    }
+
+    // Lower-case letters and digits, accents dropped, single spaces between words
+    static String normalize(String s) {
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK || c == '\'' || c == '.') continue;
+            if (Character.isLetterOrDigit(c)) {
+                if (space && sb.length() > 0) sb.append(' ');
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    // ------------------------------------------------------------------ //
+    //  JOIN
+    // ------------------------------------------------------------------ //
+
+    void run(File exams, File roster) throws IOException {
+        // Build on the smaller file, probe with the larger
+        long rosterBytes = dataBytes(roster), examBytes = dataBytes(exams);
+        boolean buildStudents = rosterBytes <= examBytes;
+        File buildFile = buildStudents ? roster : exams, probeFile = buildStudents ? exams : roster;
+        Side build = buildStudents ? Side.STUDENTS : Side.EXAMS, probe = buildStudents ? Side.EXAMS : Side.STUDENTS;
+        long buildBytes = Math.min(rosterBytes, examBytes);
+
+        if (buildBytes * ROW_OVERHEAD <= memory) {
+            try (Metrics.Phase phase = Metrics.phase("join")) {
+                joinFiles(buildFile, build, probeFile, probe);
+                return;
+            } catch (BuildTooLarge e) {
+                // nothing was probed yet; partition instead
+                buildBytes = Math.max(buildBytes, memory / ROW_OVERHEAD + 1);
+            }
+        }
+
+        strategy = "grace";
+        int fanOut = (int) Math.min(256, buildBytes * ROW_OVERHEAD / memory + 1) * 2;
+        Path dir = Files.createTempDirectory("examjoin");
+        try {
+            List<Path> buildParts, probeParts;
+            try (Metrics.Phase phase = Metrics.phase("partition")) {
+                buildParts = partition(buildFile, build, dir, "b", fanOut, 0);
+                probeParts = partition(probeFile, probe, dir, "p", fanOut, 0);
+            }
+            try (Metrics.Phase phase = Metrics.phase("join")) {
+                for (int i = 0; i < fanOut; i++) {
+                    joinPartition(buildParts.get(i), build, probeParts.get(i), probe, dir, 1);
+                }
+            }
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    // In-memory hash join of two CSV files; throws BuildTooLarge, before any
+    // row is probed, if the build side outgrows the memory budget
+    void joinFiles(File buildFile, Side build, File probeFile, Side probe) throws IOException {
+        Map<String, List<Row>> table = new HashMap<>();
+        long[] used = {0};
+        scan(buildFile, build, row -> {
+            used[0] += (long) row.line.length() * ROW_OVERHEAD;
+            if (used[0] > memory) throw new BuildTooLarge();
+            table.computeIfAbsent(row.key, k -> new ArrayList<>(1)).add(row);
+        });
+        scan(probeFile, probe, row -> probeRow(table, build, row));
+        resolveDeferred();
+        finishBuild(table, build);
+    }
+
+    // Joins one partition pair, splitting it again if the build part is too large
+    void joinPartition(Path buildPart, Side build, Path probePart, Side probe, Path dir, int depth)
+            throws IOException {
+        if (Files.size(buildPart) * ROW_OVERHEAD > memory && depth < MAX_DEPTH) {
+            int fanOut = (int) Math.min(256, Files.size(buildPart) * ROW_OVERHEAD / memory + 1) * 2;
+            String tag = buildPart.getFileName().toString();
+            List<Path> buildParts = partitionKeyed(buildPart, dir, tag + "b", fanOut, depth);
+            List<Path> probeParts = partitionKeyed(probePart, dir, tag + "p", fanOut, depth);
+            Files.delete(buildPart);
+            Files.delete(probePart);
+            for (int i = 0; i < fanOut; i++) {
+                joinPartition(buildParts.get(i), build, probeParts.get(i), probe, dir, depth + 1);
+            }
+            return;
+        }
+        partitions++;
+        Map<String, List<Row>> table = new HashMap<>();
+        scanKeyed(buildPart, row -> table.computeIfAbsent(row.key, k -> new ArrayList<>(1)).add(row));
+        scanKeyed(probePart, row -> probeRow(table, build, row));
+        resolveDeferred();
+        finishBuild(table, build);
+        Files.delete(buildPart);
+        Files.delete(probePart);
+    }
+
+    // An exam row takes the students with its name as written, and only if
+    // there are none, the students with the name the other way round
+    private void probeRow(Map<String, List<Row>> table, Side build, Row row) throws IOException {
+        count(build == Side.STUDENTS ? Side.EXAMS : Side.STUDENTS);
+        List<Row> hits = table.get(row.key);
+        if (build == Side.STUDENTS) {
+            if (hits == null) hits = table.get(swapped(row.key));
+            if (hits == null) {
+                unmatchedExams++;
+                return;
+            }
+            for (Row hit : hits) {
+                hit.matched = true;
+                emit(row.line, hit.line);
+            }
+            return;
+        }
+
+        // Built on exams: whether an exam row has a direct match is only
+        // known once every student has probed, so swapped matches wait
+        List<Row> turned = table.get(swapped(row.key));
+        if (hits != null) {
+            row.matched = true;
+            for (Row hit : hits) {
+                hit.matched = true;
+                emit(hit.line, row.line);
+            }
+        }
+        if (turned != null && turned != hits) {
+            for (Row hit : turned) deferred.add(new Row[]{hit, row});
+        } else if (hits == null) {
+            studentsWithoutExam++;
+        }
+    }
+
+    // Swapped matches of exam rows that found no direct match
+    private void resolveDeferred() throws IOException {
+        boolean[] take = new boolean[deferred.size()];
+        for (int i = 0; i < take.length; i++) take[i] = !deferred.get(i)[0].matched;
+        for (int i = 0; i < take.length; i++) {
+            if (!take[i]) continue;
+            Row[] pair = deferred.get(i);
+            pair[0].matched = true;
+            pair[1].matched = true;
+            emit(pair[0].line, pair[1].line);
+        }
+        for (Row[] pair : deferred) {
+            if (!pair[1].matched) {
+                studentsWithoutExam++;
+                pair[1].matched = true;   // count each student once
+            }
+        }
+        deferred.clear();
+    }
+
+    // Build rows never probed are the unmatched ones of that side
+    private void finishBuild(Map<String, List<Row>> table, Side build) {
+        for (List<Row> rows : table.values()) {
+            for (Row r : rows) {
+                count(build);
+                if (r.matched) continue;
+                if (build == Side.STUDENTS) studentsWithoutExam++;
+                else unmatchedExams++;
+            }
+        }
+    }
+
+    private void count(Side side) {
+        if (side == Side.EXAMS) examRows++;
+        else students++;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  FILES AND PARTITIONS
+    // ------------------------------------------------------------------ //
+
+    // Data lines of a CSV (header skipped) that carry a name; a roster with a
+    // non-empty .wal is read live through ClassRecords
+    static void scan(File file, Side side, RowSink sink) throws IOException {
+        if (side == Side.STUDENTS && ClassRecords.hasLog(file)) {
+            try (ClassRecords records = ClassRecords.open(file)) {
+                scan(records::readLine, side, sink);
+            }
+            return;
+        }
+        try (BufferedReader br = CsvInput.open(file, StandardCharsets.UTF_8)) {
+            scan(br::readLine, side, sink);
+        }
+    }
+
+    private static void scan(LineSource lines, Side side, RowSink sink) throws IOException {
+        String line;
+        int n = 0;
+        while ((line = lines.readLine()) != null) {
+            if (n++ < side.headerLines || line.isBlank()) continue;
+            String key = side.key(line);
+            if (key != null) sink.accept(new Row(key, line));
+        }
+    }
+
+    // Bytes the file holds once decompressed: a .gz ends with the size of its
+    // last member mod 2^32 (all of it for a single-member file), which is
+    // only an estimate for multi-member files, hence the fallback in run()
+    static long dataBytes(File file) throws IOException {
+        long length = file.length();
+        if (length < 18 || !CsvInput.isGzip(file)) return length;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(length - 4);
+            long isize = 0;
+            for (int i = 0; i < 4; i++) isize |= (long) raf.read() << (8 * i);
+            return Math.max(length, isize);
+        }
+    }
+
+    // Partition files hold "key TAB original line"
+    static void scanKeyed(Path part, RowSink sink) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(part, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                sink.accept(new Row(line.substring(0, tab), line.substring(tab + 1)));
+            }
+        }
+    }
+
+    static List<Path> partition(File file, Side side, Path dir, String tag, int fanOut, int depth)
+            throws IOException {
+        List<Path> parts = new ArrayList<>();
+        BufferedWriter[] writers = open(dir, tag, fanOut, parts);
+        try {
+            scan(file, side, row -> write(writers, row, depth));
+        } finally {
+            for (BufferedWriter w : writers) w.close();
+        }
+        return parts;
+    }
+
+    static List<Path> partitionKeyed(Path part, Path dir, String tag, int fanOut, int depth) throws IOException {
+        List<Path> parts = new ArrayList<>();
+        BufferedWriter[] writers = open(dir, tag, fanOut, parts);
+        try {
+            scanKeyed(part, row -> write(writers, row, depth));
+        } finally {
+            for (BufferedWriter w : writers) w.close();
+        }
+        return parts;
+    }
+
+    private static BufferedWriter[] open(Path dir, String tag, int fanOut, List<Path> parts) throws IOException {
+        BufferedWriter[] writers = new BufferedWriter[fanOut];
+        for (int i = 0; i < fanOut; i++) {
+            Path p = dir.resolve(tag + "-" + i);
+            parts.add(p);
+            writers[i] = Files.newBufferedWriter(p, StandardCharsets.UTF_8);
+        }
+        return writers;
+    }
+
+    // Both name orders must land in the same partition, so the key is hashed
+    // order-independently; each depth uses a different hash
+    private static void write(BufferedWriter[] writers, Row row, int depth) throws IOException {
+        int bar = row.key.indexOf('|');
+        int h = row.key.substring(0, bar).hashCode() ^ row.key.substring(bar + 1).hashCode();
+        h = (h + depth) * 0x9E3779B9;
+        h ^= h >>> 16;
+        BufferedWriter w = writers[Math.floorMod(h, writers.length)];
+        w.write(row.key);
+        w.write('\t');
+        w.write(row.line);
+        w.newLine();
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (DirectoryStream<Path> s = Files.newDirectoryStream(dir)) {
+            for (Path p : s) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    // ------------------------------------------------------------------ //
+    //  OUTPUT
+    // ------------------------------------------------------------------ //
+
+    void writeHeader() {
+        out.text("==========================================================================================").newline();
+        out.text("STUDENT EXAM RESULTS WITH PRELIM GRADES").newline();
+        out.text("==========================================================================================").newline();
+        out.text("  ").width(-10).text("Student ID").text(" | ").width(-24).text("Name").text(" | ")
+           .width(-24).text("Exam").text(" | ").width(5).text("Score").text(" | ").width(-6).text("Result")
+           .text(" | ").width(6).text("Prelim").newline();
+        out.text("  ").repeat('-', 88).newline();
+    }
+
+    // One joined pair; the grade is computed from the roster's scores
+    void emit(String examLine, String studentLine) throws IOException {
+        matched++;
+        String[] e = Arrays.copyOf(MP19_SummaryReport.parseCsvLine(examLine), 9);
+        for (int i = 0; i < e.length; i++) if (e[i] == null) e[i] = "";
+        String[] s = studentLine.split(",", -1);
+        double labAverage = (parseScore(s[3]) + parseScore(s[4]) + parseScore(s[5])) / 3.0;
+        double standing = ATTENDANCE_WEIGHT * parseScore(s[7]) + LABWORK_WEIGHT * labAverage;
+        double grade = PRELIM_EXAM_WEIGHT * parseScore(s[6]) + CLASS_STANDING_WEIGHT * standing;
+        boolean graded = !Double.isNaN(grade);   // NaN if any score is invalid
+        String status = !graded ? "INVALID" : grade >= PASSING_GRADE ? "PASSED" : "FAILED";
+        if (!graded) invalidGrades++;
+        String name = s[1].trim() + " " + s[2].trim();
+
+        out.text("  ").width(-10).text(s[0].trim()).text(" | ").width(-24).text(clip(name, 24)).text(" | ")
+           .width(-24).text(clip(e[3], 24)).text(" | ").width(5).text(e[6]).text(" | ").width(-6).text(e[7])
+           .text(" | ").width(6);
+        if (graded) out.decimal(grade, 2);
+        else out.text("n/a");
+        out.newline();
+        out.record("student_exam", JOIN_FIELDS).value(s[0].trim()).value(s[1].trim()).value(s[2].trim())
+           .value(e[3]).value(e[5]).value(e[6]).value(e[7]);
+        if (graded) out.value(grade, 2);
+        else out.value("");
+        out.value(status).end();
+    }
+
+    void writeSummary() {
+        out.text("  ").repeat('-', 88).newline();
+        out.text("  Exam rows           : ").grouped(examRows).newline();
+        out.text("  Matched to students : ").grouped(matched).newline();
+        out.text("  Unmatched exam rows : ").grouped(unmatchedExams).newline();
+        out.text("  Students            : ").grouped(students).newline();
+        out.text("  Students w/o exam   : ").grouped(studentsWithoutExam).newline();
+        out.text("  Invalid prelim score: ").grouped(invalidGrades).newline();
+        out.text("  Join                : ").text(strategy);
+        if (partitions > 0) out.text(" (").integer(partitions).text(" partitions)");
+        out.newline();
+        out.text("==========================================================================================").newline();
+        out.record("summary", SUMMARY_FIELDS).value(examRows).value(matched).value(unmatchedExams)
+           .value(students).value(studentsWithoutExam).value(invalidGrades).value(strategy).value(partitions).end();
+        out.flush();
+        Metrics.count("join.matched", matched);
+        Metrics.count("join.partitions", partitions);
+    }
+
+    // Same as Prelim/GradeEngine.parseScore(): a score from 0 to 100, decimals
+    // allowed; NaN for blank, non-numeric or out-of-range input
+    static double parseScore(String s) {
+        s = s.trim();
+        // Double.parseDouble would also take "85d" or "0x1p6"
+        if (s.isEmpty() || !Character.isDigit(s.charAt(s.length() - 1)) && s.charAt(s.length() - 1) != '.'
+                || s.indexOf('x') >= 0 || s.indexOf('X') >= 0) {
+            return Double.NaN;
+        }
+        double v;
+        try {
+            v = Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+        return v >= 0 && v <= 100 ? v : Double.NaN;
+    }
+
+    static String clip(String s, int max) {
+        return s.length() > max ? s.substring(0, max - 3) + "..." : s;
+    }
+}
@@ -0,0 +1,366 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.*;
+import java.util.*;
+
+/**
+ * AttendanceAnalytics - late arrivals, attendance rates and streaks over check-ins
+ *
+ * Check-ins are read from the AttendanceJournal, where the time is already
+ * stored as epoch millis, so nothing has to parse the "MMMM dd, yyyy • hh:mm:ss a"
+ * display string. Names and courses are dictionary-encoded to int ids and
+ * the check-ins kept as columns (long[] time, int[] name, int[] course). The
+ * analysis then works on primitive arrays only:
+ *
+ *   1. bucket every check-in into a day index and a minute of the day
+ *   2. sort packed (course, student, day) longs
+ *   3. one pass per course builds its meeting days as a bitmap, and one pass
+ *      per (course, student) run counts attendance and streaks
+ *
+ * A streak is a run of consecutive meetings of a course that the student
+ * attended. A check-in is late if it comes more than the grace period after
+ * the course's start time.
+ *
+ * Usage:
+ *   java AttendanceAnalytics [journalDir] [--start 08:00] [--grace 15] [--schedule schedule.csv]
+ *   java AttendanceAnalytics --bench 20000
+ *
+ * schedule.csv has one "course,HH:mm" start time per line.
+ */
+public class AttendanceAnalytics {
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Dictionaries: normalized key -> id, id -> display form, plus the exact
+    // spellings seen so far so most lookups skip normalizing
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final Map<String, Integer> courseIds = new HashMap<>();
+    private final Map<String, Integer> nameSpellings = new HashMap<>();
+    private final Map<String, Integer> courseSpellings = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<String> courses = new ArrayList<>();
+
+    // Check-in columns
+    private long[] millis = new long[1024];
+    private int[] nameCol = new int[1024];
+    private int[] courseCol = new int[1024];
+    private int size;
+
+    // Start time (minute of day) per course; default for unscheduled courses
+    private final Map<String, Integer> scheduledStart = new HashMap<>();
+    private int defaultStartMinute = 8 * 60;
+    private int graceMinutes = 15;
+
+    // ========================================
+    // LOADING
+    // ========================================
+
+    public static AttendanceAnalytics load(AttendanceJournal journal) throws IOException {
+        AttendanceAnalytics analytics = new AttendanceAnalytics();
+        journal.scan((seq, epochMillis, sigHigh, sigLow, name, course) -> analytics.add(epochMillis, name, course));
+        return analytics;
+    }
+
+    public void add(long epochMillis, String name, String course) {
+        if (size == millis.length) {
+            int capacity = size * 2;
+            millis = Arrays.copyOf(millis, capacity);
+            nameCol = Arrays.copyOf(nameCol, capacity);
+            courseCol = Arrays.copyOf(courseCol, capacity);
+        }
+        millis[size] = epochMillis;
+        nameCol[size] = encode(name, nameSpellings, nameIds, names);
+        courseCol[size] = encode(course, courseSpellings, courseIds, courses);
+        size++;
+    }
+
+    private static int encode(String value, Map<String, Integer> spellings, Map<String, Integer> ids,
+                              List<String> values) {
+        Integer id = spellings.get(value);
+        if (id != null) return id;
+
+        String key = key(value);
+        id = ids.get(key);
+        if (id == null) {
+            id = values.size();
+            ids.put(key, id);
+            values.add(value.trim());
+        }
+        spellings.put(value, id);
+        return id;
+    }
+
+    // Same person/course regardless of case and spacing
+    private static String key(String s) {
+        return s.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public void setStartTime(LocalTime start, int graceMinutes) {
+        this.defaultStartMinute = start.getHour() * 60 + start.getMinute();
+        this.graceMinutes = graceMinutes;
+    }
+
+    public void loadSchedule(Path csv) throws IOException {
+        for (String line : Files.readAllLines(csv)) {
+            int comma = line.lastIndexOf(',');
+            if (comma <= 0) continue;
+            LocalTime start = LocalTime.parse(line.substring(comma + 1).trim());
+            scheduledStart.put(key(line.substring(0, comma)), start.getHour() * 60 + start.getMinute());
+        }
+    }
+
+    // ========================================
+    // ANALYSIS
+    // ========================================
+
+    /** Results of one analysis, indexed by course id / student id. */
+    public static final class Report {
+        int checkIns, days;
+        LocalDate firstDay;
+        String[] courseNames, studentNames;
+
+        int[] courseSessions, courseStudents, courseAttended, courseLate, courseCheckIns;
+        int[] studentCheckIns, studentLate, studentLongestStreak, studentStreakCourse;
+
+        double attendanceRate(int course) {
+            long possible = (long) courseSessions[course] * courseStudents[course];
+            return possible == 0 ? 0 : 100.0 * courseAttended[course] / possible;
+        }
+
+        double lateRate(int course) {
+            return courseCheckIns[course] == 0 ? 0 : 100.0 * courseLate[course] / courseCheckIns[course];
+        }
+    }
+
+    public Report analyze() {
+        Report r = new Report();
+        int courseCount = courses.size(), studentCount = names.size();
+        r.checkIns = size;
+        r.courseNames = courses.toArray(new String[0]);
+        r.studentNames = names.toArray(new String[0]);
+        r.courseSessions = new int[courseCount];
+        r.courseStudents = new int[courseCount];
+        r.courseAttended = new int[courseCount];
+        r.courseLate = new int[courseCount];
+        r.courseCheckIns = new int[courseCount];
+        r.studentCheckIns = new int[studentCount];
+        r.studentLate = new int[studentCount];
+        r.studentLongestStreak = new int[studentCount];
+        r.studentStreakCourse = new int[studentCount];
+        Arrays.fill(r.studentStreakCourse, -1);
+        if (size == 0) return r;
+
+        int[] courseStart = new int[courseCount];
+        for (int c = 0; c < courseCount; c++) {
+            courseStart[c] = scheduledStart.getOrDefault(key(courses.get(c)), defaultStartMinute) + graceMinutes;
+        }
+
+        // 1. Time buckets: day index + minute of day; late counts on the way
+        long minMillis = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) minMillis = Math.min(minMillis, millis[i]);
+        r.firstDay = Instant.ofEpochMilli(minMillis).atZone(zone).toLocalDate();
+        long firstEpochDay = r.firstDay.toEpochDay();
+
+        // Packed key: course in bits 42..62, student in 16..41, day in 0..15
+        if (courseCount > 1 << 21) throw new IllegalStateException("More than 2097152 courses");
+        if (studentCount > 1 << 26) throw new IllegalStateException("More than 67108864 students");
+        long[] packed = new long[size];
+        long dayStart = 0, dayEnd = 0;
+        int dayIndex = 0, maxDay = 0;
+        for (int i = 0; i < size; i++) {
+            long t = millis[i];
+            if (t < dayStart || t >= dayEnd) {   // check-ins come in time order, so this is rare
+                LocalDate date = Instant.ofEpochMilli(t).atZone(zone).toLocalDate();
+                dayStart = date.atStartOfDay(zone).toInstant().toEpochMilli();
+                dayEnd = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                dayIndex = (int) (date.toEpochDay() - firstEpochDay);
+                if (dayIndex > 0xFFFF) throw new IllegalStateException("Check-ins span more than 65536 days");
+            }
+            int minute = (int) ((t - dayStart) / 60_000);
+            int course = courseCol[i], student = nameCol[i];
+
+            r.courseCheckIns[course]++;
+            r.studentCheckIns[student]++;
+            if (minute > courseStart[course]) {
+                r.courseLate[course]++;
+                r.studentLate[student]++;
+            }
+            maxDay = Math.max(maxDay, dayIndex);
+            packed[i] = (long) course << 42 | (long) student << 16 | dayIndex;
+        }
+        r.days = maxDay + 1;
+
+        // 2. Group by course, then student, then day
+        Arrays.parallelSort(packed);
+
+        // 3. Per course: meeting-day bitmap, then per-student runs
+        int words = (r.days + 63) >>> 6;
+        long[] meetings = new long[words];
+        int[] prefix = new int[words];   // meetings before each word, for day -> meeting ordinal
+        int i = 0;
+        while (i < size) {
+            int course = (int) (packed[i] >>> 42);
+            int end = i;
+            Arrays.fill(meetings, 0L);
+            while (end < size && (int) (packed[end] >>> 42) == course) {
+                int day = (int) (packed[end] & 0xFFFF);
+                meetings[day >>> 6] |= 1L << day;
+                end++;
+            }
+            int sessions = 0;
+            for (int w = 0; w < words; w++) {
+                prefix[w] = sessions;
+                sessions += Long.bitCount(meetings[w]);
+            }
+            r.courseSessions[course] = sessions;
+
+            // Runs of one student in this course, days ascending
+            while (i < end) {
+                int student = (int) (packed[i] >>> 16) & 0x3FF_FFFF;
+                int attended = 0, streak = 0, longest = 0, lastOrdinal = -2, lastDay = -1;
+                while (i < end && ((int) (packed[i] >>> 16) & 0x3FF_FFFF) == student) {
+                    int day = (int) (packed[i] & 0xFFFF);
+                    i++;
+                    if (day == lastDay) continue;   // second check-in the same day
+                    lastDay = day;
+                    attended++;
+                    int ordinal = prefix[day >>> 6] + Long.bitCount(meetings[day >>> 6] & ((1L << day) - 1));
+                    streak = ordinal == lastOrdinal + 1 ? streak + 1 : 1;
+                    lastOrdinal = ordinal;
+                    longest = Math.max(longest, streak);
+                }
+                r.courseStudents[course]++;
+                r.courseAttended[course] += attended;
+                if (longest > r.studentLongestStreak[student]) {
+                    r.studentLongestStreak[student] = longest;
+                    r.studentStreakCourse[student] = course;
+                }
+            }
+        }
+        return r;
+    }
+
+    // ========================================
+    // REPORT
+    // ========================================
+    static void print(Report r, int top) {
+        System.out.println("============================================================");
+        System.out.println("ATTENDANCE ANALYTICS");
+        System.out.println("============================================================");
+        System.out.printf("  Check-ins : %,d%n", r.checkIns);
+        System.out.printf("  Students  : %,d%n", r.studentNames.length);
+        System.out.printf("  Courses   : %,d%n", r.courseNames.length);
+        if (r.checkIns == 0) return;
+        System.out.printf("  Days      : %,d (from %s)%n", r.days, r.firstDay);
+
+        Integer[] byRate = new Integer[r.courseNames.length];
+        for (int c = 0; c < byRate.length; c++) byRate[c] = c;
+        Arrays.sort(byRate, Comparator.comparingDouble(r::attendanceRate));
+        System.out.printf("%n  %-30s %9s %9s %11s %7s%n", "COURSE (lowest attendance)", "SESSIONS", "STUDENTS", "ATTENDANCE", "LATE");
+        for (int k = 0; k < Math.min(top, byRate.length); k++) {
+            int c = byRate[k];
+            System.out.printf("  %-30s %9d %9d %10.1f%% %6.1f%%%n", truncate(r.courseNames[c], 30),
+                    r.courseSessions[c], r.courseStudents[c], r.attendanceRate(c), r.lateRate(c));
+        }
+
+        Integer[] students = new Integer[r.studentNames.length];
+        for (int s = 0; s < students.length; s++) students[s] = s;
+
+        Arrays.sort(students, (a, b) -> Integer.compare(r.studentLongestStreak[b], r.studentLongestStreak[a]));
+        System.out.printf("%n  %-30s %7s  %s%n", "STUDENT (longest streak)", "STREAK", "COURSE");
+        for (int k = 0; k < Math.min(top, students.length); k++) {
+            int s = students[k];
+            System.out.printf("  %-30s %7d  %s%n", truncate(r.studentNames[s], 30),
+                    r.studentLongestStreak[s], r.courseNames[r.studentStreakCourse[s]]);
+        }
+
+        Arrays.sort(students, (a, b) -> Integer.compare(r.studentLate[b], r.studentLate[a]));
+        System.out.printf("%n  %-30s %7s %9s%n", "STUDENT (most late)", "LATE", "CHECK-INS");
+        for (int k = 0; k < Math.min(top, students.length) && r.studentLate[students[k]] > 0; k++) {
+            int s = students[k];
+            System.out.printf("  %-30s %7d %9d%n", truncate(r.studentNames[s], 30),
+                    r.studentLate[s], r.studentCheckIns[s]);
+        }
+    }
+
+    private static String truncate(String s, int width) {
+        return s.length() <= width ? s : s.substring(0, width - 1) + "…";
+    }
+
+    // ========================================
+    // ENTRY POINT
+    // ========================================
+    public static void main(String[] args) throws IOException {
+        String dir = "attendance_journal";
+        LocalTime start = LocalTime.of(8, 0);
+        int grace = 15;
+        Path schedule = null;
+        int bench = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--start":    start = LocalTime.parse(args[++i]); break;
+                case "--grace":    grace = Integer.parseInt(args[++i]); break;
+                case "--schedule": schedule = Paths.get(args[++i]); break;
+                case "--bench":    bench = Integer.parseInt(args[++i]); break;
+                default:           dir = args[i];
+            }
+        }
+
+        long t0 = System.nanoTime();
+        AttendanceAnalytics analytics;
+        if (bench > 0) {
+            analytics = synthetic(bench);
+        } else {
+            try (AttendanceJournal journal = AttendanceJournal.openReadOnly(Paths.get(dir))) {
+                analytics = load(journal);
+            }
+        }
+        analytics.setStartTime(start, grace);
+        if (schedule != null) analytics.loadSchedule(schedule);
+
+        long t1 = System.nanoTime();
+        Report report = analytics.analyze();
+        long t2 = System.nanoTime();
+
+        print(report, 10);
+        System.out.printf("%n  %s %.2f s | Analysis %.2f s%n",
+                bench > 0 ? "Generate" : "Load", (t1 - t0) / 1e9, (t2 - t1) / 1e9);
+    }
+
+    /**
+     * A semester for a campus: each student takes 6 of the courses, every
+     * course meets twice a week for 16 weeks, 85% attendance, arrival times
+     * spread around 8:00
+     */
+    static AttendanceAnalytics synthetic(int students) {
+        AttendanceAnalytics a = new AttendanceAnalytics();
+        Random random = new Random(7);
+        int courseCount = Math.max(6, students / 25);
+        String[] studentNames = new String[students];
+        for (int s = 0; s < students; s++) studentNames[s] = "Student " + s;
+        String[] courseNames = new String[courseCount];
+        for (int c = 0; c < courseCount; c++) courseNames[c] = "COURSE " + c;
+
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate monday = LocalDate.of(2026, 1, 5);
+        for (int week = 0; week < 16; week++) {
+            for (int meeting = 0; meeting < 2; meeting++) {
+                for (int dayOfWeek = 0; dayOfWeek < 3; dayOfWeek++) {   // course c meets on days c%3 and c%3+3
+                    long dayStart = monday.plusWeeks(week).plusDays(dayOfWeek + 3 * meeting)
+                            .atStartOfDay(zone).toInstant().toEpochMilli();
+                    for (int s = 0; s < students; s++) {
+                        for (int k = 0; k < 6; k++) {
+                            int c = (int) ((s * 7L + k * 131L) % courseCount);
+                            if (c % 3 != dayOfWeek || random.nextInt(100) >= 85) continue;
+                            long arrival = dayStart + 8 * 3_600_000L + (long) (random.nextGaussian() * 600_000);
+                            a.add(arrival, studentNames[s], courseNames[c]);
+                        }
+                    }
+                }
+            }
+        }
+        return a;
+    }
+}
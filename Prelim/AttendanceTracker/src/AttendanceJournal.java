@@ -0,0 +1,448 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32C;
+
+/**
+ * AttendanceJournal - durable, append-only log of attendance check-ins
+ *
+ * Check-ins are written as fixed-size binary records into memory-mapped
+ * segment files (attendance-000001.seg, attendance-000002.seg, ...). An
+ * append only copies bytes into the mapping; a background thread forces
+ * the segment to disk every few milliseconds, so a whole burst of check-ins
+ * shares one fsync (group commit). On open, the tail of the last segment is
+ * scanned and anything after the last valid record (torn or unflushed
+ * writes from a crash) is wiped.
+ *
+ * Only one writer may have the directory open: the constructor takes an
+ * exclusive lock on journal.lock and fails if another program holds it.
+ * Readers that must not disturb that writer use openReadOnly(), which maps
+ * the segments READ_ONLY, skips recovery and never writes.
+ *
+ * Record layout (RECORD_SIZE bytes, big-endian):
+ *   0  int    magic
+ *   4  int    CRC32C of bytes 8..RECORD_SIZE
+ *   8  long   sequence number (1, 2, 3, ... across segments)
+ *   16 long   check-in time, epoch millis
+ *   24 long   e-signature, high 64 bits
+ *   32 long   e-signature, low 64 bits
+ *   40 short  name length (UTF-8 bytes)
+ *   42 short  course length (UTF-8 bytes)
+ *   44        name bytes, then course bytes, zero padded
+ */
+public class AttendanceJournal implements AutoCloseable {
+
+    public static final int RECORD_SIZE = 256;
+    public static final int MAX_TEXT_BYTES = (RECORD_SIZE - 44) / 2;
+    public static final int RECORDS_PER_SEGMENT = 1 << 16;       // 16 MiB segments
+    public static final long COMMIT_INTERVAL_MILLIS = 5;
+
+    private static final int MAGIC = 0x41545431;                 // "ATT1"
+    private static final long SEGMENT_SIZE = (long) RECORD_SIZE * RECORDS_PER_SEGMENT;
+    private static final String PREFIX = "attendance-";
+    private static final String SUFFIX = ".seg";
+    private static final String LOCK_FILE = "journal.lock";
+
+    /**
+     * Receives the records of the journal in sequence order
+     */
+    public interface Visitor {
+        void record(long seq, long epochMillis, long sigHigh, long sigLow, String name, String course);
+    }
+
+    private final Path dir;
+    private final boolean readOnly;
+    private final FileChannel lockChannel;               // holds the writer lock; null when read-only
+    private final ScheduledExecutorService committer;    // null when read-only
+    private final CRC32C crc = new CRC32C();
+
+    // Guarded by this
+    private int segmentNumber;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int recordsInSegment;
+    private long lastSeq;
+
+    // Guarded by durableLock
+    private final Object durableLock = new Object();
+    private long durableSeq;
+    private IOException commitFailure;
+
+    /**
+     * Opens (or creates) the journal in the given directory for writing and
+     * recovers the tail
+     *
+     * @throws IOException if another program already has the journal open for writing
+     */
+    public AttendanceJournal(Path dir) throws IOException {
+        this.dir = dir;
+        this.readOnly = false;
+        Files.createDirectories(dir);
+        lockChannel = lock(dir);
+
+        try {
+            List<Path> segments = segments();
+            if (segments.isEmpty()) {
+                openSegment(1);
+            } else {
+                Path last = segments.get(segments.size() - 1);
+                openSegment(segmentNumber(last));
+                recoverTail(segments.size() > 1 ? lastSeqOf(segments.get(segments.size() - 2)) : 0);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) channel.close();
+            lockChannel.close();
+            throw e;
+        }
+        durableSeq = lastSeq;
+
+        committer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "attendance-journal-commit");
+            t.setDaemon(true);
+            return t;
+        });
+        committer.scheduleWithFixedDelay(this::commit,
+                COMMIT_INTERVAL_MILLIS, COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private AttendanceJournal(Path dir, boolean readOnly) {
+        this.dir = dir;
+        this.readOnly = readOnly;
+        this.lockChannel = null;
+        this.committer = null;
+    }
+
+    /**
+     * Opens the journal for scanning only. Takes no lock, so it can run next to
+     * a live writer: it sees every complete record that writer has appended,
+     * and a torn tail simply ends the scan. append() throws.
+     */
+    public static AttendanceJournal openReadOnly(Path dir) {
+        return new AttendanceJournal(dir, true);
+    }
+
+    // Exclusive lock on journal.lock, kept until close(); a second writer
+    // would recover and append over the same slots
+    private static FileChannel lock(Path dir) throws IOException {
+        FileChannel ch = FileChannel.open(dir.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = ch.tryLock();
+        } catch (OverlappingFileLockException e) {   // held by another journal in this JVM
+            lock = null;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+        if (lock == null) {
+            ch.close();
+            throw new IOException("The attendance journal in " + dir.toAbsolutePath()
+                    + " is already open in another program. Close it first.");
+        }
+        return ch;
+    }
+
+    // ========================================
+    // APPEND
+    // ========================================
+
+    /**
+     * Appends one check-in and returns its sequence number. Only copies the
+     * record into the mapped segment; it becomes durable at the next group
+     * commit (see awaitDurable).
+     *
+     * @throws IllegalArgumentException if name or course is too long to store
+     */
+    public long append(long epochMillis, long sigHigh, long sigLow, String name, String course) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] courseBytes = course.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > MAX_TEXT_BYTES) throw new IllegalArgumentException("Name is too long!");
+        if (courseBytes.length > MAX_TEXT_BYTES) throw new IllegalArgumentException("Course/year is too long!");
+
+        synchronized (this) {
+            if (readOnly) throw new IOException("Attendance journal is open read-only");
+            if (segment == null) throw new IOException("Attendance journal is closed");
+            if (recordsInSegment == RECORDS_PER_SEGMENT) rollSegment();
+
+            long seq = lastSeq + 1;
+            int base = recordsInSegment * RECORD_SIZE;
+            ByteBuffer record = segment.duplicate();
+            record.position(base + 8);
+            record.putLong(seq).putLong(epochMillis).putLong(sigHigh).putLong(sigLow)
+                  .putShort((short) nameBytes.length).putShort((short) courseBytes.length)
+                  .put(nameBytes).put(courseBytes);
+
+            segment.putInt(base + 4, checksum(base));
+            segment.putInt(base, MAGIC);
+
+            recordsInSegment++;
+            lastSeq = seq;
+            return seq;
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number is on disk
+     */
+    public void awaitDurable(long seq) throws IOException, InterruptedException {
+        synchronized (durableLock) {
+            while (durableSeq < seq) {
+                if (commitFailure != null) throw commitFailure;
+                durableLock.wait();
+            }
+        }
+    }
+
+    /**
+     * Sequence number of the last record appended (0 for a read-only journal)
+     */
+    public synchronized long lastSequence() {
+        return lastSeq;
+    }
+
+    // Group commit: one force() for everything appended since the last one
+    private void commit() {
+        long target;
+        MappedByteBuffer current;
+        synchronized (this) {
+            target = lastSeq;
+            current = segment;
+        }
+        synchronized (durableLock) {
+            if (target == durableSeq || current == null) return;
+        }
+        try {
+            long start = System.nanoTime();
+            current.force();
+            Metrics.record("journal.force", System.nanoTime() - start);
+            markDurable(target, null);
+        } catch (RuntimeException e) {   // force() reports I/O errors unchecked
+            markDurable(-1, new IOException("Could not flush attendance journal", e));
+        }
+    }
+
+    private void markDurable(long seq, IOException failure) {
+        synchronized (durableLock) {
+            if (failure != null) commitFailure = failure;
+            else if (seq > durableSeq) durableSeq = seq;
+            durableLock.notifyAll();
+        }
+    }
+
+    // Full segment: flush it before moving on, so only the last one needs recovery
+    private void rollSegment() throws IOException {
+        segment.force();
+        markDurable(lastSeq, null);
+        channel.close();
+        openSegment(segmentNumber + 1);
+    }
+
+    // ========================================
+    // SEGMENT FILES
+    // ========================================
+    private void openSegment(int number) throws IOException {
+        segmentNumber = number;
+        channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        recordsInSegment = 0;
+    }
+
+    private Path segmentPath(int number) {
+        return dir.resolve(String.format("%s%06d%s", PREFIX, number, SUFFIX));
+    }
+
+    private static int segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> result = new ArrayList<>();
+        if (readOnly && !Files.isDirectory(dir)) return result;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path p : stream) result.add(p);
+        }
+        result.sort(Comparator.comparingInt(AttendanceJournal::segmentNumber));
+        return result;
+    }
+
+    // ========================================
+    // RECOVERY
+    // ========================================
+
+    /**
+     * Scans the current segment for the last valid record (right magic, CRC
+     * and sequence number) and zeroes everything after it
+     */
+    private void recoverTail(long previousSeq) {
+        long expected = previousSeq + 1;
+        int count = 0;
+        while (count < RECORDS_PER_SEGMENT && valid(segment, count * RECORD_SIZE, expected)) {
+            count++;
+            expected++;
+        }
+        recordsInSegment = count;
+        lastSeq = expected - 1;
+
+        // Wipe the torn tail so a stale record can never be picked up later
+        boolean wiped = false;
+        for (int i = count * RECORD_SIZE; i < SEGMENT_SIZE; i += 8) {
+            if (segment.getLong(i) != 0L) {
+                segment.putLong(i, 0L);
+                wiped = true;
+            }
+        }
+        if (wiped) segment.force();
+    }
+
+    private long lastSeqOf(Path segmentFile) throws IOException {
+        try (FileChannel ch = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(8);
+            ch.read(last, SEGMENT_SIZE - RECORD_SIZE + 8);
+            return last.getLong(0);
+        }
+    }
+
+    private boolean valid(ByteBuffer buf, int base, long expectedSeq) {
+        return buf.getInt(base) == MAGIC
+                && buf.getLong(base + 8) == expectedSeq
+                && buf.getInt(base + 4) == checksum(buf, base);
+    }
+
+    private int checksum(int base) {
+        return checksum(segment, base);
+    }
+
+    private int checksum(ByteBuffer buf, int base) {
+        ByteBuffer body = buf.duplicate();
+        body.limit(base + RECORD_SIZE).position(base + 8);
+        crc.reset();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    // ========================================
+    // READING
+    // ========================================
+
+    /**
+     * Visits every record appended so far, oldest first
+     */
+    public void scan(Visitor visitor) throws IOException {
+        scanFrom(Long.MIN_VALUE, visitor);
+    }
+
+    /**
+     * Visits the records stamped at or after fromMillis, oldest first. Records
+     * are appended in time order, so a full segment whose last record is older
+     * is skipped after reading that one record.
+     */
+    public void scanFrom(long fromMillis, Visitor visitor) throws IOException {
+        List<Path> files;
+        long lastVisible;
+        synchronized (this) {
+            files = segments();
+            lastVisible = readOnly ? Long.MAX_VALUE : lastSeq;
+        }
+        CRC32C readCrc = new CRC32C();
+        long seq = 0;
+        for (int f = 0; f < files.size(); f++) {
+            try (FileChannel ch = FileChannel.open(files.get(f), StandardOpenOption.READ)) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(ch.size(), SEGMENT_SIZE));
+                int last = (RECORDS_PER_SEGMENT - 1) * RECORD_SIZE;
+                if (f < files.size() - 1 && buf.capacity() == SEGMENT_SIZE && buf.getInt(last) == MAGIC
+                        && buf.getLong(last + 16) < fromMillis) {
+                    seq = buf.getLong(last + 8);
+                    continue;
+                }
+                for (int base = 0; base + RECORD_SIZE <= buf.capacity() && seq < lastVisible; base += RECORD_SIZE) {
+                    if (buf.getInt(base) != MAGIC || buf.getLong(base + 8) != seq + 1) break;
+                    ByteBuffer body = buf.duplicate();
+                    body.limit(base + RECORD_SIZE).position(base + 8);
+                    readCrc.reset();
+                    readCrc.update(body);
+                    if ((int) readCrc.getValue() != buf.getInt(base + 4)) break;
+
+                    seq++;
+                    if (buf.getLong(base + 16) < fromMillis) continue;
+                    int nameLen = buf.getShort(base + 40);
+                    int courseLen = buf.getShort(base + 42);
+                    byte[] text = new byte[nameLen + courseLen];
+                    buf.get(base + 44, text);
+                    visitor.record(seq, buf.getLong(base + 16), buf.getLong(base + 24), buf.getLong(base + 32),
+                            new String(text, 0, nameLen, StandardCharsets.UTF_8),
+                            new String(text, nameLen, courseLen, StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the committer, forces the last records to disk, unmaps the segment
+     * and releases the writer lock
+     */
+    @Override
+    public void close() throws IOException {
+        if (readOnly) return;
+        committer.shutdown();
+        try {
+            committer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (segment == null) return;
+            segment.force();
+            markDurable(lastSeq, null);
+            channel.close();
+            segment = null;
+            lockChannel.close();
+        }
+    }
+
+    // ========================================
+    // BENCHMARK: java AttendanceJournal [dir] [count] [threads]
+    // ========================================
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "attendance_journal_bench");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        try (AttendanceJournal journal = new AttendanceJournal(dir)) {
+            long start = System.nanoTime();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                futures.add(pool.submit(() -> {
+                    long seq = 0;
+                    for (int i = id; i < count; i += threads) {
+                        seq = journal.append(System.currentTimeMillis(), i, id,
+                                "Student " + i, "BSCS " + (1 + i % 4) + " Year");
+                    }
+                    journal.awaitDurable(seq);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+            pool.shutdown();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%,d durable check-ins in %.2f s (%,.0f per second), last seq %,d%n",
+                    count, seconds, count / seconds, journal.lastSequence());
+
+            long[] seen = new long[1];
+            start = System.nanoTime();
+            journal.scan((seq, millis, hi, lo, name, course) -> seen[0]++);
+            System.out.printf("Scanned %,d records in %.2f s%n", seen[0], (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
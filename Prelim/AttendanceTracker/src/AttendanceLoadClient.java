@@ -0,0 +1,85 @@
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AttendanceLoadClient - load generator for AttendanceServer
+ *
+ * Simulates many kiosks on loopback. Each simulated client sends its
+ * check-ins one after another (the next one goes out when the previous
+ * answer arrives), and every request's latency is recorded. At the end the
+ * p50/p90/p99/max latencies and the overall check-in rate are printed.
+ *
+ * Usage: java AttendanceLoadClient [url] [clients] [checkInsPerClient]
+ */
+public class AttendanceLoadClient {
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://127.0.0.1:" + AttendanceServer.DEFAULT_PORT + "/checkin";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int perClient = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        URI uri = URI.create(url);
+
+        long[] latencies = new long[clients * perClient];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+
+        System.out.printf("%,d clients x %,d check-ins -> %s%n", clients, perClient, url);
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            send(http, uri, c, 0, perClient, latencies, next, failures, done);
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int n = next.get();
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        System.out.printf("  Completed : %,d check-ins (%,d failed) in %.2f s, %,.0f per second%n",
+                n, failures.get(), seconds, n / seconds);
+        System.out.printf("  Latency   : p50 %.2f ms | p90 %.2f ms | p99 %.2f ms | max %.2f ms%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                n == 0 ? 0 : sorted[n - 1] / 1e6);
+    }
+
+    // One simulated kiosk: send check-in i, then the next when it completes
+    private static void send(HttpClient http, URI uri, int client, int i, int perClient, long[] latencies,
+                             AtomicInteger next, AtomicInteger failures, CountDownLatch done) {
+        if (i == perClient) {
+            done.countDown();
+            return;
+        }
+        String body = "name=" + URLEncoder.encode("Student " + client, StandardCharsets.UTF_8)
+                + "&course=" + URLEncoder.encode("BSCS " + (1 + client % 4) + " Year #" + i, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long sent = System.nanoTime();
+        http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            latencies[next.getAndIncrement()] = System.nanoTime() - sent;
+            if (error != null || response.statusCode() != 200) failures.incrementAndGet();
+            send(http, uri, client, i + 1, perClient, latencies, next, failures, done);
+        });
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,226 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * AttendanceServer - headless check-in endpoint for kiosks
+ *
+ * Runs the attendance tracker without a window and accepts check-ins over
+ * HTTP on the loopback interface:
+ *
+ *   POST /checkin   name=Juan+Dela+Cruz&course=BSCS+3rd+Year
+ *   200 {"seq":12,"timeIn":"...","signature":"..."}
+ *   400 {"error":"Please enter your name!"}
+ *   409 {"error":"Already checked in to this course today"}
+ *
+ * Name and course are validated exactly like the Swing form, and every
+ * check-in goes to the shared AttendanceJournal. A request is answered only
+ * once its record is on disk; since the journal group-commits, concurrent
+ * kiosks share fsyncs instead of queueing behind each other.
+ *
+ * Signatures default to time-ordered ids; -Dattendance.signature=random|hmac
+ * picks another SignatureGenerator.
+ *
+ * Start with: java AttendanceTracker --headless [port] [journalDir]
+ */
+@SuppressWarnings("try")
+public class AttendanceServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    // Handler threads mostly wait on the group commit, so keep plenty of them
+    private static final int HANDLER_THREADS = 256;
+    private static final int BACKLOG = 4096;
+    private static final int MAX_BODY_BYTES = 4096;
+
+    static {
+        // Headers and body go out as separate writes; without TCP_NODELAY every
+        // response waits ~40 ms on Nagle + delayed ACK. Must be set before the
+        // first HttpServer is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final AttendanceJournal journal;
+    private final SignatureGenerator signatures;
+    private final CheckInDedup dedup;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+
+    public AttendanceServer(AttendanceJournal journal, SignatureGenerator signatures, CheckInDedup dedup, int port)
+            throws IOException {
+        this.journal = journal;
+        this.signatures = signatures;
+        this.dedup = dedup;
+        this.handlers = new ThreadPoolExecutor(HANDLER_THREADS, HANDLER_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "checkin-handler");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), BACKLOG);
+        server.createContext("/checkin", this::handleCheckIn);
+        server.setExecutor(handlers);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting check-ins and waits briefly for in-flight ones
+     */
+    public void stop() {
+        server.stop(1);
+        handlers.shutdown();
+    }
+
+    // ========================================
+    // POST /checkin
+    // ========================================
+    private void handleCheckIn(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "{\"error\":\"Use POST\"}");
+                return;
+            }
+
+            Map<String, String> form = parseForm(readBody(exchange.getRequestBody()));
+            String name = form.getOrDefault("name", "").trim();
+            String course = form.getOrDefault("course", "").trim();
+
+            String error = AttendanceTracker.validate(name, course);
+            if (error != null) {
+                respond(exchange, 400, "{\"error\":\"" + jsonEscape(error) + "\"}");
+                return;
+            }
+
+            long epochMillis = System.currentTimeMillis();
+            if (!dedup.add(name, course, epochMillis)) {
+                respond(exchange, 409, "{\"error\":\"Already checked in to this course today\"}");
+                return;
+            }
+
+            UUID signature = signatures.sign(name, course, epochMillis);
+            long seq;
+            try {
+                seq = journal.append(epochMillis, signature.getMostSignificantBits(),
+                        signature.getLeastSignificantBits(), name, course);
+            } catch (IOException e) {
+                dedup.remove(name, course, epochMillis);
+                throw e;
+            }
+            long appended = System.nanoTime();
+            try {
+                journal.awaitDurable(seq);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, "{\"error\":\"Server is shutting down\"}");
+                return;
+            }
+            Metrics.record("journal.awaitDurable", System.nanoTime() - appended);
+
+            respond(exchange, 200, "{\"seq\":" + seq
+                    + ",\"timeIn\":\"" + jsonEscape(AttendanceTracker.formatTimeIn(epochMillis))
+                    + "\",\"signature\":\"" + SignatureGenerator.format(signature) + "\"}");
+        } catch (IOException e) {
+            respond(exchange, 500, "{\"error\":\"" + jsonEscape(String.valueOf(e.getMessage())) + "\"}");
+        } finally {
+            exchange.close();
+            Metrics.record("checkin.latency", System.nanoTime() - start);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) throw new IOException("Request body too large");
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    // application/x-www-form-urlencoded
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            form.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                     URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return form;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        Metrics.count("http." + status);
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static String jsonEscape(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Headless entry point: [port] [journalDir]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path dir = Paths.get(args.length > 1 ? args[1] : "attendance_journal");
+
+        AttendanceJournal journal;
+        SignatureGenerator signatures;
+        CheckInDedup dedup;
+        try (Metrics.Phase phase = Metrics.phase("open")) {
+            journal = new AttendanceJournal(dir);
+            signatures = SignatureGenerator.fromProperty("time", dir.resolve("signature.key"));
+            dedup = CheckInDedup.fromJournal(journal, 100_000, true);
+        }
+        AttendanceServer server = new AttendanceServer(journal, signatures, dedup, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            Metrics.dump();
+        }));
+        server.start();
+        System.out.println("Attendance server listening on http://127.0.0.1:" + server.port() + "/checkin");
+    }
+}
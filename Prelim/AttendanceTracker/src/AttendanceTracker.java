@@ -1,6 +1,9 @@
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
 import java.util.UUID;
 import javax.swing.*;
 
@@ -8,6 +11,7 @@ import javax.swing.*;
  * AttendanceTracker - A Beautiful Java Swing application for tracking attendance
  * Features modern UI design with gradients, shadows, and smooth animations
  */
+@SuppressWarnings("try")
 public class AttendanceTracker extends JFrame {
     // UI Components
     private JTextField nameField;
@@ -17,14 +21,10 @@ public class AttendanceTracker extends JFrame {
     private JButton submitButton;
     private JButton clearButton;
 
-    // Color Scheme - Modern blue gradient theme
-    private final Color PRIMARY_COLOR = new Color(79, 70, 229); // Indigo
-    private final Color SECONDARY_COLOR = new Color(99, 102, 241); // Light Indigo
-    private final Color ACCENT_COLOR = new Color(234, 88, 12); // Orange
-    private final Color SUCCESS_COLOR = new Color(34, 197, 94); // Green
-    private final Color BACKGROUND_COLOR = new Color(248, 250, 252); // Light gray
-    private final Color TEXT_COLOR = new Color(51, 65, 85); // Dark gray
-    private final Color FIELD_BG = Color.WHITE;
+    // Durable log of every recorded check-in
+    private AttendanceJournal journal;
+    private SignatureGenerator signatures;
+    private CheckInDedup dedup;
 
     /**
      * Constructor - Initializes the beautiful attendance tracker window
@@ -38,11 +38,19 @@ public class AttendanceTracker extends JFrame {
         setLocationRelativeTo(null); // Center the window on screen
 
         // Set background color
-        getContentPane().setBackground(BACKGROUND_COLOR);
+        getContentPane().setBackground(UIResources.BACKGROUND_COLOR);
 
         // Initialize components
         initializeComponents();
 
+        // Open the attendance journal and flush it when the window closes
+        openJournal();
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            public void windowClosing(java.awt.event.WindowEvent evt) {
+                closeJournal();
+            }
+        });
+
         // Make the frame visible
         setVisible(true);
     }
@@ -55,7 +63,7 @@ public class AttendanceTracker extends JFrame {
         JPanel mainPanel = new JPanel();
         mainPanel.setLayout(new BorderLayout(15, 15));
         mainPanel.setBorder(BorderFactory.createEmptyBorder(30, 40, 30, 40));
-        mainPanel.setBackground(BACKGROUND_COLOR);
+        mainPanel.setBackground(UIResources.BACKGROUND_COLOR);
 
         // Create header panel with gradient effect
         JPanel headerPanel = createHeaderPanel();
@@ -78,7 +86,7 @@ public class AttendanceTracker extends JFrame {
 
         // Create container with footer
         JPanel container = new JPanel(new BorderLayout());
-        container.setBackground(BACKGROUND_COLOR);
+        container.setBackground(UIResources.BACKGROUND_COLOR);
         container.add(mainPanel, BorderLayout.CENTER);
         container.add(footerPanel, BorderLayout.SOUTH);
 
@@ -92,12 +100,12 @@ public class AttendanceTracker extends JFrame {
     private JPanel createHeaderPanel() {
         JPanel headerPanel = new JPanel();
         headerPanel.setLayout(new BorderLayout());
-        headerPanel.setBackground(BACKGROUND_COLOR);
+        headerPanel.setBackground(UIResources.BACKGROUND_COLOR);
         headerPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 20, 0));
 
         // Title with icon
         JPanel titleContainer = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
-        titleContainer.setBackground(BACKGROUND_COLOR);
+        titleContainer.setBackground(UIResources.BACKGROUND_COLOR);
 
         // Create a custom icon panel with colored circle and checkmark
         JPanel iconPanel = new JPanel() {
@@ -108,7 +116,7 @@ public class AttendanceTracker extends JFrame {
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
                 // Draw circle
-                g2d.setColor(PRIMARY_COLOR);
+                g2d.setColor(UIResources.PRIMARY_COLOR);
                 g2d.fillOval(5, 5, 50, 50);
 
                 // Draw checkmark
@@ -123,20 +131,20 @@ public class AttendanceTracker extends JFrame {
                 return new Dimension(60, 60);
             }
         };
-        iconPanel.setBackground(BACKGROUND_COLOR);
+        iconPanel.setBackground(UIResources.BACKGROUND_COLOR);
 
         // Title
         JLabel titleLabel = new JLabel("Attendance Tracker");
-        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 36));
-        titleLabel.setForeground(TEXT_COLOR);
+        titleLabel.setFont(UIResources.TITLE_FONT);
+        titleLabel.setForeground(UIResources.TEXT_COLOR);
 
         titleContainer.add(iconPanel);
         titleContainer.add(titleLabel);
 
         // Subtitle
         JLabel subtitleLabel = new JLabel("Track your attendance with ease");
-        subtitleLabel.setFont(new Font("Segoe UI", Font.PLAIN, 16));
-        subtitleLabel.setForeground(new Color(100, 116, 139));
+        subtitleLabel.setFont(UIResources.SUBTITLE_FONT);
+        subtitleLabel.setForeground(UIResources.MUTED_TEXT_COLOR);
         subtitleLabel.setHorizontalAlignment(SwingConstants.CENTER);
 
         headerPanel.add(titleContainer, BorderLayout.CENTER);
@@ -151,7 +159,7 @@ public class AttendanceTracker extends JFrame {
     private JPanel createFormPanel() {
         JPanel formPanel = new JPanel();
         formPanel.setLayout(new GridBagLayout());
-        formPanel.setBackground(BACKGROUND_COLOR);
+        formPanel.setBackground(UIResources.BACKGROUND_COLOR);
 
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(12, 15, 12, 15);
@@ -166,6 +174,7 @@ public class AttendanceTracker extends JFrame {
         gbc.gridx = 1;
         gbc.weightx = 1.0;
         nameField = createStyledTextField("e.g., Juan Dela Cruz");
+        NameAutocomplete.install(nameField);
         formPanel.add(nameField, gbc);
 
         // Row 1: Course/Year
@@ -189,8 +198,8 @@ public class AttendanceTracker extends JFrame {
         gbc.weightx = 1.0;
         timeInField = createStyledTextField("Click submit to generate");
         timeInField.setEditable(false);
-        timeInField.setBackground(new Color(241, 245, 249));
-        timeInField.setForeground(new Color(100, 116, 139));
+        timeInField.setBackground(UIResources.READ_ONLY_BG);
+        timeInField.setForeground(UIResources.MUTED_TEXT_COLOR);
         formPanel.add(timeInField, gbc);
 
         // Row 3: E-Signature
@@ -203,9 +212,9 @@ public class AttendanceTracker extends JFrame {
         gbc.weightx = 1.0;
         eSignatureField = createStyledTextField("Auto-generated");
         eSignatureField.setEditable(false);
-        eSignatureField.setBackground(new Color(241, 245, 249));
-        eSignatureField.setForeground(new Color(100, 116, 139));
-        eSignatureField.setFont(new Font("Consolas", Font.PLAIN, 13));
+        eSignatureField.setBackground(UIResources.READ_ONLY_BG);
+        eSignatureField.setForeground(UIResources.MUTED_TEXT_COLOR);
+        eSignatureField.setFont(UIResources.SIGNATURE_FONT);
         formPanel.add(eSignatureField, gbc);
 
         return formPanel;
@@ -216,11 +225,11 @@ public class AttendanceTracker extends JFrame {
      */
     private JPanel createFieldLabel(String text, String tooltip) {
         JPanel labelPanel = new JPanel(new BorderLayout());
-        labelPanel.setBackground(BACKGROUND_COLOR);
+        labelPanel.setBackground(UIResources.BACKGROUND_COLOR);
 
         JLabel label = new JLabel(text);
-        label.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        label.setForeground(TEXT_COLOR);
+        label.setFont(UIResources.LABEL_FONT);
+        label.setForeground(UIResources.TEXT_COLOR);
         label.setToolTipText(tooltip);
 
         labelPanel.add(label, BorderLayout.WEST);
@@ -232,28 +241,19 @@ public class AttendanceTracker extends JFrame {
      */
     private JTextField createStyledTextField(String placeholder) {
         JTextField field = new JTextField(25);
-        field.setFont(new Font("Segoe UI", Font.PLAIN, 16));
-        field.setForeground(TEXT_COLOR);
-        field.setBackground(FIELD_BG);
-        field.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(new Color(203, 213, 225), 2),
-            BorderFactory.createEmptyBorder(12, 18, 12, 18)
-        ));
-
-        // Add focus effect
+        field.setFont(UIResources.FIELD_FONT);
+        field.setForeground(UIResources.TEXT_COLOR);
+        field.setBackground(UIResources.FIELD_BG);
+        field.setBorder(UIResources.FIELD_BORDER);
+
+        // Add focus effect (shared border instances, nothing allocated per event)
         field.addFocusListener(new java.awt.event.FocusAdapter() {
             public void focusGained(java.awt.event.FocusEvent evt) {
-                field.setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createLineBorder(PRIMARY_COLOR, 2),
-                    BorderFactory.createEmptyBorder(12, 18, 12, 18)
-                ));
+                field.setBorder(UIResources.FIELD_FOCUS_BORDER);
             }
 
             public void focusLost(java.awt.event.FocusEvent evt) {
-                field.setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createLineBorder(new Color(203, 213, 225), 2),
-                    BorderFactory.createEmptyBorder(12, 18, 12, 18)
-                ));
+                field.setBorder(UIResources.FIELD_BORDER);
             }
         });
 
@@ -266,14 +266,14 @@ public class AttendanceTracker extends JFrame {
     private JPanel createButtonPanel() {
         JPanel buttonPanel = new JPanel();
         buttonPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 20));
-        buttonPanel.setBackground(BACKGROUND_COLOR);
+        buttonPanel.setBackground(UIResources.BACKGROUND_COLOR);
 
         // Submit button with gradient effect
-        submitButton = createStyledButton("✓ Submit Attendance", PRIMARY_COLOR, SECONDARY_COLOR);
+        submitButton = createStyledButton("✓ Submit Attendance", UIResources.PRIMARY_COLOR, UIResources.SECONDARY_COLOR);
         submitButton.addActionListener(e -> submitAttendance());
 
         // Clear button
-        clearButton = createStyledButton("↻ Clear Form", new Color(239, 68, 68), new Color(220, 38, 38));
+        clearButton = createStyledButton("↻ Clear Form", UIResources.DANGER_COLOR, UIResources.DANGER_HOVER_COLOR);
         clearButton.addActionListener(e -> clearForm());
 
         buttonPanel.add(submitButton);
@@ -287,14 +287,14 @@ public class AttendanceTracker extends JFrame {
      */
     private JButton createStyledButton(String text, Color bgColor, Color hoverColor) {
         JButton button = new JButton(text);
-        button.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        button.setFont(UIResources.BUTTON_FONT);
         button.setForeground(Color.WHITE);
         button.setBackground(bgColor);
         button.setFocusPainted(false);
         button.setBorderPainted(false);
         button.setPreferredSize(new Dimension(220, 50));
-        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        button.setBorder(BorderFactory.createEmptyBorder(12, 30, 12, 30));
+        button.setCursor(UIResources.HAND_CURSOR);
+        button.setBorder(UIResources.BUTTON_BORDER);
 
         // Add hover effect
         button.addMouseListener(new java.awt.event.MouseAdapter() {
@@ -318,12 +318,12 @@ public class AttendanceTracker extends JFrame {
      */
     private JPanel createFooterPanel() {
         JPanel footerPanel = new JPanel();
-        footerPanel.setBackground(new Color(241, 245, 249));
+        footerPanel.setBackground(UIResources.READ_ONLY_BG);
         footerPanel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
 
         JLabel footerLabel = new JLabel("© 2026 Created By: John Cleo Tinsay");
-        footerLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-        footerLabel.setForeground(new Color(100, 116, 139));
+        footerLabel.setFont(UIResources.FOOTER_FONT);
+        footerLabel.setForeground(UIResources.MUTED_TEXT_COLOR);
 
         footerPanel.add(footerLabel);
         return footerPanel;
@@ -334,53 +334,73 @@ public class AttendanceTracker extends JFrame {
      */
     private void submitAttendance() {
         // Validate input fields
-        if (nameField.getText().trim().isEmpty()) {
+        String nameError = validateName(nameField.getText().trim());
+        if (nameError != null) {
+            showStyledMessage(nameError, "Validation Error", JOptionPane.ERROR_MESSAGE);
+            nameField.requestFocus();
+            return;
+        }
+
+        String courseError = validateCourse(courseField.getText().trim());
+        if (courseError != null) {
+            showStyledMessage(courseError, "Validation Error", JOptionPane.ERROR_MESSAGE);
+            courseField.requestFocus();
+            return;
+        }
+
+        // Generate current date and time with beautiful format
+        long epochMillis = System.currentTimeMillis();
+        String timeIn = formatTimeIn(epochMillis);
+
+        if (journal == null) {
             showStyledMessage(
-                "Please enter your name!",
-                "Validation Error",
+                "Attendance journal is not available, nothing was recorded.",
+                "Storage Error",
                 JOptionPane.ERROR_MESSAGE
             );
-            nameField.requestFocus();
             return;
         }
 
-        if (courseField.getText().trim().isEmpty()) {
+        // Generate unique e-signature (UUID by default, see SignatureGenerator)
+        String name = nameField.getText().trim();
+        String course = courseField.getText().trim();
+        UUID signature = signatures.sign(name, course, epochMillis);
+        String eSignature = SignatureGenerator.format(signature);
+
+        // One check-in per person, course and day
+        if (!dedup.add(name, course, epochMillis)) {
+            Metrics.count("checkin.duplicate");
             showStyledMessage(
-                "Please enter your course/year!",
-                "Validation Error",
+                name + " has already checked in to " + course + " today.",
+                "Duplicate Check-in",
+                JOptionPane.WARNING_MESSAGE
+            );
+            return;
+        }
+
+        // Record the check-in in the journal before confirming it
+        long appendStart = System.nanoTime();
+        try {
+            journal.append(epochMillis, signature.getMostSignificantBits(), signature.getLeastSignificantBits(),
+                    name, course);
+        } catch (IOException e) {
+            dedup.remove(name, course, epochMillis);
+            showStyledMessage(
+                "Could not record attendance: " + e.getMessage(),
+                "Storage Error",
                 JOptionPane.ERROR_MESSAGE
             );
-            courseField.requestFocus();
             return;
         }
 
-        // Generate current date and time with beautiful format
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM dd, yyyy • hh:mm:ss a");
-        String timeIn = now.format(formatter);
-        timeInField.setText(timeIn);
+        Metrics.record("journal.append", System.nanoTime() - appendStart);
+        Metrics.count("checkin.accepted");
 
-        // Generate unique e-signature using UUID
-        String eSignature = UUID.randomUUID().toString().toUpperCase();
+        timeInField.setText(timeIn);
         eSignatureField.setText(eSignature);
 
         // Show beautiful success message
-        String message = String.format(
-            "<html>" +
-            "<div style='padding: 15px; font-family: Segoe UI;'>" +
-            "<div style='font-size: 18px; font-weight: bold; color: #22c55e; margin-bottom: 10px;'>✓ Success!</div>" +
-            "<div style='font-size: 14px; color: #64748b; margin-bottom: 15px;'>Attendance recorded successfully</div>" +
-            "<hr style='border: 1px solid #e2e8f0;'>" +
-            "<div style='margin-top: 15px; font-size: 13px;'>" +
-            "<div style='margin: 5px 0;'><b>Name:</b> %s</div>" +
-            "<div style='margin: 5px 0;'><b>Course:</b> %s</div>" +
-            "<div style='margin: 5px 0;'><b>Time:</b> %s</div>" +
-            "</div>" +
-            "</html>",
-            nameField.getText(),
-            courseField.getText(),
-            timeIn
-        );
+        String message = UIResources.successMessage(name, course, timeIn);
 
         JOptionPane.showMessageDialog(
             this,
@@ -390,6 +410,69 @@ public class AttendanceTracker extends JFrame {
         );
     }
 
+    /**
+     * Validate a check-in - returns the error message, or null if it is valid.
+     * Shared by the Swing form and the headless server.
+     */
+    static String validate(String name, String course) {
+        String error = validateName(name);
+        return error != null ? error : validateCourse(course);
+    }
+
+    static String validateName(String name) {
+        if (name.isEmpty()) return "Please enter your name!";
+        if (utf8Length(name) > AttendanceJournal.MAX_TEXT_BYTES) return "Name is too long!";
+        return null;
+    }
+
+    static String validateCourse(String course) {
+        if (course.isEmpty()) return "Please enter your course/year!";
+        if (utf8Length(course) > AttendanceJournal.MAX_TEXT_BYTES) return "Course/year is too long!";
+        return null;
+    }
+
+    private static int utf8Length(String s) {
+        return s.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Format a check-in time the way the form displays it
+     */
+    static String formatTimeIn(long epochMillis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        return time.format(UIResources.TIME_IN_FORMAT);
+    }
+
+    /**
+     * Open the attendance journal next to the application, and the signature
+     * generator chosen with -Dattendance.signature (default: random UUID)
+     */
+    private void openJournal() {
+        try (Metrics.Phase phase = Metrics.phase("open")) {
+            signatures = SignatureGenerator.fromProperty("random", Paths.get("attendance_journal", "signature.key"));
+            journal = new AttendanceJournal(Paths.get("attendance_journal"));
+            dedup = CheckInDedup.fromJournal(journal, 1024, false);
+        } catch (IOException e) {
+            showStyledMessage(
+                "Could not open the attendance journal: " + e.getMessage(),
+                "Storage Error",
+                JOptionPane.ERROR_MESSAGE
+            );
+        }
+    }
+
+    /**
+     * Force pending check-ins to disk before exit
+     */
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Show styled message dialog
      */
@@ -419,7 +502,16 @@ public class AttendanceTracker extends JFrame {
     /**
      * Main method - entry point of the application
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // --metrics[=file] anywhere on the command line prints timings at exit
+        args = Metrics.init("AttendanceTracker", args);
+
+        // Kiosk/server mode: java AttendanceTracker --headless [port] [journalDir]
+        if (args.length > 0 && args[0].equals("--headless")) {
+            AttendanceServer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         // Set system look and feel for better appearance
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -427,6 +519,10 @@ public class AttendanceTracker extends JFrame {
             e.printStackTrace();
         }
 
+        // Optional EDT latency probe: -Dattendance.edtProbe=true
+        EdtProbe.installIfEnabled();
+        Metrics.dumpOnExit();
+
         // Use SwingUtilities to ensure thread safety
         SwingUtilities.invokeLater(() -> {
             new AttendanceTracker();
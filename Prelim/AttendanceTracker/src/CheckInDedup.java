@@ -0,0 +1,279 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CheckInDedup - rejects a second check-in for the same person, course and session
+ *
+ * The key is name + course + session, normalized (trimmed, inner whitespace
+ * collapsed, lower case), and a session is one calendar day in the local time
+ * zone. Each key is reduced to a 64-bit fingerprint stored in an
+ * open-addressing long[] table with linear probing, one table per session,
+ * so a lookup is a hash and a few probes with no allocation. Memory is 8-16
+ * bytes per check-in; two different keys colliding on all 64 bits is
+ * possible in theory but about 1 in 10^9 even for a million check-ins a day.
+ *
+ * For very large sessions a Bloom filter can sit in front of the table. Most
+ * check-ins are first-time ones, and the small bit array answers "definitely
+ * new" for them without touching the much larger table.
+ *
+ * Only the last RETAINED_DAYS sessions are kept: the first check-in of a new
+ * day frees the tables of older days, so memory stays bounded by a couple of
+ * days of check-ins however long the server runs. Yesterday is kept for
+ * requests stamped just before midnight that arrive just after it.
+ */
+public class CheckInDedup {
+
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    static final int RETAINED_DAYS = 2;
+
+    private final int expectedPerSession;
+    private final boolean bloomFront;
+    private final ZoneId zone;
+    private volatile long[] cachedDay = {0, 0, 0};       // {startMillis, endMillis, epochDay}
+    private final Map<Long, Session> sessions = new HashMap<>();
+    private long newestDay = Long.MIN_VALUE;
+
+    /**
+     * @param expectedPerSession sizing hint; the tables still grow past it
+     * @param bloomFront         put a Bloom filter in front of each session's table
+     */
+    public CheckInDedup(int expectedPerSession, boolean bloomFront) {
+        this.expectedPerSession = Math.max(16, expectedPerSession);
+        this.bloomFront = bloomFront;
+        this.zone = ZoneId.systemDefault();
+    }
+
+    /**
+     * Dedup index primed with the retained days' check-ins from the journal,
+     * so a restart does not let anyone check in twice. Older journal segments
+     * are skipped without being read.
+     */
+    public static CheckInDedup fromJournal(AttendanceJournal journal, int expectedPerSession, boolean bloomFront)
+            throws java.io.IOException {
+        CheckInDedup dedup = new CheckInDedup(expectedPerSession, bloomFront);
+        LocalDate first = LocalDate.now(dedup.zone).minusDays(RETAINED_DAYS - 1);
+        long from = first.atStartOfDay(dedup.zone).toInstant().toEpochMilli();
+        journal.scanFrom(from, (seq, epochMillis, sigHigh, sigLow, name, course) ->
+                dedup.add(name, course, epochMillis));
+        return dedup;
+    }
+
+    /**
+     * Records the check-in; returns false if this person already checked in
+     * to this course in the same session
+     */
+    public synchronized boolean add(String name, String course, long epochMillis) {
+        long day = epochDay(epochMillis);
+        return session(day).add(fingerprint(name, course, day));
+    }
+
+    /**
+     * Forgets a check-in again, e.g. when it could not be written to the journal
+     */
+    public synchronized void remove(String name, String course, long epochMillis) {
+        long day = epochDay(epochMillis);
+        Session s = sessions.get(day);
+        if (s != null) s.remove(fingerprint(name, course, day));
+    }
+
+    // Nearly every check-in falls on the same day, so remember that day's bounds
+    long epochDay(long epochMillis) {
+        long[] cached = cachedDay;
+        if (epochMillis >= cached[0] && epochMillis < cached[1]) return cached[2];
+
+        LocalDate date = Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate();
+        long start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+        long end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        cachedDay = new long[]{start, end, date.toEpochDay()};
+        return date.toEpochDay();
+    }
+
+    private Session session(long day) {
+        Session s = sessions.get(day);
+        if (s == null) {
+            // Day rollover: forget the days that fell out of the window
+            if (day > newestDay) {
+                newestDay = day;
+                sessions.keySet().removeIf(d -> d <= day - RETAINED_DAYS);
+            }
+            s = new Session(expectedPerSession, bloomFront);
+            sessions.put(day, s);
+        }
+        return s;
+    }
+
+    // ========================================
+    // KEY NORMALIZATION + FINGERPRINT
+    // ========================================
+
+    static long fingerprint(String name, String course, long day) {
+        long h = 0xcbf29ce484222325L;                      // FNV-1a over name '\0' course
+        h = fnvNormalized(h, name);
+        h *= 0x100000001b3L;                               // the '\0' separator
+        h = fnvNormalized(h, course);
+        h ^= day * 0x9E3779B97F4A7C15L;
+        h = mix(h);
+        return h == 0 ? 1 : h;                             // 0 marks an empty slot
+    }
+
+    /**
+     * Hashes s as if trimmed, with whitespace runs collapsed to one space and
+     * lower-cased, without building the normalized string: "  Juan   dela
+     * Cruz " and "juan DELA cruz" hash the same
+     */
+    private static long fnvNormalized(long h, String s) {
+        boolean started = false, space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = started;
+                continue;
+            }
+            if (space) h = (h ^ ' ') * 0x100000001b3L;
+            h = (h ^ Character.toLowerCase(c)) * 0x100000001b3L;
+            started = true;
+            space = false;
+        }
+        return h;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // ========================================
+    // ONE SESSION: open-addressing set of fingerprints
+    // ========================================
+    private static final class Session {
+        long[] table;
+        int mask;
+        int size;
+        final long[] bloom;
+        final int bloomBits;
+        final int bloomHashes;
+
+        Session(int expected, boolean bloomFront) {
+            int capacity = Integer.highestOneBit(expected * 2 - 1) << 1;   // load factor <= 0.5
+            table = new long[capacity];
+            mask = capacity - 1;
+
+            if (bloomFront) {
+                // m = -n ln p / (ln 2)^2, k = m/n ln 2
+                double bits = -expected * Math.log(BLOOM_FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2));
+                bloomBits = Math.max(64, (int) Math.min(Integer.MAX_VALUE - 63, Math.ceil(bits)));
+                bloomHashes = Math.max(1, (int) Math.round(bits / expected * Math.log(2)));
+                bloom = new long[(bloomBits + 63) >>> 6];
+            } else {
+                bloomBits = 0;
+                bloomHashes = 0;
+                bloom = null;
+            }
+        }
+
+        boolean add(long fp) {
+            if (bloom != null && !mightContain(fp)) {
+                insert(fp);                                  // definitely new, skip the probe
+                return true;
+            }
+            int i = (int) fp & mask;
+            while (table[i] != 0) {
+                if (table[i] == fp) return false;
+                i = (i + 1) & mask;
+            }
+            insert(fp);
+            return true;
+        }
+
+        // Backward-shift delete keeps probe chains intact without tombstones.
+        // The Bloom bits stay set; that only costs an extra probe later.
+        void remove(long fp) {
+            int i = (int) fp & mask;
+            while (table[i] != fp) {
+                if (table[i] == 0) return;
+                i = (i + 1) & mask;
+            }
+            int hole = i;
+            for (int j = (hole + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+                int home = (int) table[j] & mask;
+                // move j back into the hole unless its home lies cyclically in (hole, j]
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    table[hole] = table[j];
+                    hole = j;
+                }
+            }
+            table[hole] = 0;
+            size--;
+        }
+
+        private void insert(long fp) {
+            if ((size + 1) * 2 > table.length) grow();
+            int i = (int) fp & mask;
+            while (table[i] != 0) i = (i + 1) & mask;
+            table[i] = fp;
+            size++;
+            if (bloom != null) {
+                int h1 = (int) fp, h2 = (int) (fp >>> 32);
+                for (int k = 0; k < bloomHashes; k++) {
+                    int bit = ((h1 + k * h2) & Integer.MAX_VALUE) % bloomBits;
+                    bloom[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+
+        private boolean mightContain(long fp) {
+            int h1 = (int) fp, h2 = (int) (fp >>> 32);
+            for (int k = 0; k < bloomHashes; k++) {
+                int bit = ((h1 + k * h2) & Integer.MAX_VALUE) % bloomBits;
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            mask = table.length - 1;
+            for (long fp : old) {
+                if (fp == 0) continue;
+                int i = (int) fp & mask;
+                while (table[i] != 0) i = (i + 1) & mask;
+                table[i] = fp;
+            }
+        }
+    }
+
+    /**
+     * Benchmark: java CheckInDedup [checkIns] [bloom]
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        boolean bloom = args.length > 1 && Boolean.parseBoolean(args[1]);
+        CheckInDedup dedup = new CheckInDedup(n, bloom);
+        long now = System.currentTimeMillis();
+
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++) names[i] = "Student " + i;
+
+        long start = System.nanoTime();
+        int accepted = 0;
+        for (int i = 0; i < n; i++) if (dedup.add(names[i], "BSCS 3rd Year", now)) accepted++;
+        long mid = System.nanoTime();
+        int rejected = 0;
+        for (int i = 0; i < n; i++) if (!dedup.add(" " + names[i].toUpperCase(), "bscs 3RD  year", now)) rejected++;
+        long end = System.nanoTime();
+
+        System.out.printf("%,d first check-ins accepted in %.1f ms (%.0f ns each), bloom=%s%n",
+                accepted, (mid - start) / 1e6, (double) (mid - start) / n, bloom);
+        System.out.printf("%,d repeats rejected in %.1f ms (%.0f ns each)%n",
+                rejected, (end - mid) / 1e6, (double) (end - mid) / n);
+    }
+}
@@ -0,0 +1,102 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.FocusEvent;
+import java.awt.event.InputEvent;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * EdtProbe - measures how long the event dispatch thread spends per event
+ *
+ * Enabled with -Dattendance.edtProbe=true. It is pushed as the system
+ * EventQueue and times every dispatchEvent() into log-scale histograms, one
+ * for all events and one for input events (mouse, key, focus) only. A
+ * summary with percentiles and the GC activity since start-up is printed
+ * when the application exits, so runs before and after a change can be
+ * compared.
+ */
+final class EdtProbe extends EventQueue {
+
+    // Bucket i holds durations in [2^i, 2^(i+1)) nanoseconds
+    private static final int BUCKETS = 40;
+
+    // Only the EDT writes these
+    private final long[] all = new long[BUCKETS];
+    private final long[] input = new long[BUCKETS];
+    private long allCount, inputCount, allNanos, inputNanos, maxNanos;
+
+    private final long startGcCount, startGcMillis;
+
+    private EdtProbe() {
+        long[] gc = gcTotals();
+        startGcCount = gc[0];
+        startGcMillis = gc[1];
+    }
+
+    /**
+     * Installs the probe if -Dattendance.edtProbe=true
+     */
+    static void installIfEnabled() {
+        if (!Boolean.getBoolean("attendance.edtProbe")) return;
+        EdtProbe probe = new EdtProbe();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(probe);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.println(probe.summary())));
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long start = System.nanoTime();
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+            all[bucket]++;
+            allCount++;
+            allNanos += nanos;
+            if (nanos > maxNanos) maxNanos = nanos;
+            if (event instanceof InputEvent || event instanceof FocusEvent) {
+                input[bucket]++;
+                inputCount++;
+                inputNanos += nanos;
+            }
+        }
+    }
+
+    private String summary() {
+        long[] gc = gcTotals();
+        return String.format(
+            "EDT probe: %,d events, mean %.3f ms, p50 < %.3f ms, p99 < %.3f ms, max %.3f ms%n" +
+            "           %,d input events, mean %.3f ms, p50 < %.3f ms, p99 < %.3f ms%n" +
+            "           GC: %,d collections, %,d ms",
+            allCount, mean(allNanos, allCount), percentile(all, allCount, 0.50), percentile(all, allCount, 0.99),
+            maxNanos / 1e6,
+            inputCount, mean(inputNanos, inputCount), percentile(input, inputCount, 0.50),
+            percentile(input, inputCount, 0.99),
+            gc[0] - startGcCount, gc[1] - startGcMillis);
+    }
+
+    private static double mean(long nanos, long count) {
+        return count == 0 ? 0 : nanos / 1e6 / count;
+    }
+
+    // Upper bound of the bucket holding the given fraction of events, in ms
+    private static double percentile(long[] histogram, long count, double fraction) {
+        long target = (long) Math.ceil(count * fraction), seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= target && target > 0) return (1L << (i + 1)) / 1e6;
+        }
+        return 0;
+    }
+
+    private static long[] gcTotals() {
+        long count = 0, millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Metrics - counters, latency histograms and phase timers for the CLI tools
+ *
+ * Turned on by a --metrics argument (JSON summary on stderr at the end) or
+ * --metrics=file.json (summary written to that file). While off, count() and
+ * record() return after one volatile read, and phase() after that read and a
+ * check whether JFR is recording phase events; none of them allocates.
+ *
+ *   Metrics.count("records.loaded", n);            LongAdder, lock-free
+ *   Metrics.record("checkin.latency", nanos);      log-linear histogram
+ *   try (Metrics.Phase phase = Metrics.phase("parse")) { ... }
+ *
+ * The phase variable is never read, which javac's -Xlint:try reports, so
+ * classes that time phases carry @SuppressWarnings("try").
+ *
+ * Histograms keep 32 sub-buckets per power of two (about 3% relative error)
+ * in an AtomicLongArray, like HdrHistogram, so recording never locks or
+ * allocates. Phases are also emitted as JFR events ("metrics.Phase"), which
+ * show up in any flight recording even without --metrics.
+ *
+ * Copies: Prelim/Metrics.java, Prelim/AttendanceTracker/src/Metrics.java,
+ * Midterm/Machine Problem 1/Java/Metrics.java and
+ * Midterm/Machine Problem 3/Java/Metrics.java are identical; change all four.
+ */
+public final class Metrics {
+
+    private static volatile boolean enabled;
+    private static volatile String output;          // null = stderr
+    private static volatile String tool = "tool";
+    private static final long START = System.nanoTime();
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> phases = new ConcurrentHashMap<>();
+    private static final List<String> phaseOrder = Collections.synchronizedList(new ArrayList<>());
+    private static final EventType PHASE_EVENT = EventType.getEventType(PhaseEvent.class);
+
+    private Metrics() {
+    }
+
+    /**
+     * Enables metrics if args contain --metrics[=file] and returns the other
+     * arguments, so the tool's own argument handling is unchanged
+     */
+    public static String[] init(String toolName, String[] args) {
+        tool = toolName;
+        List<String> rest = new ArrayList<>(args.length);
+        for (String a : args) {
+            if (a.equals("--metrics")) {
+                enabled = true;
+            } else if (a.startsWith("--metrics=")) {
+                enabled = true;
+                output = a.substring("--metrics=".length());
+            } else {
+                rest.add(a);
+            }
+        }
+        return rest.toArray(new String[0]);
+    }
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static void count(String name) {
+        count(name, 1);
+    }
+
+    public static void count(String name, long delta) {
+        if (!enabled) return;
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    /** Records one latency (or any non-negative value) into a histogram. */
+    public static void record(String name, long nanos) {
+        if (!enabled) return;
+        histograms.computeIfAbsent(name, k -> new Histogram()).record(nanos);
+    }
+
+    /** Starts timing a phase; close() records it. */
+    public static Phase phase(String name) {
+        if (!enabled && !PHASE_EVENT.isEnabled()) return Phase.NOOP;
+        return new Phase(name, new PhaseEvent());
+    }
+
+    /** A running phase timer. */
+    public static class Phase implements AutoCloseable {
+        static final Phase NOOP = new Phase(null, null);
+
+        private final String name;
+        private final PhaseEvent event;
+        private final long start;
+
+        Phase(String name, PhaseEvent event) {
+            this.name = name;
+            this.event = event;
+            this.start = System.nanoTime();
+            if (event != null) {
+                event.tool = tool;
+                event.phase = name;
+                event.begin();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (name == null) return;
+            event.commit();
+            if (!enabled) return;
+            Histogram h = phases.get(name);
+            if (h == null) {
+                h = phases.computeIfAbsent(name, k -> {
+                    phaseOrder.add(k);
+                    return new Histogram();
+                });
+            }
+            h.record(System.nanoTime() - start);
+        }
+    }
+
+    @Name("metrics.Phase")
+    @Label("Tool Phase")
+    @Category("Prog2 Tools")
+    static class PhaseEvent extends Event {
+        @Label("Tool")
+        String tool;
+        @Label("Phase")
+        String phase;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  HISTOGRAM
+    // ------------------------------------------------------------------ //
+    static final class Histogram {
+        // values 0..63 exactly, then 32 sub-buckets per power of two
+        private static final int BUCKETS = 64 + 58 * 32;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        void record(long value) {
+            if (value < 0) value = 0;
+            buckets.incrementAndGet(index(value));
+            count.increment();
+            sum.add(value);
+            min.accumulate(value);
+            max.accumulate(value);
+        }
+
+        private static int index(long v) {
+            if (v < 64) return (int) v;
+            int shift = 58 - Long.numberOfLeadingZeros(v);   // v >>> shift is in [32, 64)
+            return 64 + (shift - 1) * 32 + (int) (v >>> shift) - 32;
+        }
+
+        // Middle of the bucket's value range
+        private static long valueAt(int index) {
+            if (index < 64) return index;
+            int shift = (index - 64) / 32 + 1;
+            long sub = (index - 64) % 32 + 32;
+            return (sub << shift) + (1L << (shift - 1));
+        }
+
+        long percentile(double p) {
+            long n = count.sum();
+            if (n == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(n * p / 100.0)), seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) return Math.max(min.get(), Math.min(valueAt(i), max.get()));
+            }
+            return max.get();
+        }
+
+        void appendJson(StringBuilder sb, boolean withTotal) {
+            long n = count.sum();
+            sb.append("{\"count\":").append(n);
+            if (withTotal) sb.append(",\"totalMillis\":").append(millis(sum.sum()));
+            sb.append(",\"minNanos\":").append(n == 0 ? 0 : min.get())
+              .append(",\"meanNanos\":").append(n == 0 ? 0 : sum.sum() / n)
+              .append(",\"p50Nanos\":").append(percentile(50))
+              .append(",\"p90Nanos\":").append(percentile(90))
+              .append(",\"p99Nanos\":").append(percentile(99))
+              .append(",\"maxNanos\":").append(n == 0 ? 0 : max.get())
+              .append('}');
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  OUTPUT
+    // ------------------------------------------------------------------ //
+
+    /** Machine-readable summary of everything recorded so far. */
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\"tool\":").append(quote(tool))
+          .append(",\"uptimeMillis\":").append(millis(System.nanoTime() - START))
+          .append(",\"counters\":{");
+        String sep = "";
+        for (String name : new TreeSet<>(counters.keySet())) {
+            sb.append(sep).append(quote(name)).append(':').append(counters.get(name).sum());
+            sep = ",";
+        }
+        sb.append("},\"phases\":{");
+        sep = "";
+        synchronized (phaseOrder) {
+            for (String name : phaseOrder) {
+                sb.append(sep).append(quote(name)).append(':');
+                phases.get(name).appendJson(sb, true);
+                sep = ",";
+            }
+        }
+        sb.append("},\"histograms\":{");
+        sep = "";
+        for (String name : new TreeSet<>(histograms.keySet())) {
+            sb.append(sep).append(quote(name)).append(':');
+            histograms.get(name).appendJson(sb, false);
+            sep = ",";
+        }
+        return sb.append("}}").toString();
+    }
+
+    /** Writes the summary if --metrics was given. */
+    public static void dump() {
+        if (!enabled) return;
+        String json = toJson();
+        if (output == null) {
+            System.err.println(json);
+            return;
+        }
+        try {
+            Files.write(Paths.get(output), (json + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("[Error] Could not write metrics to " + output + ": " + e.getMessage());
+        }
+    }
+
+    /** For tools that end in System.exit (Swing): dump from a shutdown hook. */
+    public static void dumpOnExit() {
+        if (enabled) Runtime.getRuntime().addShutdownHook(new Thread(Metrics::dump, "metrics-dump"));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,160 @@
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * NameAutocomplete - roster suggestions under the Full Name field
+ *
+ * The roster is loaded and every lookup runs on a background thread; only
+ * the finished suggestion list is handed to the EDT. Each keystroke bumps a
+ * generation number, so an answer for text the user has already typed past
+ * is dropped instead of flashing up.
+ *
+ * Keys: Down/Up move through the suggestions, Enter takes one, Escape closes
+ * the list. Clicking a suggestion takes it as well.
+ */
+final class NameAutocomplete {
+
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final JTextField field;
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<NameRoster.Suggestion> items = new DefaultListModel<>();
+    private final JList<NameRoster.Suggestion> list = new JList<>(items);
+    private final ExecutorService lookups = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "roster-lookup");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile NameRoster roster;     // null until loaded
+    private boolean accepting;              // setText from acceptSelection(), not the user
+
+    private NameAutocomplete(JTextField field) {
+        this.field = field;
+
+        list.setFont(UIResources.FIELD_FONT);
+        list.setFocusable(false);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                list.setSelectedIndex(list.locationToIndex(e.getPoint()));
+                acceptSelection();
+            }
+        });
+        popup.setFocusable(false);
+        popup.add(new JScrollPane(list));
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { typed(); }
+            public void removeUpdate(DocumentEvent e) { typed(); }
+            public void changedUpdate(DocumentEvent e) { }
+        });
+        bindKey(KeyEvent.VK_DOWN, "rosterNext", () -> move(1));
+        bindKey(KeyEvent.VK_UP, "rosterPrevious", () -> move(-1));
+        bindKey(KeyEvent.VK_ESCAPE, "rosterClose", () -> popup.setVisible(false));
+
+        // Enter takes the highlighted suggestion; otherwise the field's own action runs
+        Action enter = field.getActionMap().get(JTextField.notifyAction);
+        field.getActionMap().put(JTextField.notifyAction, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (popup.isVisible() && list.getSelectedIndex() >= 0) acceptSelection();
+                else if (enter != null) enter.actionPerformed(e);
+            }
+        });
+    }
+
+    /**
+     * Attaches suggestions to the field and starts loading the roster in the
+     * background. The roster comes from -Dattendance.roster, or
+     * ../class_records.csv next to this project.
+     */
+    static void install(JTextField field) {
+        NameAutocomplete autocomplete = new NameAutocomplete(field);
+        autocomplete.lookups.execute(() -> {
+            Path csv = Paths.get(System.getProperty("attendance.roster", "../class_records.csv"));
+            if (!Files.exists(csv)) return;   // no roster, plain text field
+            try {
+                autocomplete.roster = NameRoster.load(csv);
+            } catch (Exception e) {
+                System.err.println("Could not load roster " + csv + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // Runs on the EDT for every edit of the field
+    private void typed() {
+        if (accepting) return;
+        long ticket = generation.incrementAndGet();
+        String text = field.getText();
+        lookups.execute(() -> {
+            NameRoster r = roster;
+            if (r == null || ticket != generation.get()) return;
+            List<NameRoster.Suggestion> suggestions = r.suggest(text, MAX_SUGGESTIONS);
+            SwingUtilities.invokeLater(() -> {
+                if (ticket == generation.get()) show(suggestions);
+            });
+        });
+    }
+
+    private void show(List<NameRoster.Suggestion> suggestions) {
+        items.clear();
+        // Nothing to suggest, or the only match is exactly what was typed
+        if (suggestions.isEmpty() || !field.isShowing()
+                || (suggestions.size() == 1 && suggestions.get(0).name.equalsIgnoreCase(field.getText().trim()))) {
+            popup.setVisible(false);
+            return;
+        }
+        for (NameRoster.Suggestion s : suggestions) items.addElement(s);
+        list.setVisibleRowCount(suggestions.size());
+        list.clearSelection();
+        popup.setPopupSize(field.getWidth(), popup.getPreferredSize().height);
+        popup.show(field, 0, field.getHeight());
+        field.requestFocusInWindow();
+    }
+
+    private void move(int delta) {
+        if (!popup.isVisible() || items.isEmpty()) return;
+        int current = list.getSelectedIndex();
+        int next = current < 0 ? (delta > 0 ? 0 : items.size() - 1) : Math.floorMod(current + delta, items.size());
+        list.setSelectedIndex(next);
+        list.ensureIndexIsVisible(next);
+    }
+
+    private void acceptSelection() {
+        NameRoster.Suggestion chosen = list.getSelectedValue();
+        popup.setVisible(false);
+        if (chosen == null) return;
+        generation.incrementAndGet();   // drop lookups still in flight
+        accepting = true;
+        try {
+            field.setText(chosen.name);
+        } finally {
+            accepting = false;
+        }
+    }
+
+    private void bindKey(int key, String name, Runnable action) {
+        field.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(key, 0), name);
+        field.getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+}
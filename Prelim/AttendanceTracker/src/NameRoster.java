@@ -0,0 +1,185 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * NameRoster - student names from class_records.csv for prefix lookup
+ *
+ * Every student gets two search keys, "first last" and "last first", both
+ * lower-cased. The keys are kept in one sorted String[] with a parallel
+ * int[] pointing back at the student, so a lookup is a binary search for
+ * the first key >= the typed prefix followed by a short forward scan, with
+ * no per-character node objects as in a trie.
+ */
+final class NameRoster {
+
+    /** One suggestion for the name field. */
+    static final class Suggestion {
+        final String name;
+        final String studentId;
+
+        Suggestion(String name, String studentId) {
+            this.name = name;
+            this.studentId = studentId;
+        }
+
+        @Override
+        public String toString() {
+            return name + "  (" + studentId + ")";
+        }
+    }
+
+    private final String[] keys;      // sorted search keys
+    private final int[] owner;        // key -> student
+    private final String[] names;     // student -> "First Last"
+    private final String[] ids;       // student -> StudentID
+
+    /**
+     * @param students {StudentID, first name, last name} per student
+     */
+    NameRoster(List<String[]> students) {
+        // Same ID and name twice (the CSV has repeated rows) is one student
+        Set<String> seen = new HashSet<>();
+        List<String[]> unique = new ArrayList<>(students.size());
+        for (String[] s : students) {
+            if (seen.add(s[0] + '\u0000' + s[1] + '\u0000' + s[2])) unique.add(s);
+        }
+
+        int n = unique.size();
+        names = new String[n];
+        ids = new String[n];
+        String[] rawKeys = new String[n * 2];
+        for (int i = 0; i < n; i++) {
+            String[] s = unique.get(i);
+            ids[i] = s[0];
+            names[i] = s[1] + " " + s[2];
+            rawKeys[2 * i] = normalize(s[1] + " " + s[2]);
+            rawKeys[2 * i + 1] = normalize(s[2] + " " + s[1]);
+        }
+
+        Integer[] order = new Integer[rawKeys.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(i -> rawKeys[i]));
+
+        keys = new String[order.length];
+        owner = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = rawKeys[order[i]];
+            owner[i] = order[i] / 2;
+        }
+    }
+
+    /**
+     * Reads StudentID, first_name and last_name from a class_records.csv file,
+     * through ClassRecords so students still only in its .wal log are included
+     * and deleted ones are left out
+     */
+    static NameRoster load(Path csv) throws IOException {
+        List<String[]> students = new ArrayList<>();
+        try (ClassRecords records = ClassRecords.open(csv.toFile())) {
+            String line = records.readLine();   // header
+            while ((line = records.readLine()) != null) {
+                String[] col = line.split(",", 4);
+                if (col.length < 3 || col[1].isBlank()) continue;
+                students.add(new String[]{col[0].trim(), col[1].trim(), col[2].trim()});
+            }
+        }
+        return new NameRoster(students);
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * Students whose first or last name starts with the typed text, at most limit
+     */
+    List<Suggestion> suggest(String typed, int limit) {
+        String prefix = normalize(typed);
+        List<Suggestion> result = new ArrayList<>();
+        if (prefix.isEmpty()) return result;
+
+        int[] picked = new int[limit];
+        for (int i = lowerBound(prefix); i < keys.length && result.size() < limit && keys[i].startsWith(prefix); i++) {
+            int student = owner[i];
+            boolean dup = false;
+            for (int k = 0; k < result.size(); k++) dup |= picked[k] == student;
+            if (dup) continue;
+            picked[result.size()] = student;
+            result.add(new Suggestion(names[student], ids[student]));
+        }
+        return result;
+    }
+
+    private int lowerBound(String prefix) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Trimmed, whitespace runs collapsed to one space, lower case
+    private static String normalize(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Benchmark: java NameRoster [students]
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        Random random = new Random(3);
+        List<String[]> students = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            students.add(new String[]{String.format("%09d", i), syllables(random, 2 + random.nextInt(2)),
+                    syllables(random, 2 + random.nextInt(3))});
+        }
+
+        long t0 = System.nanoTime();
+        NameRoster roster = new NameRoster(students);
+        long t1 = System.nanoTime();
+        System.out.printf("Built roster of %,d students in %.0f ms%n", roster.size(), (t1 - t0) / 1e6);
+
+        // Simulate typing each name one keystroke at a time
+        String[] typed = new String[20_000];
+        for (int i = 0; i < typed.length; i++) {
+            String name = students.get(random.nextInt(n))[1];
+            typed[i] = name.substring(0, 1 + random.nextInt(name.length()));
+        }
+        for (String t : typed) roster.suggest(t, 8);   // warm-up
+        long worst = 0, total = 0;
+        for (String t : typed) {
+            long s = System.nanoTime();
+            roster.suggest(t, 8);
+            long d = System.nanoTime() - s;
+            total += d;
+            worst = Math.max(worst, d);
+        }
+        System.out.printf("Lookups: mean %.1f us, worst %.1f us over %,d keystrokes%n",
+                total / 1e3 / typed.length, worst / 1e3, typed.length);
+    }
+
+    private static String syllables(Random random, int count) {
+        String[] parts = {"an", "bel", "cor", "da", "el", "fi", "gar", "ho", "is", "jo", "ka", "li", "mar",
+                          "no", "os", "pe", "qui", "ro", "sa", "ti", "ur", "va", "wen", "xi", "yo", "zel"};
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) sb.append(parts[random.nextInt(parts.length)]);
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return sb.toString();
+    }
+}
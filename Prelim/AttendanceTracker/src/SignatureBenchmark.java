@@ -0,0 +1,75 @@
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SignatureBenchmark - e-signature throughput across threads
+ *
+ * Compares the original submitAttendance path
+ * (UUID.randomUUID().toString().toUpperCase()) with each SignatureGenerator
+ * plus SignatureGenerator.format, at 1, 2, 4 and 8 threads.
+ *
+ * Usage: java SignatureBenchmark [secondsPerRun]
+ */
+public class SignatureBenchmark {
+
+    interface Task {
+        String run(int i);
+    }
+
+    // Length of every signature made; adding to it keeps the work observable
+    // so the JIT cannot drop it
+    static final LongAdder SINK = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SignatureGenerator random = new SignatureGenerator.RandomSignatures();
+        SignatureGenerator time = new SignatureGenerator.TimeOrderedSignatures();
+        SignatureGenerator hmac = new SignatureGenerator.HmacSignatures(key);
+
+        String[] names = {"original UUID.randomUUID", "random + format", "time + format", "hmac + format"};
+        Task[] tasks = {
+            i -> UUID.randomUUID().toString().toUpperCase(),
+            i -> SignatureGenerator.format(random.sign("Juan Dela Cruz", "BSCS 3rd Year", i)),
+            i -> SignatureGenerator.format(time.sign("Juan Dela Cruz", "BSCS 3rd Year", System.currentTimeMillis())),
+            i -> SignatureGenerator.format(hmac.sign("Juan Dela Cruz", "BSCS 3rd Year", i)),
+        };
+
+        System.out.printf("%-26s %14s %14s %14s %14s%n", "signatures/second", "1 thread", "2 threads", "4 threads", "8 threads");
+        for (int t = 0; t < tasks.length; t++) {
+            System.out.printf("%-26s", names[t]);
+            for (int threads : new int[]{1, 2, 4, 8}) {
+                run(tasks[t], threads, seconds / 4);   // warm-up
+                System.out.printf(" %,14.0f", run(tasks[t], threads, seconds));
+            }
+            System.out.println();
+        }
+    }
+
+    private static double run(Task task, int threads, double seconds) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        LongAdder count = new LongAdder();
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                int n = 0, sink = 0;
+                while (System.nanoTime() < deadline) {
+                    for (int k = 0; k < 256; k++) sink += task.run(n++).length();
+                }
+                count.add(n);
+                SINK.add(sink);
+                done.countDown();
+            });
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        return count.sum() / elapsed;
+    }
+}
@@ -0,0 +1,174 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * SignatureGenerator - pluggable source of 128-bit attendance e-signatures
+ *
+ *   random  UUID.randomUUID(), the original behaviour (shared SecureRandom)
+ *   time    time-ordered, per-thread monotonic id in the UUIDv7 layout
+ *   hmac    HMAC-SHA256(name, course, time) truncated to 128 bits, verifiable
+ *
+ * Pick one with -Dattendance.signature=random|time|hmac.
+ */
+public interface SignatureGenerator {
+
+    /**
+     * Signature for one check-in
+     */
+    UUID sign(String name, String course, long epochMillis);
+
+    /**
+     * Generator named by the attendance.signature system property
+     */
+    static SignatureGenerator fromProperty(String defaultKind, Path keyFile) throws IOException {
+        String kind = System.getProperty("attendance.signature", defaultKind);
+        switch (kind) {
+            case "random": return new RandomSignatures();
+            case "time":   return new TimeOrderedSignatures();
+            case "hmac":   return new HmacSignatures(HmacSignatures.loadOrCreateKey(keyFile));
+            default:       throw new IllegalArgumentException("Unknown signature kind: " + kind);
+        }
+    }
+
+    /**
+     * Upper-case 8-4-4-4-12 hex form, without the toString().toUpperCase() copies
+     */
+    static String format(UUID signature) {
+        char[] out = new char[36];
+        long hi = signature.getMostSignificantBits();
+        long lo = signature.getLeastSignificantBits();
+        int pos = 0;
+        for (int nibble = 0; nibble < 32; nibble++) {
+            if (nibble == 8 || nibble == 12 || nibble == 16 || nibble == 20) out[pos++] = '-';
+            long word = nibble < 16 ? hi : lo;
+            int shift = 60 - 4 * (nibble & 15);
+            out[pos++] = "0123456789ABCDEF".charAt((int) (word >>> shift) & 0xF);
+        }
+        return new String(out);
+    }
+
+    // ========================================
+    // random: the original UUID.randomUUID()
+    // ========================================
+    final class RandomSignatures implements SignatureGenerator {
+        @Override
+        public UUID sign(String name, String course, long epochMillis) {
+            return UUID.randomUUID();
+        }
+    }
+
+    // ========================================
+    // time: UUIDv7-style, monotonic per thread
+    // ========================================
+
+    /**
+     * 48-bit millisecond timestamp, version 7, a 12-bit counter that keeps ids
+     * from one thread strictly increasing within the same millisecond, then
+     * 62 random bits from ThreadLocalRandom. No shared state between threads.
+     */
+    final class TimeOrderedSignatures implements SignatureGenerator {
+
+        private static final class State {
+            long lastMillis = -1;
+            int counter;
+        }
+
+        private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+        @Override
+        public UUID sign(String name, String course, long epochMillis) {
+            State s = state.get();
+            long millis = epochMillis;
+            if (millis > s.lastMillis) {
+                s.lastMillis = millis;
+                s.counter = 0;
+            } else if (++s.counter > 0xFFF) {   // counter exhausted: borrow the next millisecond
+                s.lastMillis++;
+                s.counter = 0;
+            }
+            millis = s.lastMillis;
+
+            long hi = (millis & 0xFFFF_FFFF_FFFFL) << 16 | 0x7000L | s.counter;
+            long lo = ThreadLocalRandom.current().nextLong() & 0x3FFF_FFFF_FFFF_FFFFL | 0x8000_0000_0000_0000L;
+            return new UUID(hi, lo);
+        }
+    }
+
+    // ========================================
+    // hmac: keyed and verifiable
+    // ========================================
+
+    /**
+     * HMAC-SHA256 over (name, course, epochMillis), first 128 bits. Anyone with
+     * the key can later check a journal record's signature with verify().
+     */
+    final class HmacSignatures implements SignatureGenerator {
+
+        private static final String ALGORITHM = "HmacSHA256";
+
+        private final SecretKeySpec key;
+        private final ThreadLocal<Mac> mac;
+
+        public HmacSignatures(byte[] key) {
+            this.key = new SecretKeySpec(key, ALGORITHM);
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac m = Mac.getInstance(ALGORITHM);
+                    m.init(this.key);
+                    return m;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        @Override
+        public UUID sign(String name, String course, long epochMillis) {
+            ByteBuffer digest = ByteBuffer.wrap(digest(name, course, epochMillis));
+            return new UUID(digest.getLong(), digest.getLong());
+        }
+
+        /**
+         * True if the signature was made with this key for exactly this check-in
+         */
+        public boolean verify(UUID signature, String name, String course, long epochMillis) {
+            ByteBuffer expected = ByteBuffer.allocate(16)
+                    .putLong(signature.getMostSignificantBits())
+                    .putLong(signature.getLeastSignificantBits());
+            byte[] actual = digest(name, course, epochMillis);
+            return MessageDigest.isEqual(expected.array(), java.util.Arrays.copyOf(actual, 16));
+        }
+
+        private byte[] digest(String name, String course, long epochMillis) {
+            Mac m = mac.get();
+            m.update(name.getBytes(StandardCharsets.UTF_8));
+            m.update((byte) 0);
+            m.update(course.getBytes(StandardCharsets.UTF_8));
+            m.update((byte) 0);
+            for (int shift = 56; shift >= 0; shift -= 8) m.update((byte) (epochMillis >>> shift));
+            return m.doFinal();
+        }
+
+        /**
+         * Reads the 32-byte key, creating a random one on first use
+         */
+        static byte[] loadOrCreateKey(Path keyFile) throws IOException {
+            if (Files.exists(keyFile)) return Files.readAllBytes(keyFile);
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            if (keyFile.getParent() != null) Files.createDirectories(keyFile.getParent());
+            Files.write(keyFile, key);
+            return key;
+        }
+    }
+}
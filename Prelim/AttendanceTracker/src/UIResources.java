@@ -0,0 +1,95 @@
+import java.awt.*;
+import java.time.format.DateTimeFormatter;
+import javax.swing.BorderFactory;
+import javax.swing.border.Border;
+
+/**
+ * UIResources - shared colors, fonts, borders and formatters for AttendanceTracker
+ *
+ * Everything here is immutable and created once. Focus and hover handlers
+ * swap between these instances instead of allocating a new Font, Color or
+ * compound Border on every event.
+ */
+final class UIResources {
+
+    private UIResources() {
+    }
+
+    // Color Scheme - Modern blue gradient theme
+    static final Color PRIMARY_COLOR = new Color(79, 70, 229); // Indigo
+    static final Color SECONDARY_COLOR = new Color(99, 102, 241); // Light Indigo
+    static final Color ACCENT_COLOR = new Color(234, 88, 12); // Orange
+    static final Color SUCCESS_COLOR = new Color(34, 197, 94); // Green
+    static final Color BACKGROUND_COLOR = new Color(248, 250, 252); // Light gray
+    static final Color TEXT_COLOR = new Color(51, 65, 85); // Dark gray
+    static final Color FIELD_BG = Color.WHITE;
+    static final Color MUTED_TEXT_COLOR = new Color(100, 116, 139); // Slate
+    static final Color READ_ONLY_BG = new Color(241, 245, 249); // Pale slate
+    static final Color FIELD_BORDER_COLOR = new Color(203, 213, 225); // Light slate
+    static final Color DANGER_COLOR = new Color(239, 68, 68); // Red
+    static final Color DANGER_HOVER_COLOR = new Color(220, 38, 38); // Dark red
+
+    // Fonts
+    static final Font TITLE_FONT = new Font("Segoe UI", Font.BOLD, 36);
+    static final Font SUBTITLE_FONT = new Font("Segoe UI", Font.PLAIN, 16);
+    static final Font LABEL_FONT = new Font("Segoe UI", Font.BOLD, 16);
+    static final Font FIELD_FONT = new Font("Segoe UI", Font.PLAIN, 16);
+    static final Font BUTTON_FONT = new Font("Segoe UI", Font.BOLD, 16);
+    static final Font FOOTER_FONT = new Font("Segoe UI", Font.PLAIN, 13);
+    static final Font SIGNATURE_FONT = new Font("Consolas", Font.PLAIN, 13);
+
+    // Text field borders, idle and focused
+    private static final Border FIELD_PADDING = BorderFactory.createEmptyBorder(12, 18, 12, 18);
+    static final Border FIELD_BORDER = BorderFactory.createCompoundBorder(
+        BorderFactory.createLineBorder(FIELD_BORDER_COLOR, 2), FIELD_PADDING);
+    static final Border FIELD_FOCUS_BORDER = BorderFactory.createCompoundBorder(
+        BorderFactory.createLineBorder(PRIMARY_COLOR, 2), FIELD_PADDING);
+    static final Border BUTTON_BORDER = BorderFactory.createEmptyBorder(12, 30, 12, 30);
+
+    static final Cursor HAND_CURSOR = Cursor.getPredefinedCursor(Cursor.HAND_CURSOR);
+
+    // Immutable and thread-safe, so the headless server shares it too
+    static final DateTimeFormatter TIME_IN_FORMAT = DateTimeFormatter.ofPattern("MMMM dd, yyyy • hh:mm:ss a");
+
+    // ========================================
+    // SUCCESS DIALOG: template split around its three values
+    // ========================================
+    private static final String SUCCESS_HEAD =
+        "<html>" +
+        "<div style='padding: 15px; font-family: Segoe UI;'>" +
+        "<div style='font-size: 18px; font-weight: bold; color: #22c55e; margin-bottom: 10px;'>✓ Success!</div>" +
+        "<div style='font-size: 14px; color: #64748b; margin-bottom: 15px;'>Attendance recorded successfully</div>" +
+        "<hr style='border: 1px solid #e2e8f0;'>" +
+        "<div style='margin-top: 15px; font-size: 13px;'>" +
+        "<div style='margin: 5px 0;'><b>Name:</b> ";
+    private static final String SUCCESS_COURSE = "</div><div style='margin: 5px 0;'><b>Course:</b> ";
+    private static final String SUCCESS_TIME = "</div><div style='margin: 5px 0;'><b>Time:</b> ";
+    private static final String SUCCESS_TAIL = "</div></div></html>";
+
+    /**
+     * Success dialog HTML. User input is escaped, so a name like "<b>" shows as typed.
+     */
+    static String successMessage(String name, String course, String timeIn) {
+        StringBuilder html = new StringBuilder(SUCCESS_HEAD.length() + 160);
+        html.append(SUCCESS_HEAD);
+        appendEscaped(html, name).append(SUCCESS_COURSE);
+        appendEscaped(html, course).append(SUCCESS_TIME);
+        appendEscaped(html, timeIn).append(SUCCESS_TAIL);
+        return html.toString();
+    }
+
+    private static StringBuilder appendEscaped(StringBuilder html, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': html.append("&lt;"); break;
+                case '>': html.append("&gt;"); break;
+                case '&': html.append("&amp;"); break;
+                case '"': html.append("&quot;"); break;
+                case '\'': html.append("&#39;"); break;
+                default: html.append(c);
+            }
+        }
+        return html;
+    }
+}
@@ -0,0 +1,129 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * ClassRecords - read-only view of the live roster behind StudentStore.
+ *
+ * StudentRecordSystem keeps inserts and deletes in class_records.csv.wal
+ * until a client that is alone folds them into the CSV, so the CSV by itself
+ * can be missing new students and still hold deleted ones. This reads the
+ * CSV the way StudentStore.load() does: snapshot lines minus the ones the log
+ * tombstones, then the rows the log inserts. Nothing is locked or written; a
+ * torn last log entry is ignored, and a log that belongs to another version
+ * of the CSV (its #base line does not match) is skipped with a warning.
+ *
+ * readLine() returns the header first, then one CSV line per live row.
+ *
+ * Copies: Prelim/ClassRecords.java, Prelim/AttendanceTracker/src/ClassRecords.java
+ * and Midterm/Machine Problem 3/Java/ClassRecords.java are identical; change all three.
+ */
+public class ClassRecords implements Closeable {
+
+    private InputStream csv;                  // null once the snapshot is read
+    private final Set<Long> deleted;          // snapshot line offsets tombstoned by the log
+    private final Iterator<String> inserts;   // live rows added through the log
+    private byte[] line = new byte[256];
+    private long offset;
+
+    private ClassRecords(InputStream csv, Set<Long> deleted, Collection<String> inserts) {
+        this.csv = csv;
+        this.deleted = deleted;
+        this.inserts = inserts.iterator();
+    }
+
+    /** The log next to {@code csv}. */
+    static Path logOf(File csv) {
+        return csv.toPath().resolveSibling(csv.getName() + ".wal");
+    }
+
+    /** Whether a log with entries exists next to {@code csv}. */
+    static boolean hasLog(File csv) throws IOException {
+        Path log = logOf(csv);
+        if (!Files.exists(log)) return false;
+        try (BufferedReader br = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            return br.readLine() != null && br.readLine() != null;
+        }
+    }
+
+    static ClassRecords open(File csvFile) throws IOException {
+        Map<Long, String> logRows = new LinkedHashMap<>();
+        Set<Long> deleted = new HashSet<>();
+        Path log = logOf(csvFile);
+        if (Files.exists(log)) readLog(log, csvFile, logRows, deleted);
+        return new ClassRecords(new BufferedInputStream(new FileInputStream(csvFile), 1 << 16),
+                deleted, logRows.values());
+    }
+
+    // Same rules as StudentStore.replay(): "+,<row>" inserts at -(offset + 1),
+    // "-,<id>,<location>" removes a log row or a snapshot line
+    private static void readLog(Path log, File csvFile, Map<Long, String> logRows, Set<Long> deleted)
+            throws IOException {
+        byte[] bytes = Files.readAllBytes(log);
+        int end = 0;
+        while (end < bytes.length && bytes[end] != '\n') end++;
+        if (end == bytes.length) return;
+        if (!matchesCsv(new String(bytes, 0, end, StandardCharsets.UTF_8), csvFile)) {
+            System.err.println("[ClassRecords] " + log.getFileName()
+                    + " does not match the current CSV, ignoring it.");
+            return;
+        }
+        for (int start = end + 1; start < bytes.length; start = end + 1) {
+            end = start;
+            while (end < bytes.length && bytes[end] != '\n') end++;
+            if (end == bytes.length) break;   // torn last entry
+            String entry = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            if (entry.endsWith("\r")) entry = entry.substring(0, entry.length() - 1);
+            if (entry.length() < 2) continue;
+            if (entry.charAt(0) == '+') {
+                logRows.put(-((long) start + 1), entry.substring(2));
+            } else if (entry.charAt(0) == '-') {
+                long location = Long.parseLong(entry.substring(entry.lastIndexOf(',') + 1));
+                if (logRows.remove(location) == null) deleted.add(location);
+            }
+        }
+    }
+
+    // #base,<generation>,<csv size>,<csv mtime>, or #base,<size>,<mtime> from before generations
+    private static boolean matchesCsv(String base, File csvFile) {
+        String[] f = base.split(",");
+        if (f.length < 3 || !f[0].equals("#base")) return false;
+        String stamp = csvFile.exists() ? csvFile.length() + "," + csvFile.lastModified() : "0,0";
+        return (f[f.length - 2] + "," + f[f.length - 1]).equals(stamp);
+    }
+
+    /** Next live line (the header first), or null at the end. */
+    String readLine() throws IOException {
+        while (csv != null) {
+            long start = offset;
+            String s = nextCsvLine();
+            if (s == null) {
+                csv.close();
+                csv = null;
+            } else if (deleted.isEmpty() || !deleted.contains(start)) {
+                return s;
+            }
+        }
+        return inserts.hasNext() ? inserts.next() : null;
+    }
+
+    // One line of the snapshot, counting bytes so tombstone offsets line up
+    private String nextCsvLine() throws IOException {
+        int n = 0, b;
+        while ((b = csv.read()) >= 0) {
+            offset++;
+            if (b == '\n') break;
+            if (n == line.length) line = Arrays.copyOf(line, n * 2);
+            line[n++] = (byte) b;
+        }
+        if (b < 0 && n == 0) return null;
+        if (n > 0 && line[n - 1] == '\r') n--;
+        return new String(line, 0, n, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (csv != null) csv.close();
+    }
+}
@@ -0,0 +1,310 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * GradeEngine - bulk prelim grade computation over class_records.csv.
+ *
+ * Uses the same formula as Prelim/JAVAJS/PrelimGradeCal.html:
+ *   Lab Work Average = (LW1 + LW2 + LW3) / 3
+ *   Class Standing   = (40% x Attendance) + (60% x Lab Work Average)
+ *   Prelim Grade     = (70% x Prelim Exam) + (30% x Class Standing)
+ *   Passing grade    = 75
+ *
+ * The roster is read through ClassRecords, so students added or deleted in
+ * StudentRecordSystem count even while the change log is not folded into
+ * the CSV yet. Scores must be numbers from 0 to 100 (decimals allowed), as
+ * the JS form's validateInput() demands; a student with a blank, non-numeric
+ * or out-of-range score is not graded but listed as invalid.
+ *
+ * The numeric columns are loaded into primitive arrays (one double[] per column)
+ * and the whole roster is computed in one tight loop over those arrays, which
+ * the JIT can unroll and vectorize. --parallel splits the loop into chunks on
+ * the common ForkJoinPool and merges the per-chunk statistics.
+ *
+ * Usage:
+ *   java GradeEngine [class_records.csv] [--parallel] [--out grade_results.csv]
+ *   java GradeEngine --bench 1000000
+ */
+public class GradeEngine {
+
+    static final double PRELIM_EXAM_WEIGHT    = 0.70;
+    static final double CLASS_STANDING_WEIGHT = 0.30;
+    static final double ATTENDANCE_WEIGHT     = 0.40;
+    static final double LABWORK_WEIGHT        = 0.60;
+    static final double PASSING_GRADE         = 75.0;
+
+    static final int CHUNK = 1 << 16;
+    static final int MAX_PROBLEMS = 20;   // invalid scores listed in the summary
+
+    // Roster, column by column
+    String[] ids, firstNames, lastNames;
+    double[] lab1, lab2, lab3, exam, attendance;
+    int size;
+
+    // Rows left out of the computation, one message per invalid score
+    int invalidRows, invalidScores;
+    final List<String> problems = new ArrayList<>();
+
+    // Results
+    double[] classStanding, prelimGrade;
+    boolean[] passed;
+
+    /** Class statistics for one computed range of students. */
+    static final class Stats {
+        int count, passCount;
+        double sum, sumSquares;
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+        Stats merge(Stats o) {
+            count += o.count;
+            passCount += o.passCount;
+            sum += o.sum;
+            sumSquares += o.sumSquares;
+            min = Math.min(min, o.min);
+            max = Math.max(max, o.max);
+            return this;
+        }
+
+        double mean()     { return count == 0 ? 0 : sum / count; }
+        double stdDev()   { return count == 0 ? 0 : Math.sqrt(Math.max(0, sumSquares / count - mean() * mean())); }
+        double passRate() { return count == 0 ? 0 : 100.0 * passCount / count; }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  ENTRY POINT
+    // ------------------------------------------------------------------ //
+    public static void main(String[] args) throws IOException {
+        String file = "class_records.csv";
+        String out = "grade_results.csv";
+        boolean parallel = false;
+        int bench = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--parallel": parallel = true; break;
+                case "--out":      out = args[++i]; break;
+                case "--bench":    bench = Integer.parseInt(args[++i]); break;
+                default:           file = args[i];
+            }
+        }
+
+        if (bench > 0) {
+            benchmark(bench);
+            return;
+        }
+
+        GradeEngine engine = new GradeEngine();
+        long t0 = System.nanoTime();
+        engine.load(Paths.get(file));
+        long t1 = System.nanoTime();
+        Stats stats = parallel ? engine.computeParallel() : engine.compute(0, engine.size);
+        long t2 = System.nanoTime();
+        engine.writeResults(Paths.get(out));
+        long t3 = System.nanoTime();
+
+        System.out.println("============================================================");
+        System.out.println("PRELIM GRADE ENGINE - " + file);
+        System.out.println("============================================================");
+        System.out.printf("  Students      : %,d%n", stats.count);
+        if (engine.invalidRows > 0) {
+            System.out.printf("  Not graded    : %,d (%,d invalid scores)%n", engine.invalidRows, engine.invalidScores);
+        }
+        System.out.printf("  Passed        : %,d (%.1f%%)%n", stats.passCount, stats.passRate());
+        System.out.printf("  Failed        : %,d%n", stats.count - stats.passCount);
+        System.out.printf("  Average grade : %.2f%n", stats.mean());
+        System.out.printf("  Std deviation : %.2f%n", stats.stdDev());
+        System.out.printf("  Lowest grade  : %.2f%n", stats.min);
+        System.out.printf("  Highest grade : %.2f%n", stats.max);
+        System.out.printf("%n  Load %.1f ms | Compute (%s) %.2f ms | Write %.1f ms%n",
+                (t1 - t0) / 1e6, parallel ? "parallel" : "single", (t2 - t1) / 1e6, (t3 - t2) / 1e6);
+        System.out.println("  Results written to " + out);
+        for (int i = 0; i < Math.min(MAX_PROBLEMS, engine.problems.size()); i++) {
+            System.out.println("  ! " + engine.problems.get(i));
+        }
+        if (engine.problems.size() > MAX_PROBLEMS) {
+            System.out.printf("  ! ... and %,d more%n", engine.problems.size() - MAX_PROBLEMS);
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  LOAD: numeric columns straight into double[]
+    // ------------------------------------------------------------------ //
+    static final String[] SCORE_COLUMNS = {"LAB WORK 1", "LAB WORK 2", "LAB WORK 3", "PRELIM EXAM", "ATTENDANCE GRADE"};
+
+    void load(Path path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (ClassRecords in = ClassRecords.open(path.toFile())) {
+            String line = in.readLine();   // skip header
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) lines.add(line);
+            }
+        }
+        allocate(lines.size());
+
+        int n = 0;
+        double[] scores = new double[SCORE_COLUMNS.length];
+        for (String line : lines) {
+            String[] col = line.split(",", -1);
+            if (col.length < 8) continue;
+            boolean valid = true;
+            for (int c = 0; c < scores.length; c++) {
+                scores[c] = parseScore(col[3 + c]);
+                if (Double.isNaN(scores[c])) {
+                    valid = false;
+                    invalidScores++;
+                    problems.add(col[0] + " " + SCORE_COLUMNS[c] + ": '" + col[3 + c].trim() + "' is not a number from 0 to 100");
+                }
+            }
+            if (!valid) {
+                invalidRows++;
+                continue;
+            }
+            ids[n]        = col[0];
+            firstNames[n] = col[1];
+            lastNames[n]  = col[2];
+            lab1[n]       = scores[0];
+            lab2[n]       = scores[1];
+            lab3[n]       = scores[2];
+            exam[n]       = scores[3];
+            attendance[n] = scores[4];
+            n++;
+        }
+        size = n;
+    }
+
+    void allocate(int capacity) {
+        ids = new String[capacity];
+        firstNames = new String[capacity];
+        lastNames = new String[capacity];
+        lab1 = new double[capacity];
+        lab2 = new double[capacity];
+        lab3 = new double[capacity];
+        exam = new double[capacity];
+        attendance = new double[capacity];
+        classStanding = new double[capacity];
+        prelimGrade = new double[capacity];
+        passed = new boolean[capacity];
+    }
+
+    // A score from 0 to 100, decimals allowed; NaN for blank, non-numeric or
+    // out-of-range input, which the JS form's validateInput() rejects
+    static double parseScore(String s) {
+        s = s.trim();
+        // Double.parseDouble would also take "85d" or "0x1p6"
+        if (s.isEmpty() || !Character.isDigit(s.charAt(s.length() - 1)) && s.charAt(s.length() - 1) != '.'
+                || s.indexOf('x') >= 0 || s.indexOf('X') >= 0) {
+            return Double.NaN;
+        }
+        double v;
+        try {
+            v = Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+        return v >= 0 && v <= 100 ? v : Double.NaN;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  COMPUTE
+    // ------------------------------------------------------------------ //
+
+    /** Computes grades for students [from, to) in one pass over the arrays. */
+    Stats compute(int from, int to) {
+        Stats s = new Stats();
+        for (int i = from; i < to; i++) {
+            double labAverage = (lab1[i] + lab2[i] + lab3[i]) / 3.0;
+            double standing = ATTENDANCE_WEIGHT * attendance[i] + LABWORK_WEIGHT * labAverage;
+            double grade = PRELIM_EXAM_WEIGHT * exam[i] + CLASS_STANDING_WEIGHT * standing;
+            boolean pass = grade >= PASSING_GRADE;
+
+            classStanding[i] = standing;
+            prelimGrade[i] = grade;
+            passed[i] = pass;
+
+            s.sum += grade;
+            s.sumSquares += grade * grade;
+            if (grade < s.min) s.min = grade;
+            if (grade > s.max) s.max = grade;
+            if (pass) s.passCount++;
+        }
+        s.count = to - from;
+        return s;
+    }
+
+    /** Same as compute(0, size), split into chunks on the common ForkJoinPool. */
+    Stats computeParallel() {
+        int chunks = (size + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> compute(c * CHUNK, Math.min(size, (c + 1) * CHUNK)))
+                .reduce(new Stats(), Stats::merge);
+    }
+
+    // ------------------------------------------------------------------ //
+    //  OUTPUT
+    // ------------------------------------------------------------------ //
+    void writeResults(Path path) throws IOException {
+        try (Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            w.write("StudentID,first_name,last_name,CLASS STANDING,PRELIM GRADE,REMARK\n");
+            StringBuilder line = new StringBuilder(96);
+            for (int i = 0; i < size; i++) {
+                line.setLength(0);
+                line.append(ids[i]).append(',')
+                    .append(firstNames[i]).append(',')
+                    .append(lastNames[i]).append(',');
+                appendFixed2(line, classStanding[i]).append(',');
+                appendFixed2(line, prelimGrade[i]).append(',')
+                    .append(passed[i] ? "PASSED" : "FAILED").append('\n');
+                w.append(line);
+            }
+        }
+    }
+
+    // Two decimals without String.format (grades are never negative)
+    static StringBuilder appendFixed2(StringBuilder sb, double v) {
+        long cents = Math.round(v * 100);
+        sb.append(cents / 100).append('.');
+        long frac = cents % 100;
+        if (frac < 10) sb.append('0');
+        return sb.append(frac);
+    }
+
+    // ------------------------------------------------------------------ //
+    //  BENCHMARK (synthetic roster)
+    // ------------------------------------------------------------------ //
+    static void benchmark(int n) {
+        GradeEngine engine = new GradeEngine();
+        engine.allocate(n);
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            engine.lab1[i] = random.nextInt(101);
+            engine.lab2[i] = random.nextInt(101);
+            engine.lab3[i] = random.nextInt(101);
+            engine.exam[i] = random.nextInt(101);
+            engine.attendance[i] = random.nextInt(101);
+        }
+        engine.size = n;
+
+        System.out.printf("Benchmark: %,d synthetic students, %d cores%n",
+                n, Runtime.getRuntime().availableProcessors());
+        for (boolean parallel : new boolean[]{false, true}) {
+            // Warm up the JIT first
+            for (int i = 0; i < 5; i++) run(engine, parallel);
+            long best = Long.MAX_VALUE;
+            Stats stats = null;
+            for (int i = 0; i < 10; i++) {
+                long t = System.nanoTime();
+                stats = run(engine, parallel);
+                best = Math.min(best, System.nanoTime() - t);
+            }
+            System.out.printf("  %-8s : best %7.2f ms  (%.1f M students/s, pass rate %.1f%%, avg %.2f)%n",
+                    parallel ? "parallel" : "single", best / 1e6, n / (best / 1e3) , stats.passRate(), stats.mean());
+        }
+    }
+
+    private static Stats run(GradeEngine engine, boolean parallel) {
+        return parallel ? engine.computeParallel() : engine.compute(0, engine.size);
+    }
+}
@@ -0,0 +1,293 @@
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * RosterIndex - prebuilt search indexes over the StudentRecordSystem roster.
+ *
+ *   StudentID      hash index        exact match
+ *   First/Last     prefix trie       "osb", "wakensh"
+ *   Grade columns  sorted int[]      "PRELIM EXAM < 40", "LAB WORK 2 >= 75.5"
+ *
+ * The index is built once, off the event thread, over a snapshot of the row
+ * handles; every indexed row gets a slot. A query is answered with a BitSet of
+ * slots from the indexes (binary search / trie walk, no per-row parsing), so
+ * the RowFilter only has to test a bit per row. Rows added after the build
+ * have no slot and are checked directly against the query instead.
+ *
+ * Grades may have decimals (GradeEngine grades 85.5); they are kept as
+ * fixed-point hundredths in an int, so 85.5 is 8550 and grades and query
+ * bounds compare to two decimals.
+ */
+public class RosterIndex {
+
+    // Model columns holding numbers, in table order
+    static final int[] GRADE_COLS = {3, 4, 5, 6, 7};
+    static final int NOT_A_NUMBER = Integer.MIN_VALUE;
+
+    private static final Pattern RANGE = Pattern.compile(
+            "(?i)(lab\\s*work\\s*[123]|lab\\s*[123]|prelim(?:\\s*exam)?|attendance(?:\\s*grade)?)"
+            + "\\s*(<=|>=|<|>|=)\\s*(-?(?:\\d+(?:\\.\\d*)?|\\.\\d+))");
+
+    private final IdentityHashMap<StudentStore.Row, Integer> slotOf;
+    private final int size;
+    private final Map<String, int[]> byId = new HashMap<>();
+    private final TrieNode names = new TrieNode();
+    private final int[][] values = new int[RosterTableModel.COLUMNS.length][];   // [col][slot]
+    private final int[][] sortedSlots = new int[RosterTableModel.COLUMNS.length][];
+    private final int[][] sortedValues = new int[RosterTableModel.COLUMNS.length][];
+
+    /** Builds the index. Reads every row through the store, so call it off the EDT. */
+    public RosterIndex(StudentStore store, StudentStore.Row[] rows) {
+        size = rows.length;
+        slotOf = new IdentityHashMap<>(size * 2);
+        for (int col : GRADE_COLS) values[col] = new int[size];
+
+        for (int slot = 0; slot < size; slot++) {
+            String[] f = store.fields(rows[slot]);
+            slotOf.put(rows[slot], slot);
+
+            String id = field(f, 0).toLowerCase();
+            int[] ids = byId.get(id);
+            if (ids == null) {
+                ids = new int[]{slot};
+            } else {
+                ids = Arrays.copyOf(ids, ids.length + 1);
+                ids[ids.length - 1] = slot;
+            }
+            byId.put(id, ids);
+
+            names.insert(field(f, 1).toLowerCase(), slot);
+            names.insert(field(f, 2).toLowerCase(), slot);
+            for (int col : GRADE_COLS) values[col][slot] = parseGrade(field(f, col));
+        }
+
+        for (int col : GRADE_COLS) sortColumn(col);
+    }
+
+    // Slots ordered by value, via a packed (value, slot) long sort
+    private void sortColumn(int col) {
+        long[] packed = new long[size];
+        for (int slot = 0; slot < size; slot++) {
+            packed[slot] = ((long) values[col][slot] << 32) | slot;
+        }
+        Arrays.sort(packed);
+        sortedSlots[col] = new int[size];
+        sortedValues[col] = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedSlots[col][i] = (int) packed[i];
+            sortedValues[col][i] = (int) (packed[i] >> 32);
+        }
+    }
+
+    /** Slot of an indexed row, or -1 for rows added after the build. */
+    public int slot(StudentStore.Row row) {
+        Integer slot = slotOf.get(row);
+        return slot == null ? -1 : slot;
+    }
+
+    /** Indexed value of a grade column in hundredths, or NOT_A_NUMBER. */
+    public int value(int slot, int col) {
+        return values[col][slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  QUERIES
+    // ------------------------------------------------------------------ //
+
+    /** A parsed query: matching slots, plus a predicate for unindexed rows. */
+    public static final class Query {
+        public final BitSet slots;
+        public final Predicate<String[]> test;
+
+        Query(BitSet slots, Predicate<String[]> test) {
+            this.slots = slots;
+            this.test = test;
+        }
+    }
+
+    /**
+     * Parses a query such as {@code "osb PRELIM EXAM < 40"}. Range conditions
+     * on grade columns and free-text terms (exact StudentID or first/last name
+     * prefix) are all ANDed together. Returns null for an empty query.
+     */
+    public Query query(String text) {
+        BitSet result = null;
+        Predicate<String[]> test = f -> true;
+
+        Matcher m = RANGE.matcher(text);
+        while (m.find()) {
+            int col = columnOf(m.group(1));
+            String op = m.group(2);
+            int bound = parseBound(m.group(3));
+            result = and(result, range(col, op, bound));
+            test = test.and(f -> compare(parseGrade(field(f, col)), op, bound));
+        }
+
+        for (String term : m.replaceAll(" ").trim().toLowerCase().split("\\s+")) {
+            if (term.isEmpty()) continue;
+            BitSet hits = names.prefix(term, size);
+            int[] ids = byId.get(term);
+            if (ids != null) for (int slot : ids) hits.set(slot);
+            result = and(result, hits);
+            test = test.and(f -> field(f, 0).equalsIgnoreCase(term)
+                    || field(f, 1).toLowerCase().startsWith(term)
+                    || field(f, 2).toLowerCase().startsWith(term));
+        }
+
+        return result == null ? null : new Query(result, test);
+    }
+
+    // Slots whose value satisfies "value op bound", via binary search
+    private BitSet range(int col, String op, int bound) {
+        int[] sorted = sortedValues[col];
+        int firstNumber = lowerBound(sorted, NOT_A_NUMBER + 1);
+        int lo, hi;
+        switch (op) {
+            case "<":  lo = firstNumber; hi = lowerBound(sorted, bound); break;
+            case "<=": lo = firstNumber; hi = lowerBound(sorted, bound + 1); break;
+            case ">":  lo = lowerBound(sorted, bound + 1); hi = size; break;
+            case ">=": lo = lowerBound(sorted, bound); hi = size; break;
+            default:   lo = lowerBound(sorted, bound); hi = lowerBound(sorted, bound + 1); break;
+        }
+        BitSet hits = new BitSet(size);
+        for (int i = lo; i < hi; i++) hits.set(sortedSlots[col][i]);
+        return hits;
+    }
+
+    private static int lowerBound(int[] a, int key) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static boolean compare(int value, String op, int bound) {
+        if (value == NOT_A_NUMBER) return false;
+        switch (op) {
+            case "<":  return value < bound;
+            case "<=": return value <= bound;
+            case ">":  return value > bound;
+            case ">=": return value >= bound;
+            default:   return value == bound;
+        }
+    }
+
+    // Any grade parseGrade() accepts is at most 10^9 hundredths, strictly inside
+    // +-GRADE_LIMIT, so a bound clamped to it compares the same and
+    // "bound + 1" cannot overflow
+    private static final int GRADE_LIMIT = 2_000_000_000;
+
+    private static int parseBound(String number) {
+        boolean negative = number.startsWith("-");
+        String magnitude = (negative ? number.substring(1) : number).replaceFirst("^0+(?=\\d)", "");
+        int dot = magnitude.indexOf('.');
+        if ((dot < 0 ? magnitude.length() : dot) > 7) return negative ? -GRADE_LIMIT : GRADE_LIMIT;
+        int value = parseGrade(magnitude);
+        return negative ? -value : value;
+    }
+
+    private static BitSet and(BitSet acc, BitSet hits) {
+        if (acc == null) return hits;
+        acc.and(hits);
+        return acc;
+    }
+
+    private static int columnOf(String name) {
+        String n = name.toLowerCase().replaceAll("\\s+", "");
+        if (n.startsWith("prelim")) return 6;
+        if (n.startsWith("attendance")) return 7;
+        return 2 + (n.charAt(n.length() - 1) - '0');   // lab work 1..3 -> 3..5
+    }
+
+    // "85", "85.5", ".5" or "-3.25" in hundredths, rounded half up past the
+    // second decimal; at most 7 digits before the point
+    static int parseGrade(String s) {
+        s = s.trim();
+        int i = 0, sign = 1, v = 0;
+        if (s.startsWith("-")) { sign = -1; i = 1; }
+        int dot = s.indexOf('.', i);
+        int intEnd = dot < 0 ? s.length() : dot;
+        if (intEnd - i > 7 || intEnd == i && (dot < 0 || dot + 1 == s.length())) return NOT_A_NUMBER;
+        for (int k = i; k < intEnd; k++) {
+            char c = s.charAt(k);
+            if (c < '0' || c > '9') return NOT_A_NUMBER;
+            v = v * 10 + (c - '0');
+        }
+        v *= 100;
+        for (int k = intEnd + 1; k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c < '0' || c > '9') return NOT_A_NUMBER;
+            int place = k - intEnd;
+            if (place == 1) v += (c - '0') * 10;
+            else if (place == 2) v += c - '0';
+            else if (place == 3 && c >= '5') v++;
+        }
+        return sign * v;
+    }
+
+    private static String field(String[] f, int col) {
+        return col < f.length ? f[col] : "";
+    }
+
+    // ------------------------------------------------------------------ //
+    //  PREFIX TRIE (children kept as sorted char arrays)
+    // ------------------------------------------------------------------ //
+    private static final class TrieNode {
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        int[] slots;
+        int slotCount;
+
+        void insert(String word, int slot) {
+            TrieNode node = this;
+            for (int i = 0; i < word.length(); i++) node = node.child(word.charAt(i), true);
+            if (node.slots == null) node.slots = new int[1];
+            else if (node.slotCount == node.slots.length) node.slots = Arrays.copyOf(node.slots, node.slotCount * 2);
+            node.slots[node.slotCount++] = slot;
+        }
+
+        TrieNode child(char c, boolean create) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return children[i];
+            if (!create) return null;
+            i = -i - 1;
+            char[] k = new char[keys.length + 1];
+            TrieNode[] ch = new TrieNode[keys.length + 1];
+            System.arraycopy(keys, 0, k, 0, i);
+            System.arraycopy(children, 0, ch, 0, i);
+            k[i] = c;
+            ch[i] = new TrieNode();
+            System.arraycopy(keys, i, k, i + 1, keys.length - i);
+            System.arraycopy(children, i, ch, i + 1, keys.length - i);
+            keys = k;
+            children = ch;
+            return ch[i];
+        }
+
+        /** Slots of every word starting with prefix. */
+        BitSet prefix(String prefix, int size) {
+            BitSet hits = new BitSet(size);
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) node = node.child(prefix.charAt(i), false);
+            if (node == null) return hits;
+
+            Deque<TrieNode> stack = new ArrayDeque<>();
+            stack.push(node);
+            while (!stack.isEmpty()) {
+                TrieNode n = stack.pop();
+                for (int i = 0; i < n.slotCount; i++) hits.set(n.slots[i]);
+                for (TrieNode c : n.children) stack.push(c);
+            }
+            return hits;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Comparator;
+import javax.swing.DefaultRowSorter;
+import javax.swing.RowFilter;
+
+/**
+ * RosterRowSorter - row sorter/filter for the lazy roster table.
+ *
+ * Grade columns sort numerically: their values come from the RosterIndex
+ * int arrays (boxed through the Integer cache), so sorting does not parse the
+ * CSV. Filtering goes through a RosterIndex.Query, which costs one bit test
+ * per indexed row.
+ */
+public class RosterRowSorter extends DefaultRowSorter<RosterTableModel, Integer> {
+
+    private final RosterTableModel model;
+    private volatile RosterIndex index;
+
+    public RosterRowSorter(RosterTableModel model) {
+        this.model = model;
+        setModelWrapper(new ModelWrapper<RosterTableModel, Integer>() {
+            @Override
+            public RosterTableModel getModel() {
+                return model;
+            }
+
+            @Override
+            public int getColumnCount() {
+                return model.getColumnCount();
+            }
+
+            @Override
+            public int getRowCount() {
+                return model.getRowCount();
+            }
+
+            @Override
+            public Object getValueAt(int row, int column) {
+                return isGrade(column) ? grade(row, column) : model.getValueAt(row, column);
+            }
+
+            @Override
+            public Integer getIdentifier(int row) {
+                return row;
+            }
+        });
+        for (int col : RosterIndex.GRADE_COLS) {
+            setComparator(col, Comparator.<Integer>naturalOrder());
+        }
+    }
+
+    /** Switches to a freshly built index and re-sorts with it. */
+    public void setIndex(RosterIndex index) {
+        this.index = index;
+        allRowsChanged();
+    }
+
+    public RosterIndex getIndex() {
+        return index;
+    }
+
+    /** Filters on a query, or shows every row if the query is null. */
+    public void setQuery(RosterIndex.Query query) {
+        RosterIndex idx = index;
+        if (query == null || idx == null) {
+            setRowFilter(null);
+            return;
+        }
+        setRowFilter(new RowFilter<RosterTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends RosterTableModel, ? extends Integer> entry) {
+                int row = entry.getIdentifier();
+                int slot = idx.slot(model.getRow(row));
+                return slot >= 0 ? query.slots.get(slot) : query.test.test(model.fields(row));
+            }
+        });
+    }
+
+    private Integer grade(int row, int column) {
+        RosterIndex idx = index;
+        int slot = idx == null ? -1 : idx.slot(model.getRow(row));
+        int value = slot >= 0
+                ? idx.value(slot, column)
+                : RosterIndex.parseGrade(model.getValueAt(row, column).toString());
+        return value == RosterIndex.NOT_A_NUMBER ? null : value;
+    }
+
+    private static boolean isGrade(int column) {
+        return column >= RosterIndex.GRADE_COLS[0];
+    }
+}
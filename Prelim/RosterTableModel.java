@@ -0,0 +1,118 @@
+import java.util.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * RosterTableModel - lazy table model for StudentRecordSystem.
+ *
+ * The model only keeps one StudentStore.Row handle per row. Cell values are
+ * parsed on demand from the store's memory-mapped CSV, a page of rows at a
+ * time, and kept in a small LRU page cache. JTable only asks for the rows in
+ * the JScrollPane viewport, so only those pages are ever parsed, and heap use
+ * no longer grows with a Vector<Vector<Object>> per row.
+ */
+public class RosterTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String[] COLUMNS = {
+        "StudentID", "First Name", "Last Name", "LAB WORK 1", "LAB WORK 2",
+        "LAB WORK 3", "PRELIM EXAM", "ATTENDANCE GRADE"
+    };
+    static final int PAGE_SIZE = 128;
+    static final int MAX_PAGES = 64;
+
+    private final StudentStore store;
+    private final ArrayList<StudentStore.Row> rows = new ArrayList<>();
+
+    // page number -> parsed rows of that page, least recently used first
+    private final LinkedHashMap<Integer, String[][]> pages =
+            new LinkedHashMap<Integer, String[][]>(MAX_PAGES * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, String[][]> eldest) {
+                    return size() > MAX_PAGES;
+                }
+            };
+
+    public RosterTableModel(StudentStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        String[] fields = fields(rowIndex);
+        return columnIndex < fields.length ? fields[columnIndex] : "";
+    }
+
+    /** Parsed fields of one row, through the page cache. */
+    public String[] fields(int rowIndex) {
+        int page = rowIndex / PAGE_SIZE;
+        String[][] cached = pages.get(page);
+        if (cached == null) {
+            int from = page * PAGE_SIZE;
+            int to = Math.min(from + PAGE_SIZE, rows.size());
+            cached = new String[to - from][];
+            for (int i = from; i < to; i++) {
+                cached[i - from] = store.fields(rows.get(i));
+            }
+            pages.put(page, cached);
+        }
+        return cached[rowIndex - page * PAGE_SIZE];
+    }
+
+    public StudentStore.Row getRow(int rowIndex) {
+        return rows.get(rowIndex);
+    }
+
+    /** Copy of the current row handles, e.g. to build a RosterIndex from. */
+    public StudentStore.Row[] snapshot() {
+        return rows.toArray(new StudentStore.Row[0]);
+    }
+
+    public void addRow(StudentStore.Row row) {
+        addRows(Collections.singletonList(row));
+    }
+
+    public void addRows(List<StudentStore.Row> chunk) {
+        if (chunk.isEmpty()) return;
+        int first = rows.size();
+        rows.addAll(chunk);
+        pages.remove(first / PAGE_SIZE);   // the last page was partial
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    /** Removes the row with this handle, if the table still has it. */
+    public void removeRow(StudentStore.Row row) {
+        int rowIndex = rows.indexOf(row);
+        if (rowIndex >= 0) removeRow(rowIndex);
+    }
+
+    /** Replaces every row, e.g. after the store reloaded its files. */
+    public void setRows(List<StudentStore.Row> all) {
+        rows.clear();
+        rows.addAll(all);
+        pages.clear();
+        fireTableDataChanged();
+    }
+
+    public void removeRow(int rowIndex) {
+        rows.remove(rowIndex);
+        // Every page from here on has shifted by one row
+        pages.keySet().removeIf(page -> page >= rowIndex / PAGE_SIZE);
+        fireTableRowsDeleted(rowIndex, rowIndex);
+    }
+}
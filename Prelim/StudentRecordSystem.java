@@ -1,25 +1,40 @@
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.*;
+import java.util.List;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
+@SuppressWarnings("try")
 public class StudentRecordSystem extends JFrame {
 
     JTable table;
-    DefaultTableModel model;
+    RosterTableModel model;
+    RosterRowSorter sorter;
+    JTextField txtSearch;
+    Timer searchTimer;
+    int rowsSinceIndex;
     JTextField txtID, txtFirstName, txtLastName, txtLab1, txtLab2, txtLab3, txtPrelim, txtAttendance;
     final String FILE_NAME = "class_records.csv";
+    StudentStore store;
+    JLabel lblStatus;
+
+    // Rebuild the search index once this many rows were added after the last build
+    final int REINDEX_AFTER = 1000;
+
+    // EDT blocking time of our own event handlers
+    long edtEvents, edtTotalNanos, edtMaxNanos;
 
     public StudentRecordSystem() {
         setTitle("Student Record System");
         setSize(900, 400);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         setLayout(new BorderLayout());
 
-        // Table
-        model = new DefaultTableModel(
-                new String[]{"StudentID", "First Name", "Last Name", "LAB WORK 1", "LAB WORK 2", "LAB WORK 3", "PRELIM EXAM", "ATTENDANCE GRADE"}, 0
-        );
+        // Table (lazy model, replaced once the store is open)
+        model = new RosterTableModel(null);
         table = new JTable(model);
         add(new JScrollPane(table), BorderLayout.CENTER);
 
@@ -61,13 +76,35 @@ public class StudentRecordSystem extends JFrame {
         panel.add(btnAdd);
 
         add(panel, BorderLayout.SOUTH);
-        add(btnDelete, BorderLayout.NORTH);
+
+        // Query bar, e.g. "osb", "073900438" or "PRELIM EXAM < 40"
+        txtSearch = new JTextField();
+        txtSearch.setToolTipText("StudentID, name prefix and/or conditions like PRELIM EXAM < 40, LAB WORK 2 >= 75");
+        searchTimer = new Timer(150, e -> timed(this::applySearch));
+        searchTimer.setRepeats(false);
+        txtSearch.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e)  { searchTimer.restart(); }
+            public void removeUpdate(DocumentEvent e)  { searchTimer.restart(); }
+            public void changedUpdate(DocumentEvent e) { searchTimer.restart(); }
+        });
+
+        JPanel search = new JPanel(new BorderLayout());
+        search.add(new JLabel(" Search: "), BorderLayout.WEST);
+        search.add(txtSearch, BorderLayout.CENTER);
+
+        JPanel top = new JPanel(new BorderLayout());
+        lblStatus = new JLabel("Loading...");
+        lblStatus.setBorder(BorderFactory.createEmptyBorder(0, 8, 0, 8));
+        top.add(btnDelete, BorderLayout.WEST);
+        top.add(search, BorderLayout.CENTER);
+        top.add(lblStatus, BorderLayout.EAST);
+        add(top, BorderLayout.NORTH);
 
         loadCSV();
 
-        // ADD → update CSV
-        btnAdd.addActionListener(e -> {
-            model.addRow(new Object[]{
+        // ADD → queue insert (written to the log in the background)
+        btnAdd.addActionListener(e -> timed(() -> {
+            String[] row = {
                     txtID.getText(),
                     txtFirstName.getText(),
                     txtLastName.getText(),
@@ -76,60 +113,183 @@ public class StudentRecordSystem extends JFrame {
                     txtLab3.getText(),
                     txtPrelim.getText(),
                     txtAttendance.getText()
-            });
-            saveCSV();
+            };
+            if (row[0].trim().isEmpty()) {
+                JOptionPane.showMessageDialog(this, "StudentID is required.");
+                return;
+            }
+            if (store == null) {
+                JOptionPane.showMessageDialog(this, "Records are still loading.");
+                return;
+            }
+            model.addRow(store.insert(row));
             clearFields();
-        });
+            if (++rowsSinceIndex >= REINDEX_AFTER) buildIndex();
+        }));
 
-        // DELETE → update CSV
-        btnDelete.addActionListener(e -> {
+        // DELETE → queue tombstone (written to the log in the background)
+        btnDelete.addActionListener(e -> timed(() -> {
             int row = table.getSelectedRow();
-            if (row != -1) {
+            if (row != -1 && store != null) {
+                row = table.convertRowIndexToModel(row);
+                store.delete(model.getRow(row));
                 model.removeRow(row);
-                saveCSV();
+            }
+        }));
+
+        // Flush and fold the log back into the CSV off the EDT, then exit
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                dispose();
+                new Thread(() -> {
+                    try (Metrics.Phase phase = Metrics.phase("close")) {
+                        closeStore();
+                    }
+                    System.out.println(edtSummary());
+                    Metrics.dump();
+                    System.exit(0);
+                }, "student-store-close").start();
             }
         });
     }
 
-    // Load CSV
+    // Load CSV (snapshot + log replay) on a worker thread; row handles are
+    // published to the table in chunks as they are found
     private void loadCSV() {
-        try (BufferedReader br = new BufferedReader(new FileReader(FILE_NAME))) {
-            String line;
-            br.readLine(); // skip header
-            while ((line = br.readLine()) != null) {
-                model.addRow(line.split(","));
+        new SwingWorker<StudentStore, StudentStore.Row>() {
+            @Override
+            protected StudentStore doInBackground() throws Exception {
+                StudentStore opened = new StudentStore(FILE_NAME);
+                SwingUtilities.invokeAndWait(() -> {
+                    model = new RosterTableModel(opened);
+                    sorter = new RosterRowSorter(model);
+                    table.setModel(model);
+                    table.setRowSorter(sorter);
+                });
+                try (Metrics.Phase phase = Metrics.phase("load")) {
+                    opened.load(this::publish);
+                }
+                return opened;
             }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error loading CSV file.");
-        }
+
+            @Override
+            protected void process(List<StudentStore.Row> chunk) {
+                Metrics.count("rows.loaded", chunk.size());
+                timed(() -> model.addRows(chunk));
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    store = get();
+                    store.setErrorHandler(ex -> SwingUtilities.invokeLater(() ->
+                            JOptionPane.showMessageDialog(StudentRecordSystem.this, "Error saving CSV file.")));
+                    store.setChangeListener(new StudentStore.ChangeListener() {
+                        @Override
+                        public void changed(List<StudentStore.Row> inserted, List<StudentStore.Row> deleted) {
+                            SwingUtilities.invokeLater(() -> timed(() -> mergeChanges(inserted, deleted)));
+                        }
+
+                        @Override
+                        public void reloaded(List<StudentStore.Row> rows) {
+                            SwingUtilities.invokeLater(() -> timed(() -> {
+                                model.setRows(rows);
+                                buildIndex();
+                            }));
+                        }
+                    });
+                    updateStatus();
+                    buildIndex();
+                } catch (Exception ex) {
+                    lblStatus.setText("Load failed");
+                    JOptionPane.showMessageDialog(StudentRecordSystem.this, "Error loading CSV file.");
+                }
+            }
+        }.execute();
+    }
+
+    // Rows other instructors added or deleted in the same CSV
+    private void mergeChanges(List<StudentStore.Row> inserted, List<StudentStore.Row> deleted) {
+        for (StudentStore.Row row : deleted) model.removeRow(row);
+        model.addRows(inserted);
+        rowsSinceIndex += inserted.size();
+        if (rowsSinceIndex >= REINDEX_AFTER) buildIndex();
     }
 
-    // SAVE CSV (rewrite file)
-    private void saveCSV() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(FILE_NAME))) {
-
-            // Header
-            pw.println("StudentID,First Name,Last Name,LAB WORK 1,LAB WORK 2,LAB WORK 3,PRELIM EXAM,ATTENDANCE GRADE");
-
-            // Data
-            for (int i = 0; i < model.getRowCount(); i++) {
-                pw.println(
-                        model.getValueAt(i, 0) + "," +
-                        model.getValueAt(i, 1) + "," +
-                        model.getValueAt(i, 2) + "," +
-                        model.getValueAt(i, 3) + "," +
-                        model.getValueAt(i, 4) + "," +
-                        model.getValueAt(i, 5) + "," +
-                        model.getValueAt(i, 6) + "," +
-                        model.getValueAt(i, 7)
-                );
+    // Build the search indexes over the current rows on a worker thread
+    private void buildIndex() {
+        StudentStore.Row[] rows = model.snapshot();
+        rowsSinceIndex = 0;
+        new SwingWorker<RosterIndex, Void>() {
+            @Override
+            protected RosterIndex doInBackground() {
+                try (Metrics.Phase phase = Metrics.phase("index")) {
+                    return new RosterIndex(store, rows);
+                }
             }
 
+            @Override
+            protected void done() {
+                try {
+                    RosterIndex index = get();
+                    timed(() -> {
+                        sorter.setIndex(index);
+                        applySearch();
+                    });
+                } catch (Exception ex) {
+                    System.err.println("Could not build search index: " + ex);
+                }
+            }
+        }.execute();
+    }
+
+    private void applySearch() {
+        RosterIndex index = sorter == null ? null : sorter.getIndex();
+        if (index == null) return;
+        sorter.setQuery(index.query(txtSearch.getText()));
+    }
+
+    private void closeStore() {
+        if (store == null) return;
+        try {
+            store.close();
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error saving CSV file.");
+            System.err.println("Error saving CSV file: " + e.getMessage());
+        }
+    }
+
+    // Runs an EDT handler and records how long it blocked the EDT
+    private void timed(Runnable handler) {
+        long start = System.nanoTime();
+        try {
+            handler.run();
+        } finally {
+            long took = System.nanoTime() - start;
+            edtEvents++;
+            edtTotalNanos += took;
+            edtMaxNanos = Math.max(edtMaxNanos, took);
+            Metrics.record("edt.handler", took);
+            if (store != null) updateStatus();
         }
     }
 
+    private void updateStatus() {
+        lblStatus.setText(String.format("%,d of %,d records  |  EDT avg %.3f ms, max %.3f ms",
+                table.getRowCount(),
+                model.getRowCount(),
+                edtEvents == 0 ? 0.0 : edtTotalNanos / 1e6 / edtEvents,
+                edtMaxNanos / 1e6));
+    }
+
+    private String edtSummary() {
+        return String.format("EDT handlers: %d events, avg %.3f ms, max %.3f ms, total %.1f ms",
+                edtEvents,
+                edtEvents == 0 ? 0.0 : edtTotalNanos / 1e6 / edtEvents,
+                edtMaxNanos / 1e6,
+                edtTotalNanos / 1e6);
+    }
+
     private void clearFields() {
         txtID.setText("");
         txtFirstName.setText("");
@@ -142,6 +302,7 @@ public class StudentRecordSystem extends JFrame {
     }
 
     public static void main(String[] args) {
-        new StudentRecordSystem().setVisible(true);
+        Metrics.init("StudentRecordSystem", args);
+        SwingUtilities.invokeLater(() -> new StudentRecordSystem().setVisible(true));
     }
 }
@@ -0,0 +1,987 @@
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * StudentStore - append-only storage engine behind StudentRecordSystem.
+ *
+ * class_records.csv is kept as the snapshot (and export format). Every Add or
+ * Delete is appended to a write-ahead log next to it instead of rewriting the
+ * whole CSV:
+ *
+ *   #base,3,48213,1760857200000                       generation, CSV size/mtime the log applies to
+ *   +,073900438,Osbourne,Wakenshaw,69,5,52,12,78     insert
+ *   -,073900438,1234                                 tombstone for the row at location 1234
+ *
+ * Every live row has a location: a byte offset into the CSV (>= 0) or into
+ * the log (encoded as -(offset + 1)). StudentIDs are not unique in
+ * class_records.csv, so the in-memory index maps StudentID -> rows, and each
+ * Row handle carries its current location (updated in place by compaction).
+ *
+ * insert() and delete() only touch memory. The entries are queued and written
+ * by a single background I/O thread, debounced so a burst of clicks becomes
+ * one write. The same thread periodically folds the log back into the CSV and
+ * starts a new log, so no caller (in particular the Swing event thread) ever
+ * waits on the disk. If the process dies between the CSV rewrite and the new
+ * log, the #base line no longer matches the CSV and the already-folded log is
+ * discarded on open.
+ *
+ * The CSV is memory-mapped. Rows are not kept parsed in memory: a Row handle
+ * only knows its StudentID and location, and fields(row) parses the line
+ * straight out of the mapping when the table needs it. Windows will not
+ * replace a file that is mapped, so folding unmaps the CSV explicitly just
+ * before moving the new one into place, under the store lock.
+ *
+ * Several clients (instructors) may have the same CSV open. They share the
+ * one log and coordinate through class_records.csv.lock:
+ *
+ *   - Byte 0 is the write lock. It is held around each batch append and
+ *     nothing else slow: the holder first reads the entries other clients
+ *     appended since its last look ("tailing", usually nothing), applies them
+ *     to its index, then writes its batch with one positional write. Entries
+ *     of others are also tailed every POLL_MILLIS. Changes arrive as inserts
+ *     and tombstones, so nobody reloads the whole file to see them.
+ *   - Byte 1 is held shared by every client while it is open. Folding the log
+ *     into the CSV moves every row, so a client only compacts when it can get
+ *     byte 1 exclusively, i.e. it is alone; otherwise the last one out does it.
+ *
+ * Rows are never changed in place, so a row's location doubles as its
+ * version. Deletes are optimistic: delete() takes no lock, and the queued
+ * tombstone is checked against the log at flush time. If another client has
+ * deleted the row in the meantime, the tombstone is dropped instead of being
+ * written twice (counted as store.conflicts).
+ *
+ * The generation in the #base line goes up with every new log. A client whose
+ * log has been replaced under it (a client of an older version compacting,
+ * or the CSV edited by hand) sees a different #base line and reloads.
+ */
+@SuppressWarnings("try")
+public class StudentStore implements Closeable {
+
+    static final String DEFAULT_HEADER =
+            "StudentID,First Name,Last Name,LAB WORK 1,LAB WORK 2,LAB WORK 3,PRELIM EXAM,ATTENDANCE GRADE";
+    static final long COMPACT_INTERVAL_SECONDS = 60;
+    static final long FLUSH_DELAY_MILLIS = 250;
+    static final long MAX_FLUSH_DELAY_MILLIS = 2000;
+    static final long POLL_MILLIS = 500;
+
+    // Location of a row whose insert has not reached the log yet
+    private static final long PENDING = Long.MIN_VALUE;
+
+    /** Handle to one live row; callers keep it to delete the row later. */
+    public static final class Row {
+        final String id;
+        long location;     // written by the I/O thread, read under the store lock
+        String[] fields;   // only for rows that are not in the CSV yet
+        Mapping snapshot;  // the CSV generation location points into
+
+        Row(String id, long location, String[] fields, Mapping snapshot) {
+            this.id = id;
+            this.location = location;
+            this.fields = fields;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /** Receives the live rows when the store is loaded. */
+    public interface RowSink {
+        void row(Row row);
+    }
+
+    /** Told about changes other clients made, on the I/O thread. */
+    public interface ChangeListener {
+        void changed(List<Row> inserted, List<Row> deleted);
+
+        /** The files were replaced: earlier handles are gone, rows are the live rows now. */
+        void reloaded(List<Row> rows);
+    }
+
+    private final Path csvPath;
+    private final Path logPath;
+    private final FileChannel log;
+    private final SharedLock shared;
+    private final ScheduledExecutorService io;
+
+    private final Map<String, List<Row>> index = new HashMap<>();
+    private final List<Mapping> mappings = new ArrayList<>();   // every one a Row may still read from
+    private String header = DEFAULT_HEADER;
+    private int rowCount;
+
+    // Queued log entries, guarded by the store lock
+    private List<Op> pending = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+    private long firstPendingAt;
+    private volatile Consumer<IOException> errorHandler = e ->
+            System.err.println("[StudentStore] Write failed: " + e.getMessage());
+
+    // Only touched by the I/O thread once the store is open
+    private long logSize;      // end of the last entry applied, ours or another client's
+    private int logEntries;
+    private long generation;
+    private byte[] base;       // the #base line (with '\n') the entries were applied against
+
+    // Changes of other clients not yet handed to the listener; they are
+    // delivered after the write lock is released (I/O thread)
+    private ChangeListener listener;
+    private final List<Row> unsentInserted = new ArrayList<>();
+    private final List<Row> unsentDeleted = new ArrayList<>();
+    private List<Row> unsentReload;
+
+    // One queued log entry: an insert (line != null) or a tombstone
+    private static final class Op {
+        final Row row;
+        final String line;
+
+        Op(Row row, String line) {
+            this.row = row;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Opens (or creates) the log and the lock file next to {@code fileName}.
+     * Waits while another client is compacting. Call load() next.
+     */
+    public StudentStore(String fileName) throws IOException {
+        this.csvPath = Paths.get(fileName);
+        this.logPath = csvPath.resolveSibling(csvPath.getFileName() + ".wal");
+        this.shared = SharedLock.acquire(csvPath.resolveSibling(csvPath.getFileName() + ".lock"));
+        try {
+            this.log = FileChannel.open(logPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            shared.release();
+            throw e;
+        }
+        this.io = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "student-store-io");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Reads the snapshot and replays the log, handing every live row to
+     * {@code sink}: snapshot rows first, then rows added through the log, each
+     * in file order. This reads the files on the calling thread, so call it
+     * off the event thread. fields() may be called while this is running.
+     */
+    public void load(RowSink sink) throws IOException {
+        try {
+            replay(sink, false);
+        } catch (IOException e) {
+            io.shutdownNow();
+            log.close();
+            shared.release();
+            throw e;
+        }
+        io.scheduleWithFixedDelay(this::compactQuietly,
+                COMPACT_INTERVAL_SECONDS, COMPACT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        io.scheduleWithFixedDelay(this::pollQuietly, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Reads the files into the index. Only the log is read under the write
+    // lock (taken here unless locked): the CSV cannot be replaced while this
+    // client holds presence, so the long snapshot scan runs without it.
+    private void replay(RowSink sink, boolean locked) throws IOException {
+        // Replay the log first so tombstoned snapshot rows are never handed out
+        Map<Long, String[]> logRows = new LinkedHashMap<>();
+        Set<Long> deleted = new HashSet<>();
+        try (SharedLock.WriteLock lock = locked ? null : shared.lockWrites()) {
+            readLog(logRows, deleted);
+        }
+
+        // Snapshot: only the StudentID of each line is decoded here
+        if (Files.exists(csvPath) && Files.size(csvPath) > 0) {
+            Mapping m = map();
+            long eol = m.endOfLine(0);
+            header = stripBom(m.string(0, eol));
+            for (long pos = eol + 1; pos < m.size; pos = eol + 1) {
+                eol = m.endOfLine(pos);
+                if (m.isBlank(pos, eol) || (!deleted.isEmpty() && deleted.contains(pos))) continue;
+                sink.row(addToIndex(new Row(m.string(pos, m.indexOf(',', pos, eol)), pos, null, m)));
+            }
+        }
+
+        for (Map.Entry<Long, String[]> e : logRows.entrySet()) {
+            sink.row(addToIndex(new Row(e.getValue()[0], e.getKey(), e.getValue(), null)));
+        }
+    }
+
+    // Collects the log's live inserts and the snapshot offsets it deletes;
+    // a stale or empty log is replaced by a new one
+    private void readLog(Map<Long, String[]> logRows, Set<Long> deleted) throws IOException {
+        long complete = 0;
+        boolean stale = false;
+        logEntries = 0;
+
+        try (LineReader in = new LineReader(Files.newInputStream(logPath), true)) {
+            String line = in.readLine();
+            if (line != null) {
+                stale = !matchesCsv(line);
+                complete = in.offset();
+                base = (line + "\n").getBytes(StandardCharsets.UTF_8);
+            }
+            while (!stale && (line = in.readLine()) != null) {
+                complete = in.offset();
+                if (line.length() < 2) continue;
+                if (line.charAt(0) == '+') {
+                    logRows.put(encodeLog(in.lineStart()), line.substring(2).split(","));
+                } else if (line.charAt(0) == '-') {
+                    long location = Long.parseLong(line.substring(line.lastIndexOf(',') + 1));
+                    if (logRows.remove(location) == null) deleted.add(location);
+                }
+                logEntries++;
+            }
+        }
+
+        if (stale) {
+            System.err.println("[StudentStore] " + logPath.getFileName()
+                    + " does not match the current CSV (already compacted), discarding it.");
+            startNewLog();
+        } else if (complete == 0) {
+            startNewLog();
+        } else {
+            // Drop a torn last entry left behind by a crash mid-append
+            if (complete < log.size()) log.truncate(complete);
+            logSize = complete;
+        }
+    }
+
+    // Whether a #base line was written against the current CSV; logs from
+    // before generations carry only size and mtime
+    private boolean matchesCsv(String line) throws IOException {
+        String[] f = line.split(",");
+        if (f.length < 3 || !f[0].equals("#base")) return false;
+        try {
+            generation = f.length > 3 ? Long.parseLong(f[1]) : 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return (f[f.length - 2] + "," + f[f.length - 1]).equals(csvStamp());
+    }
+
+    public synchronized boolean contains(String id) {
+        return index.containsKey(id);
+    }
+
+    public synchronized int size() {
+        return rowCount;
+    }
+
+    /** The fields of {@code row}, parsed from the mapped CSV if it lives there. */
+    public synchronized String[] fields(Row row) {
+        if (row.fields != null) return row.fields;
+        // a row from before a reload still reads from its own, older mapping,
+        // until a fold releases it; after that only its StudentID is known
+        Mapping m = row.snapshot;
+        if (m.isClosed()) return new String[] {row.id};
+        return m.string(row.location, m.endOfLine(row.location)).split(",");
+    }
+
+    private synchronized Mapping map() throws IOException {
+        Mapping m = new Mapping(csvPath);
+        mappings.add(m);
+        return m;
+    }
+
+    /** Called on the I/O thread when a queued write or a compaction fails. */
+    public void setErrorHandler(Consumer<IOException> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Sets who hears about other clients' changes. Changes found before this
+     * are handed to it first, on the I/O thread.
+     */
+    public void setChangeListener(ChangeListener changeListener) {
+        io.execute(() -> {
+            listener = changeListener;
+            deliver();
+        });
+    }
+
+    /** Queues an insert and returns the handle of the new row. No disk I/O. */
+    public synchronized Row insert(String[] fields) {
+        Row row = addToIndex(new Row(fields[0], PENDING, fields, null));
+        enqueue(new Op(row, "+," + String.join(",", fields)));
+        return row;
+    }
+
+    /** Queues a tombstone for {@code row}. No disk I/O. */
+    public synchronized void delete(Row row) {
+        List<Row> rows = index.get(row.id);
+        if (rows == null || !rows.remove(row)) return;
+        if (rows.isEmpty()) index.remove(row.id);
+        rowCount--;
+        // Insert still queued: both entries cancel out
+        if (row.location == PENDING && pending.removeIf(op -> op.row == row)) return;
+        enqueue(new Op(row, null));
+    }
+
+    // Debounce: every new entry pushes the flush back, up to MAX_FLUSH_DELAY_MILLIS
+    private void enqueue(Op op) {
+        long now = System.currentTimeMillis();
+        if (pending.isEmpty()) firstPendingAt = now;
+        pending.add(op);
+        if (flushTask != null) {
+            if (now - firstPendingAt >= MAX_FLUSH_DELAY_MILLIS) return;
+            flushTask.cancel(false);
+        }
+        flushTask = io.schedule(this::flushQuietly, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized Row addToIndex(Row row) {
+        index.computeIfAbsent(row.id, k -> new ArrayList<>(1)).add(row);
+        rowCount++;
+        return row;
+    }
+
+    private void flush() throws IOException {
+        try (SharedLock.WriteLock lock = shared.lockWrites()) {
+            flushLocked();
+        }
+        deliver();
+    }
+
+    // Catches up with the other clients, then writes every queued entry with
+    // a single write (I/O thread, under the write lock)
+    private void flushLocked() throws IOException {
+        tail();
+        List<Op> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new ArrayList<>();
+            flushTask = null;
+        }
+        if (batch.isEmpty()) return;
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(batch.size() * 64);
+        long[] offsets = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Op op = batch.get(i);
+            offsets[i] = logSize + buf.size();
+            String line = op.line != null ? op.line : "-," + op.row.id + "," + op.row.location;
+            buf.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            append(buf.toByteArray());
+        } catch (IOException e) {
+            synchronized (this) {
+                batch.addAll(pending);
+                pending = batch;
+            }
+            throw e;
+        }
+        logEntries += batch.size();
+
+        synchronized (this) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i).line != null) batch.get(i).row.location = encodeLog(offsets[i]);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            errorHandler.accept(e);
+        }
+    }
+
+    // Looks for other clients' entries between our own flushes (I/O thread).
+    // A new log of the same size as ours is only noticed at the next flush.
+    private void poll() throws IOException {
+        if (log.size() == logSize) return;
+        try (SharedLock.WriteLock lock = shared.lockWrites()) {
+            tail();
+        }
+        deliver();
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (IOException e) {
+            errorHandler.accept(e);
+        }
+    }
+
+    /**
+     * Applies the entries other clients appended since logSize (I/O thread,
+     * under the write lock). Their inserts are at log offsets every client
+     * agrees on, so they get the same locations here as anywhere else.
+     */
+    private void tail() throws IOException {
+        long end = log.size();
+        if (end < logSize || !baseUnchanged()) {
+            reload();
+            return;
+        }
+        if (end == logSize) return;
+
+        List<Row> inserted = new ArrayList<>(), deleted = new ArrayList<>();
+        long start = logSize;
+        log.position(start);
+        LineReader in = new LineReader(Channels.newInputStream(log), true);   // not closed: it would close the log
+        String line;
+        while ((line = in.readLine()) != null) {
+            logSize = start + in.offset();
+            logEntries++;
+            if (line.length() < 2) continue;
+            if (line.charAt(0) == '+') {
+                String[] fields = line.substring(2).split(",");
+                inserted.add(addToIndex(new Row(fields[0], encodeLog(start + in.lineStart()), fields, null)));
+            } else if (line.charAt(0) == '-') {
+                int comma = line.lastIndexOf(',');
+                Row row = removeDeleted(line.substring(2, comma), Long.parseLong(line.substring(comma + 1)));
+                if (row != null) deleted.add(row);
+            }
+        }
+        // Only a client that died mid-append leaves a partial entry behind
+        if (logSize < end) log.truncate(logSize);
+        unsentInserted.addAll(inserted);
+        unsentDeleted.addAll(deleted);
+    }
+
+    // Another client's tombstone: drops the row, or, if it is already gone
+    // here, our own queued tombstone for it
+    private synchronized Row removeDeleted(String id, long location) {
+        List<Row> rows = index.get(id);
+        if (rows != null) {
+            for (Iterator<Row> it = rows.iterator(); it.hasNext(); ) {
+                Row row = it.next();
+                if (row.location != location) continue;
+                it.remove();
+                if (rows.isEmpty()) index.remove(id);
+                rowCount--;
+                return row;
+            }
+        }
+        if (pending.removeIf(op -> op.line == null && op.row.location == location)) {
+            Metrics.count("store.conflicts");
+        }
+        return null;
+    }
+
+    private boolean baseUnchanged() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(base.length);
+        while (buf.hasRemaining() && log.read(buf, buf.position()) > 0) { }
+        return Arrays.equals(buf.array(), base);
+    }
+
+    /**
+     * The log was replaced under us: every location may be stale, so the
+     * files are read again (I/O thread, under the write lock). Queued inserts
+     * survive; queued tombstones point into the old files and are dropped.
+     */
+    private void reload() throws IOException {
+        List<Op> inserts = new ArrayList<>();
+        synchronized (this) {
+            for (Op op : pending) {
+                if (op.line != null) inserts.add(op);
+                else Metrics.count("store.conflicts");
+            }
+            pending = new ArrayList<>(inserts);
+            index.clear();
+            rowCount = 0;
+        }
+        List<Row> rows = new ArrayList<>();
+        replay(rows::add, true);
+        for (Op op : inserts) rows.add(addToIndex(op.row));
+        Metrics.count("store.reloads");
+
+        unsentInserted.clear();
+        unsentDeleted.clear();
+        unsentReload = rows;
+    }
+
+    // Hands other clients' changes to the listener, or keeps them until there
+    // is one (I/O thread, never under the write lock)
+    private void deliver() {
+        if (listener == null) return;
+        if (unsentReload != null) {
+            List<Row> rows = unsentReload;
+            unsentReload = null;
+            listener.reloaded(rows);
+        }
+        if (unsentInserted.isEmpty() && unsentDeleted.isEmpty()) return;
+        List<Row> inserted = new ArrayList<>(unsentInserted), deleted = new ArrayList<>(unsentDeleted);
+        unsentInserted.clear();
+        unsentDeleted.clear();
+        listener.changed(inserted, deleted);
+    }
+
+    // Positional writes at logSize, the end of the log while the write lock is held
+    private long append(byte[] bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        long offset = logSize;
+        try {
+            while (buf.hasRemaining()) log.write(buf, offset + buf.position());
+        } catch (IOException e) {
+            log.truncate(offset);   // never leave half a batch behind
+            throw e;
+        }
+        logSize += bytes.length;
+        return offset;
+    }
+
+    private void startNewLog() throws IOException {
+        generation++;
+        base = ("#base," + generation + "," + csvStamp() + "\n").getBytes(StandardCharsets.UTF_8);
+        log.truncate(0);
+        logSize = 0;
+        append(base);
+        logEntries = 0;
+    }
+
+    // Identifies the CSV the log was written against
+    private String csvStamp() throws IOException {
+        if (!Files.exists(csvPath)) return "0,0";
+        return Files.size(csvPath) + "," + Files.getLastModifiedTime(csvPath).toMillis();
+    }
+
+    /**
+     * Flushes, and if no other client has the files open, folds the log into
+     * the CSV (I/O thread only). While others are open the log just keeps
+     * growing; the last client to close folds it.
+     */
+    private void compact(boolean closing) throws IOException {
+        try (SharedLock.WriteLock lock = shared.lockWrites()) {
+            flushLocked();
+            if (logEntries > 0 && shared.tryExclusive()) {
+                try {
+                    fold();
+                } finally {
+                    if (!closing) shared.share();
+                }
+            }
+        }
+        deliver();
+    }
+
+    /**
+     * Rewrites class_records.csv from the live rows and starts a new log.
+     * Both files are read front to back once; rows keep their current order.
+     * The store lock is only held to snapshot the index and around the swap
+     * (unmap, move, map again, publish the new locations), never during the
+     * file copy.
+     */
+    private void fold() throws IOException {
+        Row[] csvRows, logRows;
+        List<Op> dropped = new ArrayList<>();
+        int csvCount = 0, logCount = 0;
+        synchronized (this) {
+            csvRows = new Row[rowCount];
+            logRows = new Row[rowCount];
+            for (List<Row> rows : index.values()) {
+                for (Row row : rows) {
+                    if (row.location == PENDING) continue;
+                    if (row.location >= 0) csvRows[csvCount++] = row;
+                    else logRows[logCount++] = row;
+                }
+            }
+            // Rows deleted since flush() are left out of the new CSV already;
+            // their tombstones would point at offsets of the old one
+            for (Op op : pending) if (op.line == null) dropped.add(op);
+            pending.removeAll(dropped);
+        }
+        Comparator<Row> byOffset = Comparator.comparingLong(r -> r.location >= 0 ? r.location : decodeLog(r.location));
+        Arrays.sort(csvRows, 0, csvCount, byOffset);
+        Arrays.sort(logRows, 0, logCount, byOffset);
+        long[] newCsv = new long[csvCount];
+        long[] newLog = new long[logCount];
+
+        Path tmp = csvPath.resolveSibling(csvPath.getFileName() + ".tmp");
+        try {
+            try (CountingWriter out = new CountingWriter(Files.newOutputStream(tmp))) {
+                out.writeLine(header);
+                if (csvCount > 0) {
+                    try (LineReader in = new LineReader(Files.newInputStream(csvPath), false)) {
+                        copyLines(in, csvRows, newCsv, csvCount, 0, out);
+                    }
+                }
+                if (logCount > 0) {
+                    try (LineReader in = new LineReader(Files.newInputStream(logPath), true)) {
+                        copyLines(in, logRows, newLog, logCount, 2, out);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // The old CSV and log are untouched; the tombstones are still needed
+            synchronized (this) {
+                pending.addAll(0, dropped);
+            }
+            throw e;
+        }
+
+        // fields() holds the store lock too, so nothing reads a mapping while
+        // it is gone. Rows deleted meanwhile still get a location: their queued
+        // tombstones are written after this and must point into the new CSV.
+        synchronized (this) {
+            for (Mapping old : mappings) old.close();
+            mappings.clear();
+            try {
+                Files.move(tmp, csvPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // Still the old CSV: map it again for the rows that live there
+                if (Files.exists(csvPath)) {
+                    Mapping old = map();
+                    for (List<Row> rows : index.values()) {
+                        for (Row row : rows) if (row.location >= 0) row.snapshot = old;
+                    }
+                }
+                pending.addAll(0, dropped);
+                throw e;
+            }
+            Mapping m = map();
+            startNewLog();
+            for (int i = 0; i < csvCount; i++) {
+                csvRows[i].location = newCsv[i];
+                csvRows[i].snapshot = m;
+            }
+            for (int i = 0; i < logCount; i++) {
+                logRows[i].location = newLog[i];
+                logRows[i].snapshot = m;
+                logRows[i].fields = null;
+            }
+        }
+    }
+
+    // Copies the lines of the given rows (sorted by offset) to out,
+    // recording where each one lands in the new CSV
+    private static void copyLines(LineReader in, Row[] rows, long[] newOffsets, int count,
+                                  int skip, CountingWriter out) throws IOException {
+        int next = 0;
+        String line;
+        while (next < count && (line = in.readLine()) != null) {
+            long offset = rows[next].location >= 0 ? rows[next].location : decodeLog(rows[next].location);
+            if (in.lineStart() != offset) continue;
+            newOffsets[next++] = out.position();
+            out.writeLine(line.substring(skip));
+        }
+        if (next < count) throw new IOException("Row index is out of sync with the files.");
+    }
+
+    private void compactQuietly() {
+        try {
+            compact(false);
+        } catch (IOException e) {
+            errorHandler.accept(e);
+        }
+    }
+
+    /**
+     * Writes the queued entries, folds the log into the CSV one last time if
+     * this is the last client, and releases the files. Blocks until the I/O
+     * thread is done.
+     */
+    @Override
+    public void close() throws IOException {
+        Future<?> done = io.submit(() -> {
+            try {
+                compact(true);
+            } finally {
+                try {
+                    log.close();
+                } finally {
+                    shared.release();
+                }
+            }
+            return null;
+        });
+        io.shutdown();
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException
+                    ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private static long encodeLog(long offset) { return -(offset + 1); }
+    private static long decodeLog(long location) { return -location - 1; }
+
+    private static String stripBom(String s) {
+        return s.startsWith("\uFEFF") ? s.substring(1) : s;
+    }
+
+    // ------------------------------------------------------------------ //
+    //  Lock file shared by every client of one CSV
+    // ------------------------------------------------------------------ //
+    // FileLock belongs to the whole process, so stores of the same CSV in one
+    // JVM share one entry: a ReentrantLock in front of the write lock, and
+    // one shared presence lock for all of them.
+    private static final class SharedLock {
+        private static final Map<Path, SharedLock> OPEN = new HashMap<>();
+
+        private final Path path;
+        private final FileChannel channel;
+        private final ReentrantLock writers = new ReentrantLock();
+        private FileLock presence;   // byte 1: shared while open, exclusive while folding
+        private int users;
+
+        private SharedLock(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                presence = channel.lock(1, 1, true);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        static SharedLock acquire(Path path) throws IOException {
+            Path key = path.toAbsolutePath().normalize();
+            synchronized (OPEN) {
+                SharedLock lock = OPEN.get(key);
+                if (lock == null) {
+                    lock = new SharedLock(key);
+                    OPEN.put(key, lock);
+                }
+                lock.users++;
+                return lock;
+            }
+        }
+
+        /** Byte 0, exclusively; its hold time is recorded as store.lock.hold. */
+        WriteLock lockWrites() throws IOException {
+            writers.lock();
+            try {
+                return new WriteLock(channel.lock(0, 1, false));
+            } catch (IOException | RuntimeException e) {
+                writers.unlock();
+                throw e;
+            }
+        }
+
+        final class WriteLock implements Closeable {
+            private final FileLock lock;
+            private final long since = System.nanoTime();
+
+            WriteLock(FileLock lock) {
+                this.lock = lock;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    lock.release();
+                } finally {
+                    writers.unlock();
+                    Metrics.record("store.lock.hold", System.nanoTime() - since);
+                }
+            }
+        }
+
+        /** Whether this is the only client; if so, presence is now exclusive. Needs the write lock. */
+        boolean tryExclusive() throws IOException {
+            synchronized (OPEN) {
+                if (users > 1) return false;
+            }
+            presence.release();
+            FileLock alone = channel.tryLock(1, 1, false);
+            presence = alone != null ? alone : channel.lock(1, 1, true);
+            return alone != null;
+        }
+
+        /** Back to shared presence after tryExclusive(). */
+        void share() throws IOException {
+            if (presence.isShared()) return;
+            presence.release();
+            presence = channel.lock(1, 1, true);
+        }
+
+        void release() throws IOException {
+            synchronized (OPEN) {
+                if (--users > 0) return;
+                OPEN.remove(path);
+            }
+            channel.close();
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  Read-only mapping of the CSV, in 1 GiB segments
+    // ------------------------------------------------------------------ //
+    private static final class Mapping {
+        private static final int SEGMENT_BITS = 30;
+        private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+        private static final MappedByteBuffer[] CLOSED = new MappedByteBuffer[0];
+
+        // sun.misc.Unsafe.invokeCleaner, the only way to unmap before GC; null
+        // if this JDK hides it, and then close() just drops the buffers
+        private static final Method INVOKE_CLEANER;
+        private static final Object UNSAFE;
+        static {
+            Method invoke = null;
+            Object unsafe = null;
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invoke = type.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                invoke = null;
+            }
+            INVOKE_CLEANER = invoke;
+            UNSAFE = unsafe;
+        }
+
+        private MappedByteBuffer[] segments;
+        final long size;
+
+        Mapping(Path path) throws IOException {
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                size = ch.size();
+                segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+                for (int i = 0; i < segments.length; i++) {
+                    long start = (long) i << SEGMENT_BITS;
+                    segments[i] = ch.map(FileChannel.MapMode.READ_ONLY, start,
+                            Math.min(SEGMENT_MASK + 1, size - start));
+                }
+            }
+        }
+
+        /**
+         * Unmaps the file now rather than at GC. Only call it under the store
+         * lock: a read after this throws instead of touching unmapped memory.
+         */
+        void close() {
+            MappedByteBuffer[] old = segments;
+            segments = CLOSED;
+            if (INVOKE_CLEANER == null) return;
+            for (MappedByteBuffer segment : old) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, segment);
+                } catch (ReflectiveOperationException e) {
+                    return;   // left to GC
+                }
+            }
+        }
+
+        boolean isClosed() {
+            return segments == CLOSED;
+        }
+
+        byte get(long pos) {
+            return segments[(int) (pos >>> SEGMENT_BITS)].get((int) (pos & SEGMENT_MASK));
+        }
+
+        /** Offset of the '\n' ending the line at pos, or size. */
+        long endOfLine(long pos) {
+            return indexOf('\n', pos, size);
+        }
+
+        long indexOf(char c, long from, long to) {
+            while (from < to && get(from) != c) from++;
+            return from;
+        }
+
+        boolean isBlank(long from, long to) {
+            for (long p = from; p < to; p++) {
+                byte b = get(p);
+                if (b != ' ' && b != '\t' && b != '\r') return false;
+            }
+            return true;
+        }
+
+        /** Bytes [from, to) as UTF-8, without a trailing '\r'. */
+        String string(long from, long to) {
+            if (to > from && get(to - 1) == '\r') to--;
+            byte[] bytes = new byte[(int) (to - from)];
+            int seg = (int) (from >>> SEGMENT_BITS);
+            if (seg == (int) ((to - 1) >>> SEGMENT_BITS)) {
+                segments[seg].get((int) (from & SEGMENT_MASK), bytes);
+            } else {
+                for (int i = 0; i < bytes.length; i++) bytes[i] = get(from + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // ------------------------------------------------------------------ //
+    //  Byte-level line reader, so the offset of every line is known
+    // ------------------------------------------------------------------ //
+    private static final class LineReader implements Closeable {
+        private final InputStream in;
+        private final boolean requireNewline;
+        private final byte[] buf = new byte[1 << 16];
+        private byte[] line = new byte[256];
+        private int pos, len;
+        private long offset, lineStart;
+
+        LineReader(InputStream in, boolean requireNewline) {
+            this.in = in;
+            this.requireNewline = requireNewline;
+        }
+
+        /** Next line without its terminator, or null at end of input. */
+        String readLine() throws IOException {
+            lineStart = offset;
+            int n = 0;
+            while (true) {
+                if (pos == len) {
+                    len = in.read(buf);
+                    pos = 0;
+                    if (len <= 0) {
+                        len = 0;
+                        // An unterminated last line is a torn write in the log
+                        if (n == 0 || requireNewline) return null;
+                        break;
+                    }
+                }
+                byte b = buf[pos++];
+                offset++;
+                if (b == '\n') break;
+                if (n == line.length) line = Arrays.copyOf(line, n * 2);
+                line[n++] = b;
+            }
+            if (n > 0 && line[n - 1] == '\r') n--;
+            return new String(line, 0, n, StandardCharsets.UTF_8);
+        }
+
+        long lineStart() { return lineStart; }
+        long offset()    { return offset; }
+
+        @Override
+        public void close() throws IOException { in.close(); }
+    }
+
+    private static final class CountingWriter implements Closeable {
+        private final OutputStream out;
+        private long position;
+
+        CountingWriter(OutputStream out) {
+            this.out = new BufferedOutputStream(out, 1 << 16);
+        }
+
+        void writeLine(String s) throws IOException {
+            byte[] bytes = (s + "\n").getBytes(StandardCharsets.UTF_8);
+            out.write(bytes);
+            position += bytes.length;
+        }
+
+        long position() { return position; }
+
+        @Override
+        public void close() throws IOException { out.close(); }
+    }
+}